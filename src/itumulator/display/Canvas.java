@@ -17,11 +17,11 @@ import itumulator.display.utility.ImageResourceCache;
 import itumulator.display.utility.ImageUtility;
 import itumulator.display.utility.IsomorphicCoordinateFactory;
 import itumulator.display.utility.IsomorphicUtility;
-import itumulator.display.utility.Point2DInt;
 import itumulator.executable.DisplayInformation;
 import itumulator.executable.DynamicDisplayInformationProvider;
 import itumulator.world.Location;
 import itumulator.world.World;
+import itumulator.world.WorldFrame;
 
 /**
  * Provides a canvas painting the various objects within our world. This is not relevant to continue the project.
@@ -29,6 +29,8 @@ import itumulator.world.World;
 public class Canvas extends JPanel {
     private final static Color COLOR_EMPTY = Color.WHITE; // used as the color representing empty vlaues
     private final static Color COLOR_NON_PAINTABLE = Color.GRAY; // used as as the color for elements not associated with a color
+    private final static Color COLOR_TILE = new Color(250, 250, 250); // used as the background of each tile in the grid view
+    private final static Color COLOR_ISO_GROUND = new Color(150, 210, 131); // used as the ground of the isomorphic view
     private final static int MS_PER_FRAME = 4; 
     private final static int SLOW_DOWN_FRAMES = 6; // used to reduce the queued amount of images (for render)
     private final static int IMAGE_CACHE_SIZE = 60; // to avoid memory overflow, correct this one
@@ -152,13 +154,12 @@ public class Canvas extends JPanel {
                     Image img = createImage(size, size);
                     graphics = img.getGraphics();
                     graphics.drawImage(isoBackgroundImage, 0,IsomorphicCoordinateFactory.Instance().getDisplaySize()/2, null);
-                    graphics.setColor(new Color(150, 210, 131));
+                    graphics.setColor(COLOR_ISO_GROUND);
                     graphics.fillPolygon(IsomorphicUtility.getIsoPolygon((IsomorphicCoordinateFactory.Instance().getDisplaySize()/2), IsomorphicCoordinateFactory.Instance().getDisplaySize()/2, IsomorphicCoordinateFactory.Instance().getDisplaySize()/2, IsomorphicCoordinateFactory.Instance().getDisplaySize()/4));
                     graphics.drawImage(future.get(), 0, 0,null);
                     this.queue.add(img);
                     repaint(); // bad practice, but appears to help rendering time on windows machines
                 }
-                System.gc();
             } catch (Exception e) {
                 // This can happen because we start tasks and
                 // futures from within the simulator thread
@@ -182,13 +183,22 @@ public class Canvas extends JPanel {
 
                 graphics.setColor(COLOR_EMPTY);
                 graphics.fillRect(0, 0, size, size);
-                int tiles = world.getSize();
-                for (int y = tiles-1; y >= 0; y--) {
-                    for (int x = 0; x < tiles; x++) {
-                        Location l = new Location(x, y);
-                        Object o = world.getTile(l);
-                        drawGridElement(l, o);
+                // a double buffered world provides the map as of the end of the step, which is kept as it is until handed back
+                WorldFrame frame = world.acquireFrame();
+                try {
+                    int tiles = world.getSize();
+                    for (int y = tiles-1; y >= 0; y--) {
+                        for (int x = 0; x < tiles; x++) {
+                            Location l = world.locationOf(x, y);
+                            if (frame != null) {
+                                drawGridElement(l, frame.getTile(x, y), frame.getNonBlocking(x, y));
+                            } else {
+                                drawGridElement(l, world.getTile(l), world.containsNonBlocking(l) ? world.getNonBlocking(l) : null);
+                            }
+                        }
                     }
+                } finally {
+                    world.releaseFrame(frame);
                 }
                 repaint();
             } catch (Exception e){
@@ -201,19 +211,20 @@ public class Canvas extends JPanel {
      * Draws each element as a square
      * @param l location to write the element on
      * @param o the object to draw (used to determine color)
+     * @param nonBlocking the non-blocking object on the same tile (drawn first if it isn't o), or null
      */
-    private void drawGridElement(Location l, Object o) {
+    private void drawGridElement(Location l, Object o, Object nonBlocking) {
         int tiles = world.getSize();
         int pixelSize = size / tiles;
-        Point2DInt pixelPoint;
-        pixelPoint = new Point2DInt(pixelSize * l.getX(), pixelSize * l.getY());
+        int pixelX = pixelSize * l.getX();
+        int pixelY = pixelSize * l.getY();
 
-        graphics.setColor(new Color(250, 250, 250));
-        graphics.fillRect(pixelPoint.getX(), pixelPoint.getY(), pixelSize, pixelSize);
+        graphics.setColor(COLOR_TILE);
+        graphics.fillRect(pixelX, pixelY, pixelSize, pixelSize);
         
         // if the element is nonBlocking, draw it as a flat square
-        if (world.containsNonBlocking(l) && world.getNonBlocking(l) != o)
-            drawGridElement(l, world.getNonBlocking(l));
+        if (nonBlocking != null && nonBlocking != o)
+            drawGridElement(l, nonBlocking, null);
 
         // if a dynamic display information provider is used, dynamically determine the color
         if (o instanceof DynamicDisplayInformationProvider){
@@ -227,11 +238,7 @@ public class Canvas extends JPanel {
             } else {
                 graphics.setColor(COLOR_NON_PAINTABLE);
             }
-            int x = pixelPoint.getX();
-            int y = pixelPoint.getY();
-            int width = pixelSize;
-            int height = pixelSize;
-            graphics.fillRect(x, y, width, height);
+            graphics.fillRect(pixelX, pixelY, pixelSize, pixelSize);
         }
     }
 
@@ -28,14 +28,16 @@ import itumulator.display.overlay.OverlayCanvas;
 import itumulator.display.utility.DayNightHelper;
 import itumulator.display.utility.ImageResourceCache;
 import itumulator.display.utility.ImageUtility;
+import itumulator.simulator.SimulationObserver;
 import itumulator.simulator.Simulator;
 
 /**
  * Provides a frame for the {@link Canvas} and controls for the
- * {@link Simulator}. This is not relevant to continue the project.
+ * {@link Simulator}. The frame observes the simulator to repaint the canvas after each step. This is not relevant to continue the project.
  */
-public class Frame extends JFrame {
+public class Frame extends JFrame implements SimulationObserver {
     private final int UI_HEIGHT = 25;
+    private Canvas canvas;
     private JTextField textField;
     private JLayeredPane layeredPane;
     private JPanel uiPanel;
@@ -44,6 +46,7 @@ public class Frame extends JFrame {
 
 
     public Frame(Canvas canvas, Simulator simulator, int pixel_size, boolean startIso) {
+        this.canvas = canvas;
         dayNightHelper = new DayNightHelper();
         overlayCanvas = new OverlayCanvas(pixel_size, startIso);
         
@@ -131,7 +134,24 @@ public class Frame extends JFrame {
         uiPanel.setOpaque(false);
     }
 
-    
+    @Override
+    public void beforeStep(Simulator simulator) {
+        canvas.acquireRenderPermit(); // to not produce too many images
+    }
+
+    @Override
+    public void afterStep(Simulator simulator) {
+        // update frame settings regarding change of cycle
+        updateDayNightLabel(simulator.getWorld().isDay());
+        updateStepLabel(simulator.getSteps());
+        canvas.paintImage(simulator.getDelay()); //repaint according to updated simulation.
+    }
+
+    @Override
+    public void onStop(Simulator simulator) {
+        canvas.reduceImgQueue();
+    }
+
     public void updateDayNightLabel(boolean isDaytime) {
         dayNightHelper.update(isDaytime);
     }
@@ -10,6 +10,7 @@ import itumulator.world.World;
  * Sets up the program to run simulations. The Program will handle creation of {@link World}, {@link Simulator}, {@link Canvas}, {@link Frame} and correctly
  * connect these. As such, one can instantiate a single {@link Program} and access relevant objects through this, as well as running the simulation.
  * The Program contains two views (changable by clicking the topic right button). It defaults to the isomorphic 2.5d perspective, unless the size of the map exceeds 20.
+ * A Program can also be created headless (see {@link #Program(int)}), in which case no {@link Canvas} or {@link Frame} is created and the simulation runs without a display.
  */
 public class Program {
     private final int MAX_2D_SIZE_DEFAULT = 20;
@@ -32,9 +33,20 @@ public class Program {
         boolean startIso = size <= MAX_2D_SIZE_DEFAULT;
 
         c = new Canvas(w, display_size, startIso);
-        s = new Simulator(w, c, delay);
+        s = new Simulator(w, delay);
         f = new Frame(c, s, display_size, startIso);
-        s.setFrame(f);
+        s.addObserver(f);
+    }
+
+    /**
+     * Produces a new headless program, i.e., without any graphical interface. The simulation is executed without delay
+     * and no display classes are loaded, which allows running simulations on machines without a display.
+     * @param size the size of the world to simulate (will be square).
+     */
+    public Program(int size){
+        this.size = size;
+        w = new World(size);
+        s = new Simulator(w, 0);
     }
     
     /**
@@ -53,9 +65,17 @@ public class Program {
         return s;
     }
 
+    /**
+     * Provides whether the program runs without a graphical interface.
+     * @return true if the program is headless.
+     */
+    public boolean isHeadless(){
+        return f == null;
+    }
+
     /**
      * Provides the canvas itself, responsible for drawing contents (Not necessary to execute the simulation).
-     * @return Canvas.
+     * @return Canvas, or null if the program is headless.
      */
     public Canvas getCanvas(){
         return c;
@@ -63,7 +83,7 @@ public class Program {
 
     /**
      * Provides the frame itself, responsible for buttons (Not necessary to execute the simulation).
-     * @return Frame.
+     * @return Frame, or null if the program is headless.
      */
     public Frame getFrame(){
         return f;
@@ -79,8 +99,11 @@ public class Program {
 
     /**
      * Used to initially show the graphical interface.
+     * @throws IllegalStateException
+     *          if the program is headless.
      */
     public void show(){
+        if(isHeadless()) throw new IllegalStateException("Cannot show a headless program");
         f.setVisible(true);
         c.paintImage();
     }
@@ -117,11 +140,12 @@ public class Program {
     }
 
     /**
-     * Decide on the graphical representation of objects when shown within the GUI.
+     * Decide on the graphical representation of objects when shown within the GUI. Ignored if the program is headless.
      * @param cl is the class which to associate a given display type with (can be accessed by writing [ClassName].class).
      * @param di the {@link DisplayInformation} to associate the type of object with.
      */
     public void setDisplayInformation(Class cl, DisplayInformation di){
+        if(isHeadless()) return;
         c.setDisplayInformation(cl, di);
     }
 
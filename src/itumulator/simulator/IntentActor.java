@@ -0,0 +1,36 @@
+package itumulator.simulator;
+
+import java.util.random.RandomGenerator;
+
+import itumulator.world.Location;
+import itumulator.world.MapView;
+import itumulator.world.World;
+
+/**
+ * An {@link Actor} whose action is split in two: planning what to do while only reading the world, and committing the plan.
+ * When stepping in parallel (see {@link Simulator#setParallelism(int)}), the simulator plans many such actors at once, all against the world
+ * as it was at the start of the step, and then commits the plans one at a time in the order the actors were added.
+ * A plan may therefore be outdated by the time it is committed (e.g. two plants spreading to the same tile, or two animals stepping onto it), so commit must check that
+ * it still applies, which lets the first actor in order win. Otherwise, {@link act(World world) act} is expected to plan and commit right away.
+ * @param <I> the type of the plans (null meaning nothing to do).
+ */
+public interface IntentActor<I> extends Actor {
+
+    /**
+     * Decides what the actor will do. Other actors may be planning at the same time, so only the map given may be read.
+     * The simulator gives the world, or the latest frame of the world if it is double buffered (see {@link World#setDoubleBuffered(boolean)}).
+     * @param map to read.
+     * @param location of the tile the actor is on.
+     * @param random to use for any decisions (seeded for the actor and step when stepping in parallel).
+     * @return the plan, or null if the actor does nothing.
+     */
+    public I plan(MapView map, Location location, RandomGenerator random);
+
+    /**
+     * Carries out a plan. Called on the thread simulating the world for every plan, including null ones, with the current location of the world set.
+     * @param intent the plan made by {@link plan(MapView map, Location location, RandomGenerator random) plan}.
+     * @param world to act in.
+     */
+    public void commit(I intent, World world);
+
+}
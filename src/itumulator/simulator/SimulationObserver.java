@@ -0,0 +1,29 @@
+package itumulator.simulator;
+
+/**
+ * By implementing the {@link SimulationObserver} interface and attaching an instance to a {@link Simulator} (see {@link Simulator#addObserver(SimulationObserver)}),
+ * one is notified around each step of the simulation. The graphical interface is such an observer, which means a {@link Simulator} without observers
+ * runs headless (i.e., without any canvas, frame or other display classes).
+ */
+public interface SimulationObserver {
+
+    /**
+     * Called by {@link Simulator#run()} before each step is simulated. Observers may block here to throttle the simulation (e.g., while rendering).
+     * @param simulator the simulator about to execute a step.
+     */
+    public default void beforeStep(Simulator simulator) {
+    }
+
+    /**
+     * Called after each step of the simulation, once all actors have acted.
+     * @param simulator the simulator which executed the step.
+     */
+    public void afterStep(Simulator simulator);
+
+    /**
+     * Called when an execution of {@link Simulator#run()} is stopped.
+     * @param simulator the simulator which was stopped.
+     */
+    public default void onStop(Simulator simulator) {
+    }
+}
@@ -1,45 +1,98 @@
 package itumulator.simulator;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import itumulator.display.Canvas;
-import itumulator.display.Frame;
 import itumulator.world.Location;
+import itumulator.world.MapView;
 import itumulator.world.World;
+import itumulator.world.WorldRandom;
 
 /**
  * Simulator handles the execution of actual simulations and keeps track of how many steps have been executed (Not required to execute and build simulations).
+ * The simulator itself does not depend on any display classes. The graphical interface is attached as a {@link SimulationObserver}, and a simulator
+ * without observers is headless, stepping the world at full speed.
+ * By default actors act one at a time. Stepping in parallel (see {@link setParallelism(int) setParallelism}) plans {@link IntentActor}s on several threads
+ * and commits their plans in order, which gives the same results for a given seed regardless of the amount of threads. Only the plans run in parallel,
+ * so it only pays off when planning is most of the work of a step.
+ * If the world is double buffered (see {@link World#setDoubleBuffered(boolean)}), {@link IntentActor}s plan against the frame published
+ * at the end of the previous step rather than the map being changed, also when acting one at a time, so their plans don't depend on who acted first.
+ * Carrying out the plans, and everything else actors do, still reads the world as changed by the actors before them.
+ * Actors sleeping until a later step (see {@link World#sleepUntil(Actor, long)}) are skipped.
  */
 public class Simulator {
     private World world;
-    private Canvas canvas;
     private int steps;
     private AtomicBoolean running;
     private ExecutorService executor;
     private int delay;
-    private Frame frame;
+    private List<SimulationObserver> observers;
+    private Telemetry telemetry;
+    private int parallelism; // 0 if actors act one at a time
+    private long seed;
+    private ForkJoinPool pool;
+
+    // Reused between parallel steps, indexed by the order of the planned actors
+    private IntentActor<?>[] planned = new IntentActor<?>[0];
+    private Location[] plannedLocations = new Location[0];
+    private Object[] intents = new Object[0];
+    private int[] regionOrder = new int[0];
+    private int[] bandStart = new int[1];
+    private int[] bandNext = new int[0];
+    private List<Actor> others = new ArrayList<>();
 
     /**
-     * Initializes a new simulation based on an existing world, canvas, and initial delay.
+     * Initializes a new simulation based on an existing world and initial delay. No observers are attached, i.e., the simulation is headless
+     * until one is added using {@link addObserver(SimulationObserver) addObserver}.
      * @param world the world to simulate.
-     * @param canvas the canvas to use for simulation.
      * @param delay between executing simulations in ms (when using {@link run() run}).
      */
-    public Simulator(World world, Canvas canvas, int delay) {
+    public Simulator(World world, int delay) {
         this.world = world;
-        this.canvas = canvas;
         running = new AtomicBoolean(false);
         this.delay = delay;
+        this.observers = new CopyOnWriteArrayList<>();
+        this.telemetry = new Telemetry();
+    }
+
+    /**
+     * Attaches an observer which is notified around each step (e.g., the graphical interface).
+     * @param observer to attach.
+     */
+    public void addObserver(SimulationObserver observer) {
+        if(observer == null) throw new IllegalArgumentException("Observer cannot be null");
+        observers.add(observer);
+    }
+
+    /**
+     * Detaches a previously attached observer.
+     * @param observer to detach.
+     */
+    public void removeObserver(SimulationObserver observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Provides the world being simulated.
+     * @return the world.
+     */
+    public World getWorld() {
+        return world;
     }
 
     /**
-     * Sets the containing frame to allow updating of meta world information (day/night cycle).
-     * @param frame to use.
+     * Provides the telemetry of the simulation, i.e., the bytes allocated per step and garbage collections while simulating.
+     * @return the telemetry (updated after each step).
      */
-    public void setFrame(Frame frame) {
-        this.frame = frame;
+    public Telemetry getTelemetry() {
+        return telemetry;
     }
 
     /**
@@ -58,32 +111,191 @@ public class Simulator {
         return delay;
     }
 
+    /**
+     * Sets how many threads plan the actors of each step. With 0 (the default) actors act one at a time in the order they were added.
+     * Otherwise, every {@link IntentActor} on the map is planned on the given amount of threads and committed in order, after which
+     * the remaining actors act one at a time. Results only depend on the seed (see {@link setSeed(long) setSeed}), not on the amount of threads,
+     * but differ from acting one at a time (0): plans draw randomness seeded per actor and step, and the other actors act after every plan is committed.
+     * Only {@link IntentActor#plan(MapView, Location, java.util.random.RandomGenerator) plan} runs on the threads, while commits run one at a time,
+     * so an actor doing most of its work when committing gains nothing (e.g. animals only plan which way they wander).
+     * @param parallelism the amount of threads, or 0.
+     * @throws IllegalArgumentException
+     *          if parallelism is negative.
+     * @throws IllegalStateException
+     *          if modifying parallelism while running {@link run() run}.
+     */
+    public void setParallelism(int parallelism) {
+        if(isRunning()) throw new IllegalStateException("Cannot modify parallelism while executing run");
+        if(parallelism < 0) throw new IllegalArgumentException("Parallelism cannot be a negative number");
+        if(pool != null) pool.shutdown();
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Provides how many threads plan the actors of each step.
+     * @return the amount of threads, or 0 if actors act one at a time.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the seed of the randomness of the world (see {@link WorldRandom}) and of the randomness given to {@link IntentActor}s when stepping in parallel.
+     * Should be set before the first step, as actors keep the randomness they were given by the world.
+     * @param seed to use.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        WorldRandom.of(world).setSeed(seed);
+    }
+
     /**
      * Simulate am iteration.
      */
     public void simulate() {
+        telemetry.stepStarted();
+
+        // publish changes made since the last step (e.g., objects placed), so plans read the map the step starts from.
+        if(world.isDoubleBuffered() && world.hasUnpublishedChanges()) world.swapBuffers();
+
         // increment both internal tracking of steps as well as for the world.
         steps++; 
         world.step();
-        // update frame settings regarding change of cycle
-        frame.updateDayNightLabel(world.isDay());
-        frame.updateStepLabel(steps);
-
-        // iterate all actors of the world and execute their actions.
-        Map<Object, Location> entities = world.getEntities();
-        for(Object o : entities.keySet()){
-            if(o instanceof Actor){
-                if(!world.contains(o)) continue;
+
+        // iterate the awake actors of the world and execute their actions (actors added during the step act from the next step).
+        if(parallelism > 0) {
+            simulateInParallel();
+        } else if(world.isDoubleBuffered()) {
+            simulateFromFrame();
+        } else {
+            world.forEachAwakeActor(actor -> {
                 Location l = null;
-                if(world.isOnTile(o)) l = world.getLocation(o);
+                if(world.isOnTile(actor)) l = world.getLocation(actor);
                 world.setCurrentLocation(l);
-                ((Actor)o).act(world);
+                actor.act(world);
+            });
+        }
+        // publish the map of the finished step to readers of the previous one (e.g., the graphical interface).
+        if(world.isDoubleBuffered()) world.swapBuffers();
+        telemetry.stepEnded();
+
+        // let observers (e.g., the graphical interface) react to the updated simulation.
+        for(SimulationObserver observer : observers){
+            observer.afterStep(this);
+        }
+    }
+
+    /**
+     * Lets the actors act one at a time, planning the intent actors on the map against the latest frame and committing their plans right away.
+     * Plans get the same randomness as when stepping in parallel.
+     */
+    @SuppressWarnings("unchecked")
+    private void simulateFromFrame() {
+        MapView frame = world.getFrame();
+        long step = world.getStepCount();
+        int[] count = {0};
+        world.forEachAwakeActor(actor -> {
+            if(!(actor instanceof IntentActor<?>) || !world.isOnTile(actor)) {
+                world.setCurrentLocation(world.isOnTile(actor) ? world.getLocation(actor) : null);
+                actor.act(world);
+                return;
             }
+            IntentActor<Object> intentActor = (IntentActor<Object>) actor;
+            Location l = world.getLocation(actor);
+            world.setCurrentLocation(l);
+            intentActor.commit(intentActor.plan(frame, l, new SplittableRandom(mix(seed, step, count[0]++))), world);
+        });
+    }
+
+    /**
+     * Plans the intent actors on the map in parallel, commits their plans in order and lets the remaining actors act.
+     * Planning is split into bands of rows, so each thread reads one part of the map.
+     */
+    @SuppressWarnings("unchecked")
+    private void simulateInParallel() {
+        // Gather the awake actors in order, along with their locations as of the start of the step
+        others.clear();
+        int[] count = {0};
+        world.forEachAwakeActor(actor -> {
+            if(!(actor instanceof IntentActor<?> intentActor) || !world.isOnTile(actor)) {
+                others.add(actor);
+                return;
+            }
+            if(count[0] == planned.length) {
+                int length = Math.max(64, planned.length * 2);
+                planned = Arrays.copyOf(planned, length);
+                plannedLocations = Arrays.copyOf(plannedLocations, length);
+                intents = new Object[length];
+                regionOrder = new int[length];
+            }
+            planned[count[0]] = intentActor;
+            plannedLocations[count[0]] = world.getLocation(actor);
+            count[0]++;
+        });
+        int planCount = count[0];
+
+        // Sort the actors into bands of rows (counting sort, keeping the order within each band)
+        int bands = Math.min(parallelism * 4, world.getSize());
+        if(bandStart.length != bands + 1) {
+            bandStart = new int[bands + 1];
+            bandNext = new int[bands];
         }
-        entities = null; // to avoid memory leak
-        System.gc(); // force garbage collection to reduce leak
-        // Here removed painting cycle (i.e., canvas.paintImage()) as I believe it was unecessary.
-        canvas.paintImage(delay); //repaint according to updated simulation.
+        Arrays.fill(bandStart, 0);
+        for(int i = 0; i < planCount; i++) bandStart[bandOf(plannedLocations[i], bands) + 1]++;
+        for(int band = 0; band < bands; band++) bandStart[band + 1] += bandStart[band];
+        System.arraycopy(bandStart, 0, bandNext, 0, bands);
+        for(int i = 0; i < planCount; i++) regionOrder[bandNext[bandOf(plannedLocations[i], bands)]++] = i;
+
+        // Plan, each actor with randomness depending only on the seed, the step and its place in the order
+        MapView map = world.isDoubleBuffered() ? world.getFrame() : world;
+        long step = world.getStepCount();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(bands);
+        for(int band = 0; band < bands; band++) {
+            int from = bandStart[band], to = bandStart[band + 1];
+            if(from == to) continue;
+            tasks.add(pool.submit(() -> {
+                for(int j = from; j < to; j++) {
+                    int i = regionOrder[j];
+                    intents[i] = planned[i].plan(map, plannedLocations[i], new SplittableRandom(mix(seed, step, i)));
+                }
+            }));
+        }
+        for(ForkJoinTask<?> task : tasks) task.join();
+
+        // Commit in order, skipping actors removed by an earlier commit
+        for(int i = 0; i < planCount; i++) {
+            IntentActor<Object> actor = (IntentActor<Object>) planned[i];
+            Object intent = intents[i];
+            planned[i] = null;
+            intents[i] = null;
+            if(!world.contains(actor) || !world.isOnTile(actor)) continue;
+            world.setCurrentLocation(world.getLocation(actor));
+            actor.commit(intent, world);
+        }
+
+        for(Actor actor : others) {
+            if(!world.contains(actor)) continue;
+            Location l = null;
+            if(world.isOnTile(actor)) l = world.getLocation(actor);
+            world.setCurrentLocation(l);
+            actor.act(world);
+        }
+        others.clear();
+    }
+
+    private int bandOf(Location location, int bands) {
+        return (int) ((long) location.getY() * bands / world.getSize());
+    }
+
+    /**
+     * Mixes the seed, step and actor into the seed of the actor's randomness (the finalizer of SplitMix64).
+     */
+    private static long mix(long seed, long step, int actor) {
+        long z = seed + step * 0x9E3779B97F4A7C15L + actor * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     /**
@@ -117,7 +329,9 @@ public class Simulator {
     public synchronized void stop(){
         if(!isRunning()) throw new IllegalStateException("No current execution to stop");
         executor.shutdownNow();
-        canvas.reduceImgQueue();
+        for(SimulationObserver observer : observers){
+            observer.onStop(this);
+        }
         running.set(false);
     }
 
@@ -144,7 +358,9 @@ public class Simulator {
                             Thread.currentThread().interrupt();
                             return;
                         }
-                        canvas.acquireRenderPermit(); // to not produce too many images
+                        for(SimulationObserver observer : observers){
+                            observer.beforeStep(Simulator.this); // e.g., to not produce too many images
+                        }
                         simulate();
                         if (delay == 0){
                             continue;
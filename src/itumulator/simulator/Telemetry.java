@@ -0,0 +1,151 @@
+package itumulator.simulator;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Measures the memory behaviour of a {@link Simulator}: the bytes allocated by each step and the garbage collections happening while it runs.
+ * This makes leaks and allocation heavy code visible without forcing garbage collections. A telemetry is updated by its simulator
+ * (see {@link Simulator#getTelemetry()}) and can, e.g., be read by a {@link SimulationObserver} after each step.
+ * Allocated bytes are measured on the thread executing the step and require a JVM supporting thread allocation measurement
+ * (if not, the allocated bytes are reported as -1).
+ */
+public class Telemetry {
+    private final com.sun.management.ThreadMXBean threads; // null if allocation measurement is not supported
+    private final List<GarbageCollectorMXBean> collectors;
+    private final long initialGcCount, initialGcTime;
+
+    private long stepStartBytes, stepStartGcCount, stepStartGcTime;
+    private long lastStepAllocatedBytes = -1, totalAllocatedBytes;
+    private long lastStepGcCount, lastStepGcTime;
+    private long measuredSteps;
+
+    Telemetry() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            if (!sunBean.isThreadAllocatedMemoryEnabled()) sunBean.setThreadAllocatedMemoryEnabled(true);
+            this.threads = sunBean;
+        } else {
+            this.threads = null;
+        }
+        this.collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        this.initialGcCount = currentGcCount();
+        this.initialGcTime = currentGcTime();
+    }
+
+    /**
+     * Marks the start of a step on the current thread.
+     */
+    void stepStarted() {
+        stepStartBytes = currentAllocatedBytes();
+        stepStartGcCount = currentGcCount();
+        stepStartGcTime = currentGcTime();
+    }
+
+    /**
+     * Marks the end of a step on the current thread (which must be the thread that started it).
+     */
+    void stepEnded() {
+        if (threads != null) {
+            lastStepAllocatedBytes = currentAllocatedBytes() - stepStartBytes;
+            totalAllocatedBytes += lastStepAllocatedBytes;
+        }
+        lastStepGcCount = currentGcCount() - stepStartGcCount;
+        lastStepGcTime = currentGcTime() - stepStartGcTime;
+        measuredSteps++;
+    }
+
+    /**
+     * Provides the bytes allocated by the latest step.
+     * @return allocated bytes, or -1 if no step has been measured or allocation measurement is not supported.
+     */
+    public long getLastStepAllocatedBytes() {
+        return lastStepAllocatedBytes;
+    }
+
+    /**
+     * Provides the bytes allocated by all measured steps.
+     * @return allocated bytes, or -1 if allocation measurement is not supported.
+     */
+    public long getTotalAllocatedBytes() {
+        return threads == null ? -1 : totalAllocatedBytes;
+    }
+
+    /**
+     * Provides the average bytes allocated per measured step.
+     * @return average allocated bytes, or -1 if no step has been measured or allocation measurement is not supported.
+     */
+    public long getAverageAllocatedBytes() {
+        if (threads == null || measuredSteps == 0) return -1;
+        return totalAllocatedBytes / measuredSteps;
+    }
+
+    /**
+     * Provides the amount of garbage collections which happened during the latest step (in any thread).
+     * @return amount of collections.
+     */
+    public long getLastStepGcCount() {
+        return lastStepGcCount;
+    }
+
+    /**
+     * Provides the accumulated time spent on garbage collections during the latest step (in any thread).
+     * @return collection time in ms.
+     */
+    public long getLastStepGcTime() {
+        return lastStepGcTime;
+    }
+
+    /**
+     * Provides the amount of garbage collections since the simulator was created.
+     * @return amount of collections.
+     */
+    public long getGcCount() {
+        return currentGcCount() - initialGcCount;
+    }
+
+    /**
+     * Provides the accumulated time spent on garbage collections since the simulator was created.
+     * @return collection time in ms.
+     */
+    public long getGcTime() {
+        return currentGcTime() - initialGcTime;
+    }
+
+    /**
+     * Provides the amount of steps measured.
+     * @return measured steps.
+     */
+    public long getMeasuredSteps() {
+        return measuredSteps;
+    }
+
+    @Override
+    public String toString() {
+        return "steps: " + measuredSteps + ", bytes/step: " + getAverageAllocatedBytes() + ", last step: " + lastStepAllocatedBytes
+            + " bytes, gc: " + getGcCount() + " collections (" + getGcTime() + " ms)";
+    }
+
+    private long currentAllocatedBytes() {
+        if (threads == null) return 0;
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private long currentGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount()); // -1 if undefined
+        }
+        return count;
+    }
+
+    private long currentGcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+}
@@ -0,0 +1,205 @@
+package itumulator.world;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import itumulator.simulator.Actor;
+
+/**
+ * Keeps the actors of a {@link World} in the order they were added, so that the simulation can visit them without copying the world's entities.
+ * Actors are registered under their handle in the {@link EntityTable}. Removing an actor leaves an empty slot behind, which makes it safe to add
+ * and remove actors while the registry is being iterated. Empty slots are cleared away once no iteration is in progress.
+ *
+ * Actors may be put to sleep until a later step. Sleeping actors are kept out of a bitmask of awake slots, so visiting the awake actors
+ * skips 64 sleeping ones at a time, and a {@link TimerWheel} wakes them when their step comes.
+ */
+class ActorRegistry {
+    private Actor[] actors;   // slot -> actor (null if the actor was removed)
+    private int[] handles;    // slot -> handle of the actor
+    private int count;        // slots in use, including empty ones
+    private int removed;      // empty slots below count
+    private int[] slots;      // handle -> slot + 1 (0 if the handle is not a registered actor)
+    private int iterating;    // amount of iterations in progress
+    private long[] wakeAt;    // slot -> step the actor sleeps until (0 if awake)
+    private long[] awake;     // bit per slot, set if the slot holds an awake actor
+    private final TimerWheel wheel;
+    private final TimerWheel.Expiry wakeUp;
+
+    ActorRegistry() {
+        this.actors = new Actor[64];
+        this.handles = new int[64];
+        this.slots = new int[64];
+        this.wakeAt = new long[64];
+        this.awake = new long[1];
+        this.wheel = new TimerWheel(0);
+        this.wakeUp = (handle, due) -> {
+            // the actor may have been removed, woken or put to sleep again since
+            if (handle >= slots.length || slots[handle] == 0) return;
+            if (wakeAt[slots[handle] - 1] == due) setAwake(slots[handle] - 1);
+        };
+    }
+
+    /**
+     * Registers an actor at the end of the order.
+     * @param handle the handle of the actor.
+     * @param actor the actor.
+     */
+    void add(int handle, Actor actor) {
+        if (count == actors.length) {
+            actors = Arrays.copyOf(actors, count * 2);
+            handles = Arrays.copyOf(handles, count * 2);
+            wakeAt = Arrays.copyOf(wakeAt, count * 2);
+            awake = Arrays.copyOf(awake, (count * 2 + 63) >> 6);
+        }
+        if (handle >= slots.length) slots = Arrays.copyOf(slots, Math.max(handle + 1, slots.length * 2));
+        actors[count] = actor;
+        handles[count] = handle;
+        setAwake(count);
+        slots[handle] = ++count;
+    }
+
+    /**
+     * Unregisters the actor with the given handle, if it is a registered actor.
+     * @param handle the handle of the object.
+     */
+    void remove(int handle) {
+        if (handle >= slots.length || slots[handle] == 0) return;
+        int slot = slots[handle] - 1;
+        actors[slot] = null;
+        awake[slot >> 6] &= ~(1L << slot);
+        wakeAt[slot] = 0;
+        slots[handle] = 0;
+        removed++;
+        if (iterating == 0) compact();
+    }
+
+    /**
+     * Performs the action on every actor in the order they were added. Actors added during the iteration are not visited,
+     * neither are actors removed during the iteration before their turn.
+     * @param action the action to perform.
+     */
+    void forEach(Consumer<Actor> action) {
+        int end = count;
+        iterating++;
+        try {
+            for (int i = 0; i < end; i++) {
+                Actor actor = actors[i];
+                if (actor != null) action.accept(actor);
+            }
+        } finally {
+            iterating--;
+        }
+        if (iterating == 0) compact();
+    }
+
+    /**
+     * Performs the action on every awake actor in the order they were added, like {@link #forEach(Consumer)}.
+     * Actors put to sleep during the iteration are skipped if their turn hasn't come yet.
+     * @param action the action to perform.
+     */
+    void forEachAwake(Consumer<Actor> action) {
+        int end = count;
+        iterating++;
+        try {
+            for (int word = 0; word << 6 < end; word++) {
+                long bits = awake[word];
+                while (bits != 0) {
+                    int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (slot >= end) break;
+                    // an earlier actor may have put this one to sleep, or removed it
+                    if ((awake[word] & (1L << slot)) == 0) continue;
+                    Actor actor = actors[slot];
+                    if (actor != null) action.accept(actor);
+                }
+            }
+        } finally {
+            iterating--;
+        }
+        if (iterating == 0) compact();
+    }
+
+    /**
+     * Puts the actor with the given handle to sleep until a step, if it is a registered actor.
+     * @param handle the handle of the actor.
+     * @param step the step to wake the actor in, after the current step.
+     */
+    void sleep(int handle, long step) {
+        if (handle >= slots.length || slots[handle] == 0) return;
+        int slot = slots[handle] - 1;
+        wakeAt[slot] = step;
+        awake[slot >> 6] &= ~(1L << slot);
+        // Long.MAX_VALUE never comes, so the actor sleeps until woken
+        if (step != Long.MAX_VALUE) wheel.schedule(handle, step);
+    }
+
+    /**
+     * Wakes the actor with the given handle, if it is a registered actor.
+     * @param handle the handle of the actor.
+     */
+    void wake(int handle) {
+        if (handle >= slots.length || slots[handle] == 0) return;
+        setAwake(slots[handle] - 1);
+    }
+
+    /**
+     * Wakes every sleeping actor.
+     */
+    void wakeAll() {
+        wheel.clear();
+        for (int slot = 0; slot < count; slot++) {
+            if (actors[slot] != null) setAwake(slot);
+        }
+    }
+
+    /**
+     * Determines whether the actor with the given handle is awake.
+     * @param handle the handle of the actor.
+     * @return true if the handle is a registered actor which isn't sleeping.
+     */
+    boolean isAwake(int handle) {
+        return handle < slots.length && slots[handle] != 0 && wakeAt[slots[handle] - 1] == 0;
+    }
+
+    /**
+     * Moves on to a step, waking the actors sleeping until it.
+     * @param step the new step.
+     */
+    void advance(long step) {
+        wheel.advance(step, wakeUp);
+    }
+
+    /**
+     * Provides the amount of registered actors.
+     * @return the amount of actors.
+     */
+    int size() {
+        return count - removed;
+    }
+
+    private void compact() {
+        // only compact once a quarter of the slots are empty, so removing actors one at a time does not shift the order every time
+        if (removed == 0 || removed * 4 < count) return;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (actors[i] == null) continue;
+            actors[kept] = actors[i];
+            handles[kept] = handles[i];
+            wakeAt[kept] = wakeAt[i];
+            slots[handles[kept]] = ++kept;
+        }
+        Arrays.fill(actors, kept, count, null);
+        Arrays.fill(wakeAt, kept, count, 0);
+        Arrays.fill(awake, 0);
+        for (int slot = 0; slot < kept; slot++) {
+            if (wakeAt[slot] == 0) awake[slot >> 6] |= 1L << slot;
+        }
+        count = kept;
+        removed = 0;
+    }
+
+    private void setAwake(int slot) {
+        wakeAt[slot] = 0;
+        awake[slot >> 6] |= 1L << slot;
+    }
+}
@@ -0,0 +1,488 @@
+package itumulator.world;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import itumulator.simulator.Actor;
+
+/**
+ * A {@link World} which may be changed and read from several threads at once, e.g. by actors in different parts of the map acting concurrently,
+ * or by a renderer reading the world while it is being simulated.
+ *
+ * The map is split into square regions, each guarded by one of a fixed amount of striped locks. Placing, moving and removing objects locks the
+ * regions of the tiles involved and writes the tiles under those locks alone, so changes in different regions don't wait for each other, while changes
+ * to the same tile happen one at a time (e.g. of two animals moving to the same tile, only one succeeds). The bookkeeping shared by the whole world
+ * (the entity table, the type index and the actors) is then updated under a short exclusive lock, and methods looking objects up
+ * (e.g. {@link #getLocation(Object)} or {@link #getEntities()}) read it under a shared lock, so they never see it half updated.
+ *
+ * Reading tiles (e.g. {@link #getTile(int, int)}, {@link #isTileEmpty(int, int)} or the neighbour masks) takes no lock at all, as the tiles hold the objects
+ * themselves rather than handles into the entity table, which may be reused once an object is deleted. Such reads see each tile either before or after
+ * a change, never an object which was not on it, but a tile may change right after it was read. The current location (see {@link #setCurrentLocation(Location)}) is kept per thread.
+ */
+public class ConcurrentWorld extends World {
+    private static final int REGION_SIZE = 16; // regions are this many tiles wide and high
+    private static final int STRIPES = 64;     // must be a power of two
+
+    private final ReentrantLock[] stripes;
+    private final ReentrantReadWriteLock bookkeeping;
+    private final ThreadLocal<Location> current;
+    // The objects on the tiles of the non-blocking and the blocking layer, which are read without locking
+    private final AtomicReferenceArray<Object>[] tiles;
+
+    /**
+     * Initializes a concurrent world with a map of size (see {@link World#World(int)}).
+     * @param size of the map within the world (size defines both x and y).
+     */
+    public ConcurrentWorld(int size) {
+        super(size);
+        this.stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++)
+            this.stripes[i] = new ReentrantLock();
+        this.bookkeeping = new ReentrantReadWriteLock();
+        this.current = new ThreadLocal<>();
+        this.tiles = newTiles(size * size);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static AtomicReferenceArray<Object>[] newTiles(int length) {
+        return new AtomicReferenceArray[] { new AtomicReferenceArray<>(length), new AtomicReferenceArray<>(length) };
+    }
+
+    /**
+     * Sets the current location of the calling thread (see {@link World#setCurrentLocation(Location)}).
+     * @param current the location which will be set as currently under examination (can be null).
+     * @throws IllegalArgumentException thrown if the location is out of bounds.
+     */
+    @Override
+    public void setCurrentLocation(Location current) {
+        if (current != null && (current.getX() < 0 || current.getX() >= getSize() || current.getY() < 0 || current.getY() >= getSize()))
+            throw new IllegalArgumentException("Coordinates are out of bounds.");
+        this.current.set(current);
+    }
+
+    /**
+     * Provides the current location of the calling thread (see {@link World#getCurrentLocation()}).
+     * @return the current location.
+     */
+    @Override
+    public Location getCurrentLocation() {
+        return current.get();
+    }
+
+    @Override
+    public void setTile(Location location, Object object) {
+        if (object == null)
+            throw new IllegalArgumentException("Object cannot be null");
+        if (contains(object) && isOnTile(object))
+            throw new IllegalArgumentException("Entity already exists in the world.");
+        location = locationOf(location.getX(), location.getY());
+        int index = location.getY() * getSize() + location.getX();
+        int layer = getLayer(object);
+        ReentrantLock stripe = stripeOf(location);
+        stripe.lock();
+        try {
+            requireFree(layer, index);
+            while (true) {
+                int handle = writeLocked(() -> prepare(object));
+                setSlot(layer, index, handle, object);
+                try {
+                    // another thread may have deleted the object, and its handle been reused, before it was placed
+                    boolean placed = writeLocked(() -> {
+                        if (handleOf(object) != handle)
+                            return false;
+                        placed(object, handle, index, layer);
+                        return true;
+                    });
+                    if (placed)
+                        return;
+                    setSlot(layer, index, 0, null);
+                } catch (IllegalArgumentException e) {
+                    setSlot(layer, index, 0, null);
+                    throw e;
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public void remove(Object object) {
+        while (true) {
+            Location from = getLocation(object);
+            ReentrantLock stripe = stripeOf(from);
+            stripe.lock();
+            try {
+                // another thread may have moved the object before its region was locked
+                if (!from.equals(getLocation(object)))
+                    continue;
+                int index = from.getY() * getSize() + from.getX();
+                int layer = getLayer(object);
+                setSlot(layer, index, 0, null);
+                writeLocked(() -> unplaced(object, handleOf(object), index, layer));
+                return;
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    /**
+     * Moves an object from its current location to a new location (see {@link World#move(Object, Location)}).
+     * Unlike in a plain world, the object stays where it is if the new location is taken.
+     *
+     * @param object The object to be moved.
+     * @param to     The destination location for the object.
+     * @throws IllegalArgumentException if the object is not on the map, the destination is out of bounds, or it already holds an object of the same kind.
+     */
+    @Override
+    public void move(Object object, Location to) {
+        if (to.getX() < 0 || to.getX() >= getSize() || to.getY() < 0 || to.getY() >= getSize())
+            throw new IllegalArgumentException("Coordinates are out of bounds.");
+        while (true) {
+            Location from = getLocation(object);
+            // lock the regions in a fixed order, so two threads moving in opposite directions can't wait for each other
+            int a = stripeIndex(from), b = stripeIndex(to);
+            ReentrantLock first = stripes[Math.min(a, b)], second = stripes[Math.max(a, b)];
+            first.lock();
+            second.lock();
+            try {
+                if (!from.equals(getLocation(object)))
+                    continue;
+                int layer = getLayer(object);
+                int fromIndex = from.getY() * getSize() + from.getX(), toIndex = to.getY() * getSize() + to.getX();
+                if (!isFree(layer, toIndex) && fromIndex != toIndex)
+                    throw new IllegalArgumentException("Tile cannot contain more than one " + (layer == 0 ? "non-blocking" : "blocking") + " object");
+                // the handle can't change while the object is on a locked tile
+                int handle = readLocked(() -> handleOf(object));
+                setSlot(layer, fromIndex, 0, null);
+                setSlot(layer, toIndex, handle, object);
+                writeLocked(() -> {
+                    unplaced(object, handle, fromIndex, layer);
+                    placed(object, handle, toIndex, layer);
+                });
+                return;
+            } finally {
+                second.unlock();
+                first.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void delete(Object object) {
+        while (true) {
+            Location from = placeOf(object);
+            if (from == null) {
+                // another thread may have placed the object meanwhile
+                boolean released = writeLocked(() -> {
+                    if (placeOf(object) != null)
+                        return false;
+                    release(handleOf(object));
+                    return true;
+                });
+                if (released)
+                    return;
+                continue;
+            }
+            ReentrantLock stripe = stripeOf(from);
+            stripe.lock();
+            try {
+                if (!from.equals(placeOf(object)))
+                    continue;
+                int index = from.getY() * getSize() + from.getX();
+                int layer = getLayer(object);
+                int handle = readLocked(() -> handleOf(object));
+                setSlot(layer, index, 0, null);
+                writeLocked(() -> {
+                    unplaced(object, handle, index, layer);
+                    release(handle);
+                });
+                return;
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void add(Object object) {
+        writeLocked(() -> super.add(object));
+    }
+
+    /**
+     * Performs the action on every actor in the order they were added (see {@link World#forEachActor(Consumer)}).
+     * The actors are copied before the first action, so other threads may add and delete actors meanwhile. Actors deleted before their turn are skipped.
+     * @param action the action to perform.
+     */
+    @Override
+    public void forEachActor(Consumer<Actor> action) {
+        if (action == null) throw new IllegalArgumentException("Action cannot be null");
+        List<Actor> actors = new ArrayList<>();
+        // iterating the registry may clear away empty slots, so it's a change
+        writeLocked(() -> super.forEachActor(actors::add));
+        for (Actor actor : actors) {
+            if (contains(actor))
+                action.accept(actor);
+        }
+    }
+
+    /**
+     * Performs the action on every awake actor in the order they were added (see {@link World#forEachAwakeActor(Consumer)}).
+     * The actors are copied before the first action, like in {@link #forEachActor(Consumer)}, so actors put to sleep meanwhile still act.
+     * @param action the action to perform.
+     */
+    @Override
+    public void forEachAwakeActor(Consumer<Actor> action) {
+        if (action == null) throw new IllegalArgumentException("Action cannot be null");
+        List<Actor> actors = new ArrayList<>();
+        writeLocked(() -> super.forEachAwakeActor(actors::add));
+        for (Actor actor : actors) {
+            if (contains(actor))
+                action.accept(actor);
+        }
+    }
+
+    @Override
+    public void sleepUntil(Actor actor, long step) {
+        writeLocked(() -> super.sleepUntil(actor, step));
+    }
+
+    @Override
+    public void wake(Actor actor) {
+        writeLocked(() -> super.wake(actor));
+    }
+
+    @Override
+    public boolean isAwake(Actor actor) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.isAwake(actor);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void step() {
+        writeLocked(super::step);
+    }
+
+    @Override
+    public void setDay() {
+        writeLocked(super::setDay);
+    }
+
+    @Override
+    public void setNight() {
+        writeLocked(super::setNight);
+    }
+
+    @Override
+    public Location getLocation(Object object) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.getLocation(object);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.contains(o);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isOnTile(Object o) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.isOnTile(o);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Object, Location> getEntities() {
+        bookkeeping.readLock().lock();
+        try {
+            return super.getEntities();
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object[][][] getTiles() {
+        bookkeeping.readLock().lock();
+        try {
+            return super.getTiles();
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> Set<T> getAll(Class<T> type, Collection<Location> locations) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.getAll(type, locations);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countOf(Class<?> type) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.countOf(type);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long versionOf(Class<?> type) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.versionOf(type);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    /**
+     * Performs an action on the location of every object of a type on the map (see {@link World#forEachLocationOf(Class, Consumer)}).
+     * The world is locked against changes meanwhile, so the action must not change the world.
+     * @param type the type of objects.
+     * @param action the action to perform.
+     */
+    @Override
+    public void forEachLocationOf(Class<?> type, Consumer<Location> action) {
+        bookkeeping.readLock().lock();
+        try {
+            super.forEachLocationOf(type, action);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<Location> locationsOf(Class<?> type) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.locationsOf(type);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Location nearestOf(Class<?> type, Location location, int radius) {
+        bookkeeping.readLock().lock();
+        try {
+            return super.nearestOf(type, location, radius);
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    /**
+     * Publishes the map as it is now (see {@link World#swapBuffers()}). The world is locked against changes meanwhile.
+     */
+    @Override
+    public void swapBuffers() {
+        writeLocked(super::swapBuffers);
+    }
+
+    @Override
+    public boolean hasUnpublishedChanges() {
+        bookkeeping.readLock().lock();
+        try {
+            return super.hasUnpublishedChanges();
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    @Override
+    Object objectAt(int layer, int index) {
+        return tiles[layer].get(index);
+    }
+
+    @Override
+    boolean isFree(int layer, int index) {
+        return tiles[layer].get(index) == null;
+    }
+
+    @Override
+    void setSlot(int layer, int index, int handle, Object object) {
+        super.setSlot(layer, index, handle, object);
+        tiles[layer].set(index, object);
+    }
+
+    /**
+     * Provides the location of an object, or null if it's not on the map.
+     * @throws IllegalArgumentException if the object is not in the world.
+     */
+    private Location placeOf(Object object) {
+        return readLocked(() -> {
+            int handle = handleOf(object);
+            if (handle == 0)
+                throw new IllegalArgumentException("No such object exists in the world.");
+            int index = tileOf(handle);
+            return index == EntityTable.OFF_MAP ? null : locationOf(index % getSize(), index / getSize());
+        });
+    }
+
+    private <T> T readLocked(Supplier<T> read) {
+        bookkeeping.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            bookkeeping.readLock().unlock();
+        }
+    }
+
+    private <T> T writeLocked(Supplier<T> change) {
+        bookkeeping.writeLock().lock();
+        try {
+            return change.get();
+        } finally {
+            bookkeeping.writeLock().unlock();
+        }
+    }
+
+    private void writeLocked(Runnable change) {
+        bookkeeping.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            bookkeeping.writeLock().unlock();
+        }
+    }
+
+    private ReentrantLock stripeOf(Location location) {
+        return stripes[stripeIndex(location)];
+    }
+
+    private int stripeIndex(Location location) {
+        int regionX = location.getX() / REGION_SIZE, regionY = location.getY() / REGION_SIZE;
+        return (regionX * 31 + regionY) & (STRIPES - 1);
+    }
+}
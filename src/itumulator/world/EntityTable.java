@@ -0,0 +1,157 @@
+package itumulator.world;
+
+import java.util.Arrays;
+
+/**
+ * Dense table of the objects in a {@link World}. Each object is given an int handle, which is what the map stores in its tiles,
+ * along with the index of the tile it is placed on (or {@link #OFF_MAP} if it exists in the world without being on the map).
+ * Handles of deleted objects are reused. Handle 0 is never given out, so it can be used to represent an empty tile.
+ * Objects are looked up by identity, as the world has always treated its entities as distinct objects.
+ */
+class EntityTable {
+    static final int OFF_MAP = -1;
+
+    private Object[] objects; // handle -> object (null if the handle is free)
+    private int[] tiles;      // handle -> tile index (y * size + x) or OFF_MAP
+    private int limit;        // handles below the limit have been given out at some point
+    private int[] free;       // handles of deleted objects, ready for reuse
+    private int freeCount;
+    private int count;
+
+    private int[] slots;      // open addressing table of handles, keyed by the identity hash of their object (0 marks an empty slot)
+
+    EntityTable() {
+        this.objects = new Object[64];
+        this.tiles = new int[64];
+        this.limit = 1;
+        this.free = new int[16];
+        this.slots = new int[128];
+    }
+
+    /**
+     * Provides the handle of an object.
+     * @param object the object to look up.
+     * @return its handle, or 0 if the object does not exist in the table.
+     */
+    int handleOf(Object object) {
+        int mask = slots.length - 1;
+        for (int i = slot(object, mask); ; i = (i + 1) & mask) {
+            int handle = slots[i];
+            if (handle == 0) return 0;
+            if (objects[handle] == object) return handle;
+        }
+    }
+
+    /**
+     * Adds an object which is not on the map.
+     * @param object the object to add (must not exist in the table already).
+     * @return the handle given to the object.
+     */
+    int add(Object object) {
+        if ((count + 1) * 2 > slots.length) rehash(slots.length * 2);
+
+        int handle;
+        if (freeCount > 0) {
+            handle = free[--freeCount];
+        } else {
+            if (limit == objects.length) {
+                objects = Arrays.copyOf(objects, limit * 2);
+                tiles = Arrays.copyOf(tiles, limit * 2);
+            }
+            handle = limit++;
+        }
+        objects[handle] = object;
+        tiles[handle] = OFF_MAP;
+        insert(handle);
+        count++;
+        return handle;
+    }
+
+    /**
+     * Removes an object from the table, freeing its handle for reuse.
+     * @param handle the handle of the object.
+     */
+    void release(int handle) {
+        int mask = slots.length - 1;
+        int i = slot(objects[handle], mask);
+        while (slots[i] != handle) i = (i + 1) & mask;
+
+        // close the gap, so that probing for the remaining handles does not stop early
+        for (int j = (i + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+            int home = slot(objects[slots[j]], mask);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+        slots[i] = 0;
+
+        objects[handle] = null;
+        tiles[handle] = OFF_MAP;
+        if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = handle;
+        count--;
+    }
+
+    /**
+     * Provides the object behind a handle.
+     * @param handle the handle (0 gives null).
+     * @return the object, or null if the handle is free.
+     */
+    Object get(int handle) {
+        return objects[handle];
+    }
+
+    /**
+     * Provides the tile index of an object.
+     * @param handle the handle of the object.
+     * @return the tile index or {@link #OFF_MAP}.
+     */
+    int getTile(int handle) {
+        return tiles[handle];
+    }
+
+    /**
+     * Sets the tile index of an object.
+     * @param handle the handle of the object.
+     * @param tile the tile index or {@link #OFF_MAP}.
+     */
+    void setTile(int handle, int tile) {
+        tiles[handle] = tile;
+    }
+
+    /**
+     * Provides the exclusive upper bound of the handles given out, for iterating all objects (free handles give null in {@link #get(int)}).
+     * @return the upper bound.
+     */
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Provides the amount of objects in the table.
+     * @return the amount of objects.
+     */
+    int size() {
+        return count;
+    }
+
+    private void insert(int handle) {
+        int mask = slots.length - 1;
+        int i = slot(objects[handle], mask);
+        while (slots[i] != 0) i = (i + 1) & mask;
+        slots[i] = handle;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int handle = 1; handle < limit; handle++) {
+            if (objects[handle] != null) insert(handle);
+        }
+    }
+
+    private static int slot(Object object, int mask) {
+        int h = System.identityHashCode(object) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
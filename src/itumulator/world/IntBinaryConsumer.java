@@ -0,0 +1,16 @@
+package itumulator.world;
+
+/**
+ * Represents an operation accepting a pair of coordinates (x, y), used to visit tiles without creating {@link Location} objects
+ * (see {@link World#forEachNeighbour(int, int, int, IntBinaryConsumer)}).
+ */
+@FunctionalInterface
+public interface IntBinaryConsumer {
+
+    /**
+     * Performs the operation on the coordinates given.
+     * @param x coordinate.
+     * @param y coordinate.
+     */
+    public void accept(int x, int y);
+}
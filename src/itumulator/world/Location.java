@@ -2,9 +2,13 @@ package itumulator.world;
 
 /**
  * Provides an abstraction to deal with coordinates (x,y) and compare them.
+ * Locations are immutable. A {@link World} hands out one canonical instance per tile (see {@link World#locationOf(int, int)}),
+ * which allows equality checks between locations from the world to succeed on identity alone.
  */
 public class Location {
-    private int x, y;
+    private static final int HASH_MIX = 0x9E3779B9; // odd, so multiplying by it keeps distinct values distinct
+
+    private final int x, y;
 
     /**
      * Creates a new location
@@ -55,10 +59,11 @@ public class Location {
     }
 
     /**
-     * Provides a hash value of the location based on their x,y coordinates (assuming no larger coordinates than 1000).
+     * Provides a hash value of the location based on their x,y coordinates. Locations with coordinates from 0 up to 65535
+     * never share hash values, and the bits are mixed to spread neighbouring locations across hash tables.
      */
     @Override
     public int hashCode(){
-        return this.x * 1000 + this.y;
+        return ((this.x << 16) | (this.y & 0xFFFF)) * HASH_MIX;
     }
 }
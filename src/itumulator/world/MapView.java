@@ -0,0 +1,68 @@
+package itumulator.world;
+
+/**
+ * Read access to the tiles of a map, either of a {@link World} as it is now, or of a {@link WorldFrame} as it was at the end of a step.
+ * Code which only looks at the map (e.g. the plans of {@link itumulator.simulator.IntentActor}s) reads it through this, so it can be given either.
+ */
+public interface MapView {
+
+    /**
+     * Provides the size of the map.
+     * @return the size (both x and y).
+     */
+    int getSize();
+
+    /**
+     * Provides the object on a tile, prioritizing blocking objects over non-blocking ones.
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return the object, or null if the tile is empty.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    Object getTile(int x, int y);
+
+    /**
+     * Provides the non-blocking object on a tile.
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return the object, or null if the tile has none.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    Object getNonBlocking(int x, int y);
+
+    /**
+     * Determines whether a tile is free of blocking objects.
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return true if the tile has no blocking object.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    boolean isTileEmpty(int x, int y);
+
+    /**
+     * Determines whether a tile holds a non-blocking object.
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return true if the tile has a non-blocking object.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    boolean containsNonBlocking(int x, int y);
+
+    /**
+     * Provides the tiles immediately surrounding (x, y) which are free of blocking objects as a bitmask (see {@link World#getEmptyNeighbourMask(int, int)}).
+     * @param x coordinate of the center.
+     * @param y coordinate of the center.
+     * @return bitmask of the empty surrounding tiles (0 if none).
+     * @throws IllegalArgumentException if the center is out of bounds.
+     */
+    int getEmptyNeighbourMask(int x, int y);
+
+    /**
+     * Provides the tiles immediately surrounding (x, y) which have no non-blocking object as a bitmask (see {@link World#getEmptyNeighbourMask(int, int)}).
+     * @param x coordinate of the center.
+     * @param y coordinate of the center.
+     * @return bitmask of the surrounding tiles without non-blocking objects (0 if none).
+     * @throws IllegalArgumentException if the center is out of bounds.
+     */
+    int getNonBlockingFreeNeighbourMask(int x, int y);
+}
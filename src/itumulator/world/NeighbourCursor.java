@@ -0,0 +1,100 @@
+package itumulator.world;
+
+/**
+ * A reusable cursor over the tiles surrounding a location, visiting the same tiles as {@link World#getSurroundingTiles(Location, int)},
+ * but without creating any objects. Tiles are visited in the same order as {@link World#forEachNeighbour(int, int, int, IntBinaryConsumer)},
+ * i.e., column by column from the left, and from the top within each column. A cursor is meant to be created once and reset for every iteration:
+ * <pre>
+ * cursor.reset(world, x, y, radius);
+ * while (cursor.next()) {
+ *     Object o = world.getTile(cursor.getX(), cursor.getY());
+ * }
+ * </pre>
+ * A cursor can only be used for one iteration at a time, so nested iterations require separate cursors.
+ */
+public class NeighbourCursor {
+    private int centerX, centerY;
+    private int minX, maxX, minY, maxY;
+    private int x, y;
+
+    /**
+     * Creates a new cursor. It does not visit any tiles until reset.
+     */
+    public NeighbourCursor() {
+        this.minX = 0;
+        this.maxX = -1;
+        this.x = 0;
+        this.y = 0;
+    }
+
+    /**
+     * Starts a new iteration over the tiles surrounding (x, y) within the radius given. Tiles outside the world and the center itself are skipped.
+     * @param world the world wherein the tiles are located.
+     * @param x coordinate of the center.
+     * @param y coordinate of the center.
+     * @param radius the number of tiles to include in each direction.
+     * @return this cursor.
+     * @throws IllegalArgumentException if the center is out of bounds or the radius is negative.
+     */
+    public NeighbourCursor reset(World world, int x, int y, int radius) {
+        int size = world.getSize();
+        if (x < 0 || x >= size || y < 0 || y >= size)
+            throw new IllegalArgumentException("Tile out of bounds");
+        if (radius < 0)
+            throw new IllegalArgumentException("Radius cannot be negative");
+        this.centerX = x;
+        this.centerY = y;
+        this.minX = Math.max(0, x - radius);
+        this.maxX = Math.min(size - 1, x + radius);
+        this.minY = Math.max(0, y - radius);
+        this.maxY = Math.min(size - 1, y + radius);
+        this.x = minX;
+        this.y = minY - 1;
+        return this;
+    }
+
+    /**
+     * Starts a new iteration over the tiles surrounding a location within the radius given.
+     * @param world the world wherein the tiles are located.
+     * @param location the center.
+     * @param radius the number of tiles to include in each direction.
+     * @return this cursor.
+     * @throws IllegalArgumentException if the center is out of bounds or the radius is negative.
+     */
+    public NeighbourCursor reset(World world, Location location, int radius) {
+        return reset(world, location.getX(), location.getY(), radius);
+    }
+
+    /**
+     * Advances the cursor to the next tile.
+     * @return true if the cursor points to a tile, false if the iteration is over.
+     */
+    public boolean next() {
+        while (x <= maxX) {
+            y++;
+            if (y > maxY) {
+                x++;
+                y = minY;
+                if (x > maxX) return false;
+            }
+            if (x != centerX || y != centerY) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the x coordinate of the current tile.
+     * @return the x coordinate.
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Gets the y coordinate of the current tile.
+     * @return the y coordinate.
+     */
+    public int getY() {
+        return y;
+    }
+}
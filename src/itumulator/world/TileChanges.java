@@ -0,0 +1,55 @@
+package itumulator.world;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A set of tile indices (y * size + x) which have changed, used by {@link World} to copy only changed tiles into its frames.
+ * Each tile is listed at most once, so a set never holds more indices than the map has tiles.
+ */
+class TileChanges {
+    private final boolean[] marked; // tile -> whether it is listed
+    private final int[] tiles;
+    private int count;
+
+    TileChanges(int tiles) {
+        this.marked = new boolean[tiles];
+        this.tiles = new int[tiles];
+    }
+
+    /**
+     * Lists a tile, unless it is already listed.
+     * @param index of the tile.
+     */
+    void add(int index) {
+        if (marked[index])
+            return;
+        marked[index] = true;
+        tiles[count++] = index;
+    }
+
+    /**
+     * Performs the action on every listed tile.
+     * @param action the action to perform.
+     */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < count; i++)
+            action.accept(tiles[i]);
+    }
+
+    /**
+     * Determines whether no tile is listed.
+     * @return true if the list is empty.
+     */
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Removes every tile from the list.
+     */
+    void clear() {
+        for (int i = 0; i < count; i++)
+            marked[tiles[i]] = false;
+        count = 0;
+    }
+}
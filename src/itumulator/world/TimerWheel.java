@@ -0,0 +1,139 @@
+package itumulator.world;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical timer wheel, holding handles until the step they are due. Each level has 64 buckets, a bucket of level L holding
+ * the handles due within one stretch of 64^L steps. Scheduling a handle and advancing a step cost the same no matter how many handles
+ * are waiting: handles only move when the step reaches their bucket, being spread over the buckets of the level below (or expiring, on the lowest level).
+ * Handles due more than 64^4 steps ahead are kept aside until they come within reach.
+ */
+final class TimerWheel {
+    private static final int BITS = 6;
+    private static final int BUCKETS = 1 << BITS;
+    private static final int MASK = BUCKETS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * Receives the handles as they are due.
+     */
+    interface Expiry {
+        void expire(int handle, long due);
+    }
+
+    private final int[][] handles; // bucket (level * BUCKETS + index) -> handles, created when first needed
+    private final long[][] dues;   // bucket -> step each handle is due
+    private final int[] sizes;     // bucket -> amount of handles
+    private int[] farHandles;      // handles beyond the highest level
+    private long[] farDues;
+    private int farSize;
+    private long now;
+
+    TimerWheel(long now) {
+        this.handles = new int[LEVELS * BUCKETS][];
+        this.dues = new long[LEVELS * BUCKETS][];
+        this.sizes = new int[LEVELS * BUCKETS];
+        this.farHandles = new int[0];
+        this.farDues = new long[0];
+        this.now = now;
+    }
+
+    /**
+     * Schedules a handle.
+     * @param handle to schedule.
+     * @param due the step it is due, after the current one.
+     */
+    void schedule(int handle, long due) {
+        if (due <= now) throw new IllegalArgumentException("Step must be after the current step");
+        insert(handle, due);
+    }
+
+    /**
+     * Advances to the step given, one step at a time, handing every handle due on the way to the expiry.
+     * @param to the step to advance to.
+     * @param expiry receives the handles due.
+     */
+    void advance(long to, Expiry expiry) {
+        while (now < to) {
+            now++;
+            // Spread the buckets reached over the levels below, from the top, as a bucket may spread into another one reached now
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & ((1L << (BITS * level)) - 1)) != 0) continue;
+                if (level == LEVELS - 1 && farSize > 0) reinsertFar();
+                cascade(level * BUCKETS + (int) ((now >>> (BITS * level)) & MASK));
+            }
+
+            int bucket = (int) (now & MASK);
+            int size = sizes[bucket];
+            if (size == 0) continue;
+            sizes[bucket] = 0;
+            for (int i = 0; i < size; i++)
+                expiry.expire(handles[bucket][i], dues[bucket][i]);
+        }
+    }
+
+    /**
+     * Removes every handle without expiring it.
+     */
+    void clear() {
+        Arrays.fill(sizes, 0);
+        farSize = 0;
+    }
+
+    private void insert(int handle, long due) {
+        long delta = due - now;
+        if (delta <= 0) {
+            // due now, which only happens while cascading: the lowest bucket of this step is expired right after
+            add((int) (now & MASK), handle, due);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (BITS * (level + 1))) {
+                add(level * BUCKETS + (int) ((due >>> (BITS * level)) & MASK), handle, due);
+                return;
+            }
+        }
+        if (farSize == farHandles.length) {
+            farHandles = Arrays.copyOf(farHandles, Math.max(8, farSize * 2));
+            farDues = Arrays.copyOf(farDues, farHandles.length);
+        }
+        farHandles[farSize] = handle;
+        farDues[farSize++] = due;
+    }
+
+    private void add(int bucket, int handle, long due) {
+        int size = sizes[bucket];
+        if (handles[bucket] == null) {
+            handles[bucket] = new int[8];
+            dues[bucket] = new long[8];
+        } else if (size == handles[bucket].length) {
+            handles[bucket] = Arrays.copyOf(handles[bucket], size * 2);
+            dues[bucket] = Arrays.copyOf(dues[bucket], size * 2);
+        }
+        handles[bucket][size] = handle;
+        dues[bucket][size] = due;
+        sizes[bucket] = size + 1;
+    }
+
+    private void cascade(int bucket) {
+        int size = sizes[bucket];
+        if (size == 0) return;
+        sizes[bucket] = 0;
+        // the arrays are kept, and entries never land in the bucket they came from, so they can be read while inserting
+        int[] bucketHandles = handles[bucket];
+        long[] bucketDues = dues[bucket];
+        for (int i = 0; i < size; i++)
+            insert(bucketHandles[i], bucketDues[i]);
+    }
+
+    private void reinsertFar() {
+        int size = farSize;
+        farSize = 0;
+        int[] far = farHandles;
+        long[] farDue = farDues;
+        farHandles = new int[far.length];
+        farDues = new long[far.length];
+        for (int i = 0; i < size; i++)
+            insert(far[i], farDue[i]);
+    }
+}
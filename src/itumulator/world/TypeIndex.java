@@ -0,0 +1,118 @@
+package itumulator.world;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of where objects of each class are placed on the map. This allows {@link World} to answer questions such as
+ * "is there any grass on the map" or "where are the rabbits" without scanning every entity.
+ * Objects are indexed by their exact class, while queries include subclasses and implementations of interfaces.
+ * Objects which exist in the world but are not on the map are not indexed.
+ * Queries may run on several threads at once (see {@link ConcurrentWorld}), as long as no change does meanwhile; the caches they fill are concurrent.
+ */
+class TypeIndex {
+    private Map<Class<?>, Entry> index;
+    private ConcurrentHashMap<Class<?>, List<Entry>> matches; // queried type -> entries of the indexed classes which are instances of it
+    private ConcurrentHashMap<Class<?>, List<Set<Location>>> matchingLocations; // queried type -> location sets of those entries
+
+    /**
+     * The locations of one class, along with a counter of how many times they have changed.
+     */
+    private static class Entry {
+        final Set<Location> locations = new HashSet<>();
+        long version;
+    }
+
+    TypeIndex() {
+        this.index = new HashMap<>();
+        this.matches = new ConcurrentHashMap<>();
+        this.matchingLocations = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Registers an object placed at a location.
+     * @param object the object placed on the map.
+     * @param location the location it was placed on.
+     */
+    void add(Object object, Location location) {
+        Entry entry = index.get(object.getClass());
+        if (entry == null) {
+            entry = new Entry();
+            index.put(object.getClass(), entry);
+            // a new class may match previously queried types
+            matches.clear();
+            matchingLocations.clear();
+        }
+        entry.locations.add(location);
+        entry.version++;
+    }
+
+    /**
+     * Unregisters an object removed from a location.
+     * @param object the object removed from the map.
+     * @param location the location it was removed from.
+     */
+    void remove(Object object, Location location) {
+        Entry entry = index.get(object.getClass());
+        if (entry != null && entry.locations.remove(location))
+            entry.version++;
+    }
+
+    /**
+     * Provides the amount of objects on the map which are instances of the type.
+     * @param type the class to count.
+     * @return amount of instances on the map.
+     */
+    int count(Class<?> type) {
+        int count = 0;
+        for (Entry entry : entries(type)) {
+            count += entry.locations.size();
+        }
+        return count;
+    }
+
+    /**
+     * Provides a number which changes whenever an instance of the type is placed on or removed from the map.
+     * @param type the class to look up.
+     * @return the version of the type.
+     */
+    long version(Class<?> type) {
+        long version = 0;
+        for (Entry entry : entries(type)) {
+            version += entry.version;
+        }
+        return version;
+    }
+
+    /**
+     * Provides the (internal) location sets of every indexed class which is an instance of the type.
+     * The sets must not be modified by the caller.
+     * @param type the class to look up.
+     * @return list of location sets.
+     */
+    List<Set<Location>> matching(Class<?> type) {
+        return matchingLocations.computeIfAbsent(type, t -> {
+            List<Set<Location>> result = new ArrayList<>();
+            for (Entry entry : entries(t)) {
+                result.add(entry.locations);
+            }
+            return result;
+        });
+    }
+
+    private List<Entry> entries(Class<?> type) {
+        return matches.computeIfAbsent(type, t -> {
+            List<Entry> result = new ArrayList<>();
+            for (Map.Entry<Class<?>, Entry> entry : index.entrySet()) {
+                if (t.isAssignableFrom(entry.getKey()))
+                    result.add(entry.getValue());
+            }
+            return result;
+        });
+    }
+}
@@ -1,11 +1,18 @@
 package itumulator.world;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import itumulator.simulator.Actor;
 
 /**
  * The World class provides an abstraction for our simulated worlds. A world
@@ -20,12 +27,27 @@ import java.util.Set;
  * to ensure all {@link itumulator.simulator.Actor} can act without being on the
  * 'map'.
  */
-public class World {
+public class World implements MapView {
     private static int DAY_DURATION = 20;
     private static int IS_DAY_TIME = 10;
+    // offsets of the neighbours represented by each bit of a neighbour mask, column by column from the left and from the top within each column
+    // (the order forEachNeighbour and NeighbourCursor visit the tiles in)
+    private static final int[] NEIGHBOUR_DX = { -1, -1, -1, 0, 0, 1, 1, 1 };
+    private static final int[] NEIGHBOUR_DY = { -1, 0, 1, -1, 1, -1, 0, 1 };
 
-    private Object[][][] tiles;
-    private Map<Object, Location> entities;
+    private int[][] layers; // entity handles per layer (0 for non-blocking, 1 for blocking), indexed by y * size + x (0 for an empty tile)
+    private EntityTable entities;
+    private ActorRegistry actors;
+    private Location[] locations; // canonical location of each tile (index y * size + x), created when first needed
+    private TypeIndex typeIndex;
+    private Map<Class<?>, Object> services; // shared state attached to this world, see getService
+    private List<IntBinaryConsumer> blockingListeners; // see addBlockingListener
+    private long blockingVersion = 0;
+    private volatile WorldFrame front; // latest frame published by swapBuffers (null unless double buffered)
+    private WorldFrame back;           // the frame updated by the next swap, one step behind the front
+    private TileChanges changes;       // tiles changed since the front frame was published
+    private TileChanges previousChanges; // tiles changed between the back and the front frame
+    private long steps = 0;
     private int size;
     private Location current;
     private int time = 0;
@@ -39,17 +61,45 @@ public class World {
     public World(int size) {
         if (size <= 0)
             throw new IllegalArgumentException("Size must greater than zero.");
-        this.tiles = new Object[size][size][2];
+        this.layers = new int[2][size * size];
         this.size = size;
-        this.entities = new HashMap<>();
+        this.entities = new EntityTable();
+        this.actors = new ActorRegistry();
+        this.typeIndex = new TypeIndex();
+        this.services = new ConcurrentHashMap<>();
+        this.blockingListeners = new ArrayList<>();
+        this.locations = new Location[size * size];
+    }
+
+    /**
+     * Provides the canonical location of the tile at the given coordinates. The same instance is returned on every call,
+     * so using these locations avoids creating new objects, and comparisons between them succeed on identity.
+     * Locations placed on the map through {@link #setTile(Location, Object)} are stored as their canonical instance.
+     *
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return the location of the tile.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    public Location locationOf(int x, int y) {
+        validateCoordinates(x, y);
+        int index = y * size + x;
+        Location location = locations[index];
+        if (location == null) {
+            location = new Location(x, y);
+            locations[index] = location;
+        }
+        return location;
     }
 
     /**
      * Increases the step of the world to progress time.
      */
     public void step() {
+        steps++;
         time++;
         time = time % DAY_DURATION;
+        actors.advance(steps);
     }
 
     /**
@@ -80,17 +130,33 @@ public class World {
     };
 
     /**
-     * Sets the time to day.
+     * Sets the time to day. Wakes every sleeping actor, as they may be waiting for a time of day (see {@link #sleepUntil(Actor, long)}).
      */
     public void setDay() {
         time = 0;
+        actors.wakeAll();
     }
 
     /**
-     * Sets the time of the world to beginning of night, according to IS_DAY_TIME. 
+     * Sets the time of the world to beginning of night, according to IS_DAY_TIME. Wakes every sleeping actor (see {@link #setDay()}).
      */
     public void setNight() {
         time = IS_DAY_TIME;
+        actors.wakeAll();
+    }
+
+    /**
+     * Provides the next step (after the current one) in which it is the given time of day, e.g. 0 for the start of the next day.
+     * Actors waiting for a time of day can sleep until this step (see {@link #sleepUntil(Actor, long)}).
+     *
+     * @param time the time of day (see {@link #getCurrentTime()}).
+     * @return the step (see {@link #getStepCount()}).
+     * @throws IllegalArgumentException if the time is not within a day.
+     */
+    public long getNextStepAtTime(int time) {
+        if (time < 0 || time >= DAY_DURATION) throw new IllegalArgumentException("Time must be within a day");
+        int wait = Math.floorMod(time - this.time, DAY_DURATION);
+        return steps + (wait == 0 ? DAY_DURATION : wait);
     }
 
     
@@ -160,7 +226,7 @@ public class World {
      */
     public Location getLocation(Object object) {
         validateLocation(object);
-        return entities.get(object);
+        return locationOf(entities.getTile(entities.handleOf(object)));
     }
 
     /**
@@ -174,7 +240,7 @@ public class World {
      */
     public Set<Location> getSurroundingTiles() {
         validateCurrent();
-        return getSurroundingTiles(current);
+        return getSurroundingTiles(getCurrentLocation());
     }
 
     /**
@@ -190,7 +256,7 @@ public class World {
      */
     public Set<Location> getSurroundingTiles(int radius) {
         validateCurrent();
-        return getSurroundingTiles(current, radius);
+        return getSurroundingTiles(getCurrentLocation(), radius);
     }
 
     /**
@@ -204,7 +270,7 @@ public class World {
      */
     public Set<Location> getEmptySurroundingTiles() {
         validateCurrent();
-        return getEmptySurroundingTiles(current);
+        return getEmptySurroundingTiles(getCurrentLocation());
     }
 
 
@@ -220,9 +286,12 @@ public class World {
      *                                  or is not currently placed on the map.
      */
     public void remove(Object object) {
-        Location l = getLocation(object);
-        this.tiles[l.getX()][l.getY()][getLayer(object)] = null;
-        entities.put(object, null);
+        validateLocation(object);
+        int handle = entities.handleOf(object);
+        int index = entities.getTile(handle);
+        int layer = getLayer(object);
+        setSlot(layer, index, 0, null);
+        unplaced(object, handle, index, layer);
     }
 
     /**
@@ -236,13 +305,13 @@ public class World {
      * @throws IllegalArgumentException if the object does not exist in the world.
      */
     public void delete(Object object) {
-        if (!entities.containsKey(object))
+        int handle = entities.handleOf(object);
+        if (handle == 0)
             throw new IllegalArgumentException("No such object exists in the world.");
-        Location l = entities.get(object);
-        if (l != null) {
+        if (entities.getTile(handle) != EntityTable.OFF_MAP) {
             remove(object);
         }
-        entities.remove(object);
+        release(handle);
     }
 
     /**
@@ -256,25 +325,23 @@ public class World {
      * @throws IllegalArgumentException if the tile is occupied by the same type of object, or if the object already exists on the map, or if the location is out of bounds.
      */
     public void setTile(Location location, Object object) {
-        if (entities.get(object) != null) {
+        if (object == null)
+            throw new IllegalArgumentException("Object cannot be null");
+        int handle = entities.handleOf(object);
+        if (handle != 0 && entities.getTile(handle) != EntityTable.OFF_MAP) {
             throw new IllegalArgumentException("Entity already exists in the world.");
         }
         validateCoordinates(location);
+        location = locationOf(location.getX(), location.getY());
 
-        Object[] tile = this.tiles[location.getX()][location.getY()];
-
-        if (object instanceof NonBlocking) {
-            if (tile[0] != null)
-                throw new IllegalArgumentException("Tile cannot contain more than one non-blocking object");
+        int index = location.getY() * size + location.getX();
+        int layer = getLayer(object);
+        requireFree(layer, index);
 
-            tile[0] = object;
-        } else {
-            if (tile[1] != null)
-                throw new IllegalArgumentException("Tile cannot contain more than one blocking object");
-            tile[1] = object;
-        }
-
-        entities.put(object, location);
+        if (handle == 0)
+            handle = register(object);
+        setSlot(layer, index, handle, object);
+        placed(object, handle, index, layer);
     }
 
     /**
@@ -303,10 +370,19 @@ public class World {
      */
     public Object getTile(Location location) {
         validateCoordinates(location);
-        Object[] tile = this.tiles[location.getX()][location.getY()];
-        if (tile[1] != null)
-            return tile[1];
-        return tile[0];
+        return getObjectAt(location.getY() * size + location.getX());
+    }
+
+    /**
+     * Retrieves an object from the specified coordinates, prioritizing blocking objects over non-blocking ones (see {@link #getTile(Location)}).
+     *
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return The object at the specified coordinates, prioritizing blocking objects. Returns null if no object is present.
+     */
+    public Object getTile(int x, int y) {
+        validateCoordinates(x, y);
+        return getObjectAt(y * size + x);
     }
 
     /**
@@ -317,9 +393,11 @@ public class World {
      * @throws IllegalArgumentException if the object already exists in the world.
      */
     public void add(Object object) {
-        if (entities.containsKey(object))
+        if (object == null)
+            throw new IllegalArgumentException("Object cannot be null");
+        if (entities.handleOf(object) != 0)
             throw new IllegalArgumentException("Object already exists in the world.");
-        entities.put(object, null);
+        register(object);
     }
 
     /**
@@ -331,8 +409,19 @@ public class World {
      */
     public Object getNonBlocking(Location location) {
         validateCoordinates(location);
-        Object o = tiles[location.getX()][location.getY()][0];
-        return o;
+        return objectAt(0, location.getY() * size + location.getX());
+    }
+
+    /**
+     * Retrieves a non-blocking object from the specified coordinates (see {@link #getNonBlocking(Location)}).
+     *
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return The non-blocking object at the specified coordinates, or null if none is present.
+     */
+    public Object getNonBlocking(int x, int y) {
+        validateCoordinates(x, y);
+        return objectAt(0, y * size + x);
     }
 
     /**
@@ -344,7 +433,19 @@ public class World {
      */
     public boolean isTileEmpty(Location location) {
         validateCoordinates(location);
-        return tiles[location.getX()][location.getY()][1] == null;
+        return isFree(1, location.getY() * size + location.getX());
+    }
+
+    /**
+     * Checks if the tile at the specified coordinates is empty (see {@link #isTileEmpty(Location)}).
+     *
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return true if the tile is empty (no blocking objects present), false otherwise.
+     */
+    public boolean isTileEmpty(int x, int y) {
+        validateCoordinates(x, y);
+        return isFree(1, y * size + x);
     }
 
     /**
@@ -356,10 +457,22 @@ public class World {
      */
     public boolean containsNonBlocking(Location location) {
         validateCoordinates(location);
-        return this.tiles[location.getX()][location.getY()][0] != null;
+        return !isFree(0, location.getY() * size + location.getX());
     }
 
 
+    /**
+     * Determines whether the tile at the specified coordinates contains a non-blocking object (see {@link #containsNonBlocking(Location)}).
+     *
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return true if a non-blocking object is present, false otherwise.
+     */
+    public boolean containsNonBlocking(int x, int y) {
+        validateCoordinates(x, y);
+        return !isFree(0, y * size + x);
+    }
+
     /**
      * Retrieves a set of locations immediately surrounding the specified location,
      * including diagonals. The method calculates the surrounding tiles within a
@@ -396,8 +509,8 @@ public class World {
                 int yCoord = location.getY() + y;
                 if (xCoord == location.getX() && yCoord == location.getY())
                     continue; // skip the tile itself (the center)
-                if (xCoord >= 0 && xCoord < tiles.length && yCoord >= 0 && yCoord < tiles[0].length) {
-                    surroundingTiles.add(new Location(xCoord, yCoord));
+                if (xCoord >= 0 && xCoord < size && yCoord >= 0 && yCoord < size) {
+                    surroundingTiles.add(locationOf(xCoord, yCoord));
                 }
             }
         }
@@ -430,6 +543,77 @@ public class World {
     }
 
 
+    /**
+     * Visits the coordinates of every tile surrounding (x, y) within the radius given, i.e., the tiles of
+     * {@link #getSurroundingTiles(Location, int)} but without creating any collections or locations.
+     * Tiles are visited column by column from the left, and from the top within each column (for a radius of 1, the order of the bits of
+     * {@link #getEmptyNeighbourMask(int, int)}). Tiles outside the bounds of the world and the center itself are skipped.
+     *
+     * @param x        coordinate of the center.
+     * @param y        coordinate of the center.
+     * @param radius   the number of tiles to include in each direction. Must be non-negative.
+     * @param consumer called with the coordinates of each surrounding tile.
+     * @throws IllegalArgumentException if the center is out of bounds or if the radius is negative.
+     */
+    public void forEachNeighbour(int x, int y, int radius, IntBinaryConsumer consumer) {
+        validateCoordinates(x, y);
+        if (radius < 0)
+            throw new IllegalArgumentException("Radius cannot be negative");
+        int minX = Math.max(0, x - radius), maxX = Math.min(size - 1, x + radius);
+        int minY = Math.max(0, y - radius), maxY = Math.min(size - 1, y + radius);
+        for (int nx = minX; nx <= maxX; nx++) {
+            for (int ny = minY; ny <= maxY; ny++) {
+                if (nx == x && ny == y)
+                    continue; // skip the tile itself (the center)
+                consumer.accept(nx, ny);
+            }
+        }
+    }
+
+    /**
+     * Provides the tiles immediately surrounding (x, y) which are empty (see {@link #isTileEmpty(Location)}) as a bitmask.
+     * Bit i is set if the neighbour at offset ({@link #getNeighbourDx(int) getNeighbourDx(i)}, {@link #getNeighbourDy(int) getNeighbourDy(i)})
+     * is within the world and empty. This is an allocation free alternative to {@link #getEmptySurroundingTiles(Location)}.
+     *
+     * @param x coordinate of the center.
+     * @param y coordinate of the center.
+     * @return bitmask of the empty surrounding tiles (0 if none).
+     * @throws IllegalArgumentException if the center is out of bounds.
+     */
+    public int getEmptyNeighbourMask(int x, int y) {
+        return getNeighbourMask(x, y, 1);
+    }
+
+    /**
+     * Provides the tiles immediately surrounding (x, y) which do not contain a non-blocking object as a bitmask (see {@link #getEmptyNeighbourMask(int, int)}).
+     *
+     * @param x coordinate of the center.
+     * @param y coordinate of the center.
+     * @return bitmask of the surrounding tiles without non-blocking objects (0 if none).
+     * @throws IllegalArgumentException if the center is out of bounds.
+     */
+    public int getNonBlockingFreeNeighbourMask(int x, int y) {
+        return getNeighbourMask(x, y, 0);
+    }
+
+    /**
+     * Provides the x offset of the neighbour represented by a bit in a neighbour mask.
+     * @param bit the index of the bit (0-7).
+     * @return the x offset (-1, 0 or 1).
+     */
+    public static int getNeighbourDx(int bit) {
+        return NEIGHBOUR_DX[bit];
+    }
+
+    /**
+     * Provides the y offset of the neighbour represented by a bit in a neighbour mask.
+     * @param bit the index of the bit (0-7).
+     * @return the y offset (-1, 0 or 1).
+     */
+    public static int getNeighbourDy(int bit) {
+        return NEIGHBOUR_DY[bit];
+    }
+
     /**
      * Retrieves a copy of the three-dimensional array representing the current state of the world map. 
      * Each element in this array corresponds to a specific location in the world, 
@@ -441,7 +625,14 @@ public class World {
      * @return A copy of the three-dimensional array representing the world's map.
      */
     public Object[][][] getTiles() {
-        return tiles.clone();
+        Object[][][] tiles = new Object[size][size][2];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                tiles[x][y][0] = objectAt(0, y * size + x);
+                tiles[x][y][1] = objectAt(1, y * size + x);
+            }
+        }
+        return tiles;
     }
 
 
@@ -455,7 +646,255 @@ public class World {
      *         modification exceptions.
      */
     public java.util.Map<Object, Location> getEntities() {
-        return new HashMap<>(entities);
+        Map<Object, Location> copy = new HashMap<>();
+        for (int handle = 1; handle < entities.limit(); handle++) {
+            Object o = entities.get(handle);
+            if (o != null) {
+                int tile = entities.getTile(handle);
+                copy.put(o, tile == EntityTable.OFF_MAP ? null : locationOf(tile));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Provides the amount of steps the world has been through since it was created (unlike {@link #getCurrentTime()}, this does not wrap around each day).
+     * @return the amount of steps.
+     */
+    public long getStepCount() {
+        return steps;
+    }
+
+    /**
+     * Sets whether the world is double buffered. A double buffered world publishes a read-only copy of its map at the end of each step
+     * (see {@link #swapBuffers()}), so the previous step can be read consistently while the current one is being simulated.
+     * The simulator then plans {@link itumulator.simulator.IntentActor}s against that frame, while their plans are carried out on the world.
+     * Only those plans read the frame: everything else actors do (including carrying out plans) reads the world itself, as changed by the actors before them.
+     * Only tiles changed during a step are copied when it is published.
+     * @param doubleBuffered whether to publish frames.
+     */
+    public void setDoubleBuffered(boolean doubleBuffered) {
+        if (doubleBuffered == isDoubleBuffered())
+            return;
+        if (!doubleBuffered) {
+            front = null;
+            back = null;
+            changes = null;
+            previousChanges = null;
+            return;
+        }
+        WorldFrame first = new WorldFrame(size);
+        WorldFrame second = new WorldFrame(size);
+        for (int index = 0; index < size * size; index++) {
+            copyTile(first, index);
+            copyTile(second, index);
+        }
+        first.setTime(steps, isDay());
+        changes = new TileChanges(size * size);
+        previousChanges = new TileChanges(size * size);
+        back = second;
+        front = first;
+    }
+
+    /**
+     * Provides whether the world is double buffered (see {@link #setDoubleBuffered(boolean)}).
+     * @return true if frames are published.
+     */
+    public boolean isDoubleBuffered() {
+        return front != null;
+    }
+
+    /**
+     * Provides the latest frame published by {@link #swapBuffers()}, i.e., the map as it was at the end of the previous step.
+     * May be called from any thread, but the frame is reused by the second swap after it was published. Readers which may take longer
+     * (e.g. a renderer) should use {@link #acquireFrame()} instead.
+     * @return the frame, or null if the world is not double buffered.
+     */
+    public WorldFrame getFrame() {
+        return front;
+    }
+
+    /**
+     * Provides the latest frame published by {@link #swapBuffers()}, which is not reused until it is handed back with {@link #releaseFrame(WorldFrame)}.
+     * May be called from any thread.
+     * @return the frame, or null if the world is not double buffered.
+     */
+    public WorldFrame acquireFrame() {
+        while (true) {
+            WorldFrame frame = front;
+            if (frame == null)
+                return null;
+            frame.acquire();
+            // a swap may have taken the frame out of use before it was acquired
+            if (frame == front)
+                return frame;
+            frame.release();
+        }
+    }
+
+    /**
+     * Hands back a frame provided by {@link #acquireFrame()}, after which it should not be read.
+     * @param frame the frame, or null.
+     */
+    public void releaseFrame(WorldFrame frame) {
+        if (frame != null)
+            frame.release();
+    }
+
+    /**
+     * Publishes the map as it is now as the latest frame. Called by the simulator at the end of each step.
+     * The frame published before is reused for the next swap, so it should not be read after that unless it was acquired (see {@link #acquireFrame()}).
+     * @throws IllegalStateException if the world is not double buffered.
+     */
+    public void swapBuffers() {
+        if (!isDoubleBuffered())
+            throw new IllegalStateException("World is not double buffered");
+        WorldFrame frame;
+        if (back.isAcquired()) {
+            // still being read, so it's left to its readers, and a copy of the latest frame is brought up to date instead
+            frame = new WorldFrame(front);
+        } else {
+            frame = back;
+            previousChanges.forEach(index -> copyTile(frame, index));
+        }
+        changes.forEach(index -> copyTile(frame, index));
+        frame.setTime(steps, isDay());
+
+        back = front;
+        front = frame; // publishes the frame to other threads
+
+        TileChanges published = previousChanges;
+        previousChanges = changes;
+        changes = published;
+        changes.clear();
+    }
+
+    /**
+     * Determines whether tiles have changed since the latest frame was published (see {@link #swapBuffers()}).
+     * @return true if the latest frame is behind the map.
+     * @throws IllegalStateException if the world is not double buffered.
+     */
+    public boolean hasUnpublishedChanges() {
+        if (!isDoubleBuffered())
+            throw new IllegalStateException("World is not double buffered");
+        return !changes.isEmpty();
+    }
+
+    /**
+     * Provides a service attached to this world, i.e., state shared by everything within the world (such as caches), which is created
+     * the first time it is requested. Services belong to the world, so separate worlds never share them.
+     * Services may be requested from several threads; should two threads create the same service at once, both receive the one stored first.
+     *
+     * @param type the class of the service, used to identify it.
+     * @param factory creates the service if the world does not have one of the type already.
+     * @return the service of the type given.
+     */
+    public <T> T getService(Class<T> type, Function<World, T> factory) {
+        if (type == null || factory == null) throw new IllegalArgumentException("Type and factory cannot be null");
+        Object service = services.get(type);
+        if (service == null) {
+            service = factory.apply(this);
+            if (service == null) throw new IllegalArgumentException("Factory cannot create null");
+            Object existing = services.putIfAbsent(type, service);
+            if (existing != null) service = existing;
+        }
+        return type.cast(service);
+    }
+
+    /**
+     * Provides a service attached to this world without creating it (see {@link #getService(Class, Function)}).
+     *
+     * @param type the class of the service, used to identify it.
+     * @return the service of the type given, or null if the world does not have one yet.
+     */
+    public <T> T findService(Class<T> type) {
+        if (type == null) throw new IllegalArgumentException("Type cannot be null");
+        return type.cast(services.get(type));
+    }
+
+    /**
+     * Provides a number which changes whenever a blocking object is placed on or removed from the map (including moves).
+     * State derived from which tiles are free, such as distance fields, only needs to be recomputed if this has changed.
+     *
+     * @return the version of the blocking objects on the map.
+     */
+    public long getBlockingVersion() {
+        return blockingVersion;
+    }
+
+    /**
+     * Adds a listener which is called with the coordinates of a tile whenever a blocking object is placed on or removed from it
+     * (including moves, which call it for both tiles). This allows state derived from the map, such as caches of paths, to only
+     * update the parts of the map which changed.
+     *
+     * @param listener called with the x and y coordinate of the tile which changed.
+     */
+    public void addBlockingListener(IntBinaryConsumer listener) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null");
+        blockingListeners.add(listener);
+    }
+
+    /**
+     * Performs an action on every {@link Actor} in the world (including those not currently on the map), in the order they were added to the world.
+     * The world may be modified by the action: actors added during the iteration are first visited by the next iteration,
+     * and actors deleted before their turn are skipped. This does not copy the world's entities (unlike {@link #getEntities()}).
+     *
+     * @param action the action to perform on each actor.
+     */
+    public void forEachActor(Consumer<Actor> action) {
+        if (action == null) throw new IllegalArgumentException("Action cannot be null");
+        actors.forEach(action);
+    }
+
+    /**
+     * Performs an action on every awake {@link Actor} in the world, in the order they were added (see {@link #forEachActor(Consumer)}).
+     * Actors sleeping (see {@link #sleepUntil(Actor, long)}) are skipped at next to no cost, so a simulation only pays for the actors with something to do.
+     * Actors put to sleep during the iteration are skipped if their turn has not come yet.
+     *
+     * @param action the action to perform on each awake actor.
+     */
+    public void forEachAwakeActor(Consumer<Actor> action) {
+        if (action == null) throw new IllegalArgumentException("Action cannot be null");
+        actors.forEachAwake(action);
+    }
+
+    /**
+     * Puts an actor to sleep until a step, so the simulator skips it until then (see {@link #forEachAwakeActor(Consumer)}). Meant for actors
+     * which only do something at certain times, e.g. once a day (see {@link #getNextStepAtTime(int)}). Setting the time of day directly
+     * (see {@link #setDay()}) wakes every sleeping actor, so they can decide again when to act.
+     *
+     * @param actor the actor to put to sleep.
+     * @param step the step to act in next (see {@link #getStepCount()}), or Long.MAX_VALUE to sleep until woken (see {@link #wake(Actor)}).
+     *             If this is not after the current step, the actor stays awake.
+     * @throws IllegalArgumentException if the actor does not exist in the world.
+     */
+    public void sleepUntil(Actor actor, long step) {
+        int handle = entities.handleOf(actor);
+        if (handle == 0) throw new IllegalArgumentException("Object does not exist in the world.");
+        if (step <= steps) actors.wake(handle);
+        else actors.sleep(handle, step);
+    }
+
+    /**
+     * Wakes a sleeping actor (see {@link #sleepUntil(Actor, long)}), e.g. because something happened to it. Does nothing if it is awake.
+     *
+     * @param actor the actor to wake.
+     * @throws IllegalArgumentException if the actor does not exist in the world.
+     */
+    public void wake(Actor actor) {
+        int handle = entities.handleOf(actor);
+        if (handle == 0) throw new IllegalArgumentException("Object does not exist in the world.");
+        actors.wake(handle);
+    }
+
+    /**
+     * Determines whether an actor is awake, i.e., will act in the next step (see {@link #sleepUntil(Actor, long)}).
+     *
+     * @param actor the actor.
+     * @return true if the actor exists in the world and is not sleeping.
+     */
+    public boolean isAwake(Actor actor) {
+        return actors.isAwake(entities.handleOf(actor));
     }
 
     /**
@@ -465,7 +904,7 @@ public class World {
      */
     public boolean contains(Object o){
         if(o == null) throw new IllegalArgumentException("Object cannot be null");
-        return entities.containsKey(o);
+        return entities.handleOf(o) != 0;
     }
 
     /**
@@ -475,7 +914,7 @@ public class World {
      */
     public boolean isOnTile(Object o){
         if(!contains(o)) throw new IllegalArgumentException("Object must exist in world");
-        return entities.get(o) != null;
+        return entities.getTile(entities.handleOf(o)) != EntityTable.OFF_MAP;
     }
 
     /**
@@ -493,31 +932,282 @@ public class World {
         return objects;
     }
 
+    /**
+     * Provides the amount of objects currently placed on the map which are instances of the type given.
+     * Objects which exist in the world but are not on the map are not counted. The count is kept up to date
+     * as objects are placed, moved and removed, so this does not scan the world.
+     * @param type the class to count (subclasses and implementations are included).
+     * @return the amount of matching objects on the map.
+     */
+    public int countOf(Class<?> type){
+        if(type == null) throw new IllegalArgumentException("Type cannot be null");
+        return typeIndex.count(type);
+    }
+
+    /**
+     * Provides a number which changes whenever an object which is an instance of the type given is placed on or removed from the map
+     * (including moves). This allows information derived from the whereabouts of a type (e.g., distances to the nearest food) to be kept
+     * until the objects of that type change.
+     * @param type the class to look for (subclasses and implementations are included).
+     * @return the current version of the type.
+     */
+    public long versionOf(Class<?> type){
+        if(type == null) throw new IllegalArgumentException("Type cannot be null");
+        return typeIndex.version(type);
+    }
+
+    /**
+     * Performs an action on the location of every object currently placed on the map which is an instance of the type given,
+     * without copying the locations (unlike {@link #locationsOf(Class)}). The map must not be modified by the action.
+     * A location holding two matching objects (blocking and non-blocking) is visited twice.
+     * @param type the class to look for (subclasses and implementations are included).
+     * @param action the action to perform on each location.
+     */
+    public void forEachLocationOf(Class<?> type, Consumer<Location> action){
+        if(type == null) throw new IllegalArgumentException("Type cannot be null");
+        for(Set<Location> indexed : typeIndex.matching(type)){
+            for(Location l : indexed){
+                action.accept(l);
+            }
+        }
+    }
+
+    /**
+     * Provides the locations of all objects currently placed on the map which are instances of the type given.
+     * @param type the class to look for (subclasses and implementations are included).
+     * @return a set of locations (possibly empty). The set returned is a copy and can be modified freely.
+     */
+    public Set<Location> locationsOf(Class<?> type){
+        if(type == null) throw new IllegalArgumentException("Type cannot be null");
+        Set<Location> locations = new HashSet<>();
+        for(Set<Location> indexed : typeIndex.matching(type)){
+            locations.addAll(indexed);
+        }
+        return locations;
+    }
+
+    /**
+     * Provides the location of the nearest object (blocking or non-blocking) which is an instance of the type given, within a radius of the location.
+     * Distance is measured in steps on the map (including diagonals), and the location itself is included (at distance 0).
+     * When several objects are equally near, the one with the lowest y (and then x) coordinate is chosen.
+     * @param type the class to look for (subclasses and implementations are included).
+     * @param location the location to search from.
+     * @param radius the maximum distance to search within. Must be non-negative.
+     * @return the location of the nearest matching object, or null if none exists within the radius.
+     * @throws IllegalArgumentException if the location is out of bounds or the radius is negative.
+     */
+    public Location nearestOf(Class<?> type, Location location, int radius){
+        if(type == null) throw new IllegalArgumentException("Type cannot be null");
+        validateCoordinates(location);
+        if(radius < 0) throw new IllegalArgumentException("Radius cannot be negative");
+        radius = Math.min(radius, size);
+
+        int count = typeIndex.count(type);
+        if(count == 0) return null;
+
+        int cx = location.getX();
+        int cy = location.getY();
+        long area = (2L * radius + 1) * (2L * radius + 1);
+        if(count < area){
+            // few candidates, compare them directly
+            Location nearest = null;
+            int nearestDistance = Integer.MAX_VALUE;
+            for(Set<Location> indexed : typeIndex.matching(type)){
+                for(Location l : indexed){
+                    int distance = Math.max(Math.abs(l.getX() - cx), Math.abs(l.getY() - cy));
+                    if(distance > radius || distance > nearestDistance) continue;
+                    if(distance < nearestDistance || l.getY() < nearest.getY() || (l.getY() == nearest.getY() && l.getX() < nearest.getX())){
+                        nearest = l;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+            return nearest;
+        }
+
+        // many candidates, scan rings of increasing distance (in order of y and then x)
+        for(int d = 0; d <= radius; d++){
+            for(int y = cy - d; y <= cy + d; y++){
+                if(y < 0 || y >= size) continue;
+                boolean edge = y == cy - d || y == cy + d;
+                for(int x = cx - d; x <= cx + d; x += (edge || d == 0) ? 1 : 2 * d){
+                    if(x < 0 || x >= size) continue;
+                    int index = y * size + x;
+                    if(type.isInstance(objectAt(0, index)) || type.isInstance(objectAt(1, index))) return locationOf(x, y);
+                }
+            }
+        }
+        return null;
+    }
+
     // Private methods
 
     private void validateCurrent() {
-        if (current == null)
+        if (getCurrentLocation() == null)
             throw new IllegalStateException("Currently no location is set");
     }
 
     private void validateCoordinates(Location l) {
-        if (l.getX() < 0 || l.getX() >= size || l.getY() < 0 || l.getY() >= size)
+        validateCoordinates(l.getX(), l.getY());
+    }
+
+    private void validateCoordinates(int x, int y) {
+        if (x < 0 || x >= size || y < 0 || y >= size)
             throw new IllegalArgumentException("Tile out of bounds");
     }
 
+    private int getNeighbourMask(int x, int y, int layer) {
+        validateCoordinates(x, y);
+        int mask = 0;
+        for (int bit = 0; bit < 8; bit++) {
+            int nx = x + NEIGHBOUR_DX[bit];
+            int ny = y + NEIGHBOUR_DY[bit];
+            if (nx >= 0 && nx < size && ny >= 0 && ny < size && isFree(layer, ny * size + nx))
+                mask |= 1 << bit;
+        }
+        return mask;
+    }
+
     private void validateLocation(Object o) {
-        if (!entities.containsKey(o))
+        int handle = entities.handleOf(o);
+        if (handle == 0)
             throw new IllegalArgumentException("Object does not exist in the world.");
-        Location l = entities.get(o);
-        if (l == null)
+        if (entities.getTile(handle) == EntityTable.OFF_MAP)
             throw new IllegalArgumentException("Object is not on the map.");
     }
 
 
-    private int getLayer(Object o) {
+    private int register(Object object) {
+        int handle = entities.add(object);
+        if (object instanceof Actor actor)
+            actors.add(handle, actor);
+        return handle;
+    }
+
+    private void blockingChanged(int index) {
+        blockingVersion++;
+        for (int i = 0; i < blockingListeners.size(); i++) {
+            blockingListeners.get(i).accept(index % size, index / size);
+        }
+    }
+
+    private void tileChanged(int index) {
+        if (changes != null)
+            changes.add(index);
+    }
+
+    private void copyTile(WorldFrame frame, int index) {
+        frame.set(index, objectAt(1, index), objectAt(0, index));
+    }
+
+    private Object getObjectAt(int index) {
+        Object object = objectAt(1, index);
+        return object != null ? object : objectAt(0, index);
+    }
+
+    private Location locationOf(int index) {
+        return locationOf(index % size, index / size);
+    }
+
+    static int getLayer(Object o) {
         if (o instanceof NonBlocking)
             return 0;
         return 1;
     }
 
+    // Steps of changing the map, shared with ConcurrentWorld, which guards the tiles and the bookkeeping with different locks.
+    // Layers are 0 for non-blocking and 1 for blocking objects, and tiles are indexed by y * size + x.
+
+    /**
+     * Provides the object on a tile of a layer, or null.
+     */
+    Object objectAt(int layer, int index) {
+        return entities.get(layers[layer][index]);
+    }
+
+    /**
+     * Determines whether a tile of a layer holds no object.
+     */
+    boolean isFree(int layer, int index) {
+        return layers[layer][index] == 0;
+    }
+
+    /**
+     * Puts an object (with its handle) on a tile of a layer, or clears the tile (handle 0 and null).
+     */
+    void setSlot(int layer, int index, int handle, Object object) {
+        layers[layer][index] = handle;
+    }
+
+    /**
+     * Throws if a tile of a layer already holds an object.
+     */
+    void requireFree(int layer, int index) {
+        if (isFree(layer, index))
+            return;
+        if (layer == 0)
+            throw new IllegalArgumentException("Tile cannot contain more than one non-blocking object");
+        throw new IllegalArgumentException("Tile cannot contain more than one blocking object");
+    }
+
+    /**
+     * Provides the handle of an object about to be placed on the map, adding the object to the world if it's new.
+     * @throws IllegalArgumentException if the object is already on the map.
+     */
+    int prepare(Object object) {
+        int handle = entities.handleOf(object);
+        if (handle == 0)
+            return register(object);
+        if (entities.getTile(handle) != EntityTable.OFF_MAP)
+            throw new IllegalArgumentException("Entity already exists in the world.");
+        return handle;
+    }
+
+    /**
+     * Records that an object has been put on a tile (see {@link #setSlot(int, int, int, Object)}).
+     * @throws IllegalArgumentException if the object is already on the map, e.g. placed elsewhere meanwhile.
+     */
+    void placed(Object object, int handle, int index, int layer) {
+        if (entities.getTile(handle) != EntityTable.OFF_MAP)
+            throw new IllegalArgumentException("Entity already exists in the world.");
+        tileChanged(index);
+        entities.setTile(handle, index);
+        typeIndex.add(object, locationOf(index));
+        if (layer == 1)
+            blockingChanged(index);
+    }
+
+    /**
+     * Records that an object has been taken off its tile.
+     */
+    void unplaced(Object object, int handle, int index, int layer) {
+        tileChanged(index);
+        entities.setTile(handle, EntityTable.OFF_MAP);
+        typeIndex.remove(object, locationOf(index));
+        if (layer == 1)
+            blockingChanged(index);
+    }
+
+    /**
+     * Removes an object which is off the map from the world.
+     */
+    void release(int handle) {
+        actors.remove(handle);
+        entities.release(handle);
+    }
+
+    /**
+     * Provides the handle of an object, or 0 if it isn't in the world.
+     */
+    int handleOf(Object object) {
+        return entities.handleOf(object);
+    }
+
+    /**
+     * Provides the tile of a handle, or {@link EntityTable#OFF_MAP}.
+     */
+    int tileOf(int handle) {
+        return entities.getTile(handle);
+    }
+
 }
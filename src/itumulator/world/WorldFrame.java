@@ -0,0 +1,194 @@
+package itumulator.world;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A read-only copy of the map of a {@link World} as it was at the end of a step, published by {@link World#swapBuffers()} when the world is
+ * double buffered (see {@link World#setDoubleBuffered(boolean)}). A frame does not change while it is the latest one, so it can be read from
+ * any thread while the world moves on, e.g. to render a consistent image or to make decisions which must not depend on who acted first
+ * (the simulator plans {@link itumulator.simulator.IntentActor}s against the latest frame).
+ * Frames are reused: a frame stays consistent until the second swap after it was published, after which it is updated to a later step,
+ * unless it was acquired (see {@link World#acquireFrame()}), in which case it is kept as it is until it is released.
+ */
+public final class WorldFrame implements MapView {
+    private final int size;
+    private final Object[] blocking;    // object per tile (index y * size + x), null if none
+    private final Object[] nonBlocking;
+    private final AtomicInteger readers; // acquired and not yet released, see World#acquireFrame
+    private long step;
+    private boolean day;
+
+    WorldFrame(int size) {
+        this.size = size;
+        this.blocking = new Object[size * size];
+        this.nonBlocking = new Object[size * size];
+        this.readers = new AtomicInteger();
+    }
+
+    /**
+     * Creates a copy of a frame.
+     * @param frame to copy.
+     */
+    WorldFrame(WorldFrame frame) {
+        this.size = frame.size;
+        this.blocking = frame.blocking.clone();
+        this.nonBlocking = frame.nonBlocking.clone();
+        this.readers = new AtomicInteger();
+        this.step = frame.step;
+        this.day = frame.day;
+    }
+
+    /**
+     * Counts a reader of the frame, which keeps it from being reused.
+     */
+    void acquire() {
+        readers.incrementAndGet();
+    }
+
+    /**
+     * Counts off a reader of the frame.
+     * @throws IllegalStateException if the frame has no readers.
+     */
+    void release() {
+        if (readers.decrementAndGet() < 0)
+            throw new IllegalStateException("Frame was not acquired");
+    }
+
+    /**
+     * Determines whether the frame has readers.
+     * @return true if the frame must not be reused.
+     */
+    boolean isAcquired() {
+        return readers.get() > 0;
+    }
+
+    /**
+     * Copies the tile at the given index from the world.
+     * @param index of the tile (y * size + x).
+     * @param blocking object on the tile, or null.
+     * @param nonBlocking object on the tile, or null.
+     */
+    void set(int index, Object blocking, Object nonBlocking) {
+        this.blocking[index] = blocking;
+        this.nonBlocking[index] = nonBlocking;
+    }
+
+    /**
+     * Sets the time of the world the frame shows.
+     * @param step the step count of the world.
+     * @param day whether it is day.
+     */
+    void setTime(long step, boolean day) {
+        this.step = step;
+        this.day = day;
+    }
+
+    /**
+     * Provides the size of the map.
+     * @return the size (both x and y).
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Provides the step of the world the frame shows (see {@link World#getStepCount()}).
+     * @return the step count.
+     */
+    public long getStepCount() {
+        return step;
+    }
+
+    /**
+     * Provides whether it was day in the step the frame shows.
+     * @return true if it was day time.
+     */
+    public boolean isDay() {
+        return day;
+    }
+
+    /**
+     * Provides the object on a tile, prioritizing blocking objects over non-blocking ones (see {@link World#getTile(int, int)}).
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return the object, or null if the tile was empty.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    public Object getTile(int x, int y) {
+        int index = indexOf(x, y);
+        return blocking[index] != null ? blocking[index] : nonBlocking[index];
+    }
+
+    /**
+     * Provides the non-blocking object on a tile.
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return the object, or null if the tile had none.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    public Object getNonBlocking(int x, int y) {
+        return nonBlocking[indexOf(x, y)];
+    }
+
+    /**
+     * Determines whether a tile was free of blocking objects (see {@link World#isTileEmpty(int, int)}).
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return true if the tile had no blocking object.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    public boolean isTileEmpty(int x, int y) {
+        return blocking[indexOf(x, y)] == null;
+    }
+
+    /**
+     * Determines whether a tile had a non-blocking object.
+     * @param x coordinate of the tile.
+     * @param y coordinate of the tile.
+     * @return true if the tile had a non-blocking object.
+     * @throws IllegalArgumentException if the coordinates are out of bounds.
+     */
+    public boolean containsNonBlocking(int x, int y) {
+        return nonBlocking[indexOf(x, y)] != null;
+    }
+
+    /**
+     * Provides the tiles immediately surrounding (x, y) which were free of blocking objects as a bitmask (see {@link World#getEmptyNeighbourMask(int, int)}).
+     * @param x coordinate of the center.
+     * @param y coordinate of the center.
+     * @return bitmask of the empty surrounding tiles (0 if none).
+     * @throws IllegalArgumentException if the center is out of bounds.
+     */
+    public int getEmptyNeighbourMask(int x, int y) {
+        return neighbourMask(x, y, blocking);
+    }
+
+    /**
+     * Provides the tiles immediately surrounding (x, y) which had no non-blocking object as a bitmask (see {@link World#getEmptyNeighbourMask(int, int)}).
+     * @param x coordinate of the center.
+     * @param y coordinate of the center.
+     * @return bitmask of the surrounding tiles without non-blocking objects (0 if none).
+     * @throws IllegalArgumentException if the center is out of bounds.
+     */
+    public int getNonBlockingFreeNeighbourMask(int x, int y) {
+        return neighbourMask(x, y, nonBlocking);
+    }
+
+    private int neighbourMask(int x, int y, Object[] layer) {
+        indexOf(x, y);
+        int mask = 0;
+        for (int bit = 0; bit < 8; bit++) {
+            int nx = x + World.getNeighbourDx(bit);
+            int ny = y + World.getNeighbourDy(bit);
+            if (nx >= 0 && nx < size && ny >= 0 && ny < size && layer[ny * size + nx] == null)
+                mask |= 1 << bit;
+        }
+        return mask;
+    }
+
+    private int indexOf(int x, int y) {
+        if (x < 0 || x >= size || y < 0 || y >= size)
+            throw new IllegalArgumentException("Coordinates are out of bounds.");
+        return y * size + x;
+    }
+}
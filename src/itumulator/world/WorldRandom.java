@@ -0,0 +1,44 @@
+package itumulator.world;
+
+import java.util.SplittableRandom;
+
+/**
+ * The randomness of a {@link World}, all derived from one seed. Rather than drawing from a shared generator (or creating a new one for every decision),
+ * everything needing randomness (e.g. each actor) splits off its own stream once with {@link #split()} and keeps drawing from that. Streams
+ * are independent of each other, so drawing from them needs no synchronization, and a world seeded with {@link #setSeed(long)} makes the
+ * same random decisions every run, as long as the streams are split off in the same order.
+ *
+ * Unseeded by default. Each world has its own instance, see {@link #of(World)}.
+ */
+public class WorldRandom {
+    private SplittableRandom root;
+
+    private WorldRandom() {
+        root = new SplittableRandom();
+    }
+
+    /**
+     * Provides the randomness of a world.
+     * @param world the world.
+     * @return the randomness of the world.
+     */
+    public static WorldRandom of(World world) {
+        return world.getService(WorldRandom.class, w -> new WorldRandom());
+    }
+
+    /**
+     * Seeds the randomness. Only streams split off afterwards are derived from the seed, so this should be done before the world is simulated.
+     * @param seed to use.
+     */
+    public synchronized void setSeed(long seed) {
+        root = new SplittableRandom(seed);
+    }
+
+    /**
+     * Splits off a new stream of random numbers, to be used by one thread at a time.
+     * @return the stream.
+     */
+    public synchronized SplittableRandom split() {
+        return root.split();
+    }
+}
@@ -58,7 +58,7 @@ public class Main {
 
 
 //        for (int i = 0; i < 10; i++){
-//            p.getWorld().setTile(Utilities.getRandomEmptyLocation(p.getWorld(), p.getSize()), new InfectedAnimal<Rabbit>(Rabbit.class, p.getWorld()));
+//            p.getWorld().setTile(Utilities.getRandomEmptyLocation(WorldRandom.of(p.getWorld()).split(), p.getWorld(), p.getSize()), new InfectedAnimal<Rabbit>(Rabbit.class, p.getWorld()));
 //        }
 
         p.show();
@@ -1,21 +1,45 @@
 package simulator.actors;
 
-import itumulator.simulator.Actor;
+import itumulator.simulator.IntentActor;
 import itumulator.world.Location;
+import itumulator.world.MapView;
+import itumulator.world.NeighbourCursor;
 import itumulator.world.World;
-import java.util.ArrayList;
-import java.util.Random;
-import java.util.Set;
+import itumulator.world.WorldRandom;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 import simulator.objects.Carcass;
 import simulator.objects.plants.Grass;
 import simulator.util.PathFinder;
+import simulator.util.Utilities;
 
 /**
  * Animal is an abstract class that all animals inherit from.
  * It contains some of the default animal behaviour and every method that
  * every animal has in common.
+ *
+ * When the simulator steps in parallel, where an animal wanders to is planned on another thread (see planMove()),
+ * and the animal then acts as usual with that step decided. Animals planning to step onto the same tile are resolved
+ * in the order they act: the first one gets the tile and the others stay where they are.
+ * Everything else an animal decides (following paths, hunting, eating and breeding) is still done one animal at a time while acting.
  */
-public abstract class Animal implements Actor {
+public abstract class Animal implements IntentActor<Animal.Move> {
+
+    /**
+     * The step an animal has planned, see planMove()
+     */
+    public static final class Move {
+        final Location from;
+        final int to; // tile index (y * size + x), -1 to stay
+
+        Move(Location from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    // How far away, in steps, animals notice food and each other unless they set their own radius
+    protected static final int DEFAULT_PERCEPTION_RADIUS = 20;
 
     private int energy;
     public final int maxEnergy;
@@ -28,7 +52,14 @@ public abstract class Animal implements Actor {
     protected boolean hasEatenToday;
 
     protected Class<?> foodType;
+    protected int perceptionRadius;
     protected PathFinder pathFinder;
+    // Reused whenever the animal looks at its surroundings, to avoid creating sets of locations every step
+    protected NeighbourCursor neighbourCursor;
+    // The animal's own stream of random numbers, split off from the world's when first needed
+    private SplittableRandom random;
+    // The step planned for the current step of the world while committing it, see commit()
+    private Move plannedMove;
 
     /**
      * Animal constructor
@@ -47,8 +78,10 @@ public abstract class Animal implements Actor {
 
         this.age = 0;
         this.hasEatenToday = false;
+        this.perceptionRadius = DEFAULT_PERCEPTION_RADIUS;
 
         this.pathFinder = new PathFinder(null);
+        this.neighbourCursor = new NeighbourCursor();
     }
 
     /**
@@ -144,6 +177,17 @@ public abstract class Animal implements Actor {
         }
     
 
+    /**
+     * Provides the animal's own random numbers, derived from the seed of the world (see {@link WorldRandom})
+     *
+     * @param world - reference to the world
+     * @return the random numbers of the animal
+     */
+    protected RandomGenerator getRandom(World world) {
+        if(this.random == null) this.random = WorldRandom.of(world).split();
+        return this.random;
+    }
+
     /**
      * Random wander behaviour.
      * Animal picks an empty sorrounding tile and goes there.
@@ -152,10 +196,68 @@ public abstract class Animal implements Actor {
      */
     protected void wander(World world) {
         Location currentLocation = world.getLocation(this);
-        Set<Location> emptyTiles = world.getEmptySurroundingTiles(currentLocation);
-        if (!emptyTiles.isEmpty()) {
-            Location randomLocation = new ArrayList<>(emptyTiles).get(new Random().nextInt(emptyTiles.size()));
-            world.move(this, randomLocation);
+        final Move move = this.plannedMove;
+        if(move != null && move.from.equals(currentLocation)) {
+            this.plannedMove = null;
+            if(move.to == -1) return;
+            // Another animal may have stepped onto the tile earlier in the step, in which case this one stays
+            final Location to = world.locationOf(move.to % world.getSize(), move.to / world.getSize());
+            if(world.isTileEmpty(to)) world.move(this, to);
+            return;
+        }
+        int emptyTiles = world.getEmptyNeighbourMask(currentLocation.getX(), currentLocation.getY());
+        int direction = Utilities.getRandomBit(emptyTiles, this.getRandom(world));
+        if (direction != -1) {
+            world.move(this, world.locationOf(currentLocation.getX() + World.getNeighbourDx(direction),
+                                          currentLocation.getY() + World.getNeighbourDy(direction)));
+        }
+    }
+
+    /**
+     * Plans where the animal wanders to, drawing the direction like wander() does.
+     * Only reads the map, so many animals may plan at once
+     *
+     * @param map - the map to read, e.g. the world
+     * @param location - location of the animal
+     * @param random - the random numbers to draw from
+     * @return the step, which stays where the animal is if there are no empty tiles around it
+     */
+    protected Move planMove(MapView map, Location location, RandomGenerator random) {
+        int direction = Utilities.getRandomBit(map.getEmptyNeighbourMask(location.getX(), location.getY()), random);
+        if (direction == -1) return new Move(location, -1);
+        return new Move(location, (location.getY() + World.getNeighbourDy(direction)) * map.getSize()
+                                  + location.getX() + World.getNeighbourDx(direction));
+    }
+
+    /**
+     * Plans where the animal wanders to, unless it's following a path, in which case it wouldn't wander.
+     * Should it wander anyway (e.g. the path being blocked), it draws the direction when acting like without a plan
+     *
+     * @param map - the map to read, e.g. the world
+     * @param location - location of the animal
+     * @param random - the random numbers to draw from
+     * @return the step, or null if the animal follows a path
+     */
+    @Override
+    public Move plan(MapView map, Location location, RandomGenerator random) {
+        if(this.pathFinder.hasPath()) return null;
+        return this.planMove(map, location, random);
+    }
+
+    /**
+     * Acts with the step planned. If the animal wanders, it takes that step rather than drawing a new one,
+     * while everything else it does is decided as usual
+     *
+     * @param move - the step planned, or null
+     * @param world - reference to the world
+     */
+    @Override
+    public void commit(Move move, World world) {
+        this.plannedMove = move;
+        try {
+            this.act(world);
+        } finally {
+            this.plannedMove = null;
         }
     }
 
@@ -218,7 +320,16 @@ public abstract class Animal implements Actor {
     protected void findPathToNearestFood(World world) {
         Location currentLocation = world.getLocation(this);
         this.pathFinder.setLocation(currentLocation);
-        this.pathFinder.findPathToNearest(this.foodType, world);
+        this.pathFinder.findPathToNearest(this.foodType, world, this.perceptionRadius);
+    }
+
+    /**
+     * Returns how far away, in steps, the animal searches for food and other animals
+     *
+     * @return perception radius of animal
+     */
+    public int getPerceptionRadius() {
+        return this.perceptionRadius;
     }
 
     /**
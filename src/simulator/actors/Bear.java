@@ -9,6 +9,7 @@ import java.util.HashSet;
 import java.util.Set;
 import simulator.objects.plants.Bush;
 import simulator.objects.plants.Plant;
+import simulator.objects.plants.VegetationField;
 
 public class Bear extends Animal implements DynamicDisplayInformationProvider, Predator {
 
@@ -33,11 +34,12 @@ public class Bear extends Animal implements DynamicDisplayInformationProvider, P
         return territory.contains(location);
     }
 
-    private boolean huntImmediate(World world, Set<Location> surroundingLocations) {
+    private boolean huntImmediate(World world, Location currentLocation) {
         if (this.hasEatenToday) return false; // Only hunt if the bear hasn’t eaten
 
-        for (Location location : surroundingLocations) {
-            Object obj = world.getTile(location);
+        this.neighbourCursor.reset(world, currentLocation, 1);
+        while (this.neighbourCursor.next()) {
+            Object obj = world.getTile(this.neighbourCursor.getX(), this.neighbourCursor.getY());
             if (obj instanceof Rabbit || obj instanceof Wolf) {
 //                System.out.println("Bear attacked prey at " + location);
                 this.attack((Animal) obj, world);
@@ -47,12 +49,14 @@ public class Bear extends Animal implements DynamicDisplayInformationProvider, P
         return false; // No prey found in adjacent tiles
     }
 
-    private boolean eatCarcass(World world, Set<Location> surroundingLocations) {
+    private boolean eatCarcass(World world, Location currentLocation) {
         if (this.hasEatenToday) return false; // Only eat if the bear hasn’t eaten
 
-        for (Location location : surroundingLocations) {
-            if (world.containsNonBlocking(location) &&
-                world.getNonBlocking(location) instanceof simulator.objects.Carcass carcass) {
+        this.neighbourCursor.reset(world, currentLocation, 1);
+        while (this.neighbourCursor.next()) {
+            int x = this.neighbourCursor.getX(), y = this.neighbourCursor.getY();
+            if (world.containsNonBlocking(x, y) &&
+                world.getNonBlocking(x, y) instanceof simulator.objects.Carcass carcass) {
                 carcass.consume(world); // Consume the carcass
                 //System.out.println("Bear ate a carcass!");
                 this.ate();
@@ -63,14 +67,17 @@ public class Bear extends Animal implements DynamicDisplayInformationProvider, P
         return false; // No carcass was found
     }
 
-    private boolean eatBerries(World world, Set<Location> surroundingLocations) {
+    private boolean eatBerries(World world, Location currentLocation) {
         if (this.hasEatenToday) return false; // Only eat if the bear hasn’t eaten
 
-        for (Location location : surroundingLocations) {
-            if (world.containsNonBlocking(location) &&
-                world.getNonBlocking(location) instanceof Bush bush &&
+        this.neighbourCursor.reset(world, currentLocation, 1);
+        while (this.neighbourCursor.next()) {
+            int x = this.neighbourCursor.getX(), y = this.neighbourCursor.getY();
+            if (world.containsNonBlocking(x, y) &&
+                world.getNonBlocking(x, y) instanceof Bush bush &&
                 bush.getCurrentStage() == Plant.Stage.RIPE) {
-                bush.consume(world);
+                if (VegetationField.isEnabled(world)) VegetationField.of(world).consume(world, x, y);
+                else bush.consume(world);
                 //System.out.println("Bear ate berries!");
                 this.ate();
                 this.increaseEnergy(20);
@@ -89,19 +96,18 @@ public class Bear extends Animal implements DynamicDisplayInformationProvider, P
         }
 
         Location currentLocation = world.getLocation(this);
-        Set<Location> surroundingLocations = world.getSurroundingTiles(currentLocation);
 
         // Prioritize eating immediate berries
-        if (this.eatBerries(world, surroundingLocations)) {
+        if (this.eatBerries(world, currentLocation)) {
             return; // Exit if berries were eaten
         }
 
         // Eat surrounding carcass
-        if (this.eatCarcass(world, surroundingLocations)) {
+        if (this.eatCarcass(world, currentLocation)) {
             return; // Exit if a carcass was eaten
         }
 
-        if (this.huntImmediate(world, surroundingLocations)) {
+        if (this.huntImmediate(world, currentLocation)) {
             return; // Exit if prey was attacked
         }
 
@@ -110,22 +116,23 @@ public class Bear extends Animal implements DynamicDisplayInformationProvider, P
             this.pathFinder.setLocation(currentLocation);
 
             // Attempt to find food
-            boolean pathFound = this.pathFinder.findPathToNearest(Bush.class, world);
+            boolean pathFound = this.pathFinder.findPathToNearest(Bush.class, world, this.perceptionRadius);
             if (!pathFound) {
-                pathFound = this.pathFinder.findPathToNearestBlocking(Rabbit.class, world);
+                pathFound = this.pathFinder.findPathToNearestBlocking(Rabbit.class, world, this.perceptionRadius);
                 if (!pathFound) {
-                    this.pathFinder.findPathToNearestBlocking(Wolf.class, world);
+                    this.pathFinder.findPathToNearestBlocking(Wolf.class, world, this.perceptionRadius);
                 }
             }
         }
 
         // Follow the path if one exists
         if (this.pathFinder.hasPath()) {
-            Location nextStep = this.pathFinder.getPath().poll();
-            if (world.isTileEmpty(nextStep)) {
+            Location nextStep = this.pathFinder.takeNextStep(currentLocation, world);
+            if (nextStep != null) {
                 world.move(this, nextStep);
             } else {
-                // Clear the path and wander if blocked
+                // Either the path has ended, or its next step is blocked and takeNextStep couldn't repair the path around it
+                // (e.g. because the end of the path is taken). Give up on the path and wander; a new one is searched for next step
                 this.pathFinder.clearPath();
                 this.wander(world);
             }
@@ -148,14 +155,12 @@ public class Bear extends Animal implements DynamicDisplayInformationProvider, P
 
             this.pathFinder.setLocation(currentLocation);
             if (!this.pathFinder.hasPath() || !this.pathFinder.getFinalLocationInPath().equals(territoryCenter)) {
-                this.pathFinder.findPathToLocation(territoryCenter, world);
+                this.pathFinder.requestPathToDestination(territoryCenter, world);
             }
 
-            if (this.pathFinder.hasPath()) {
-                Location nextStep = this.pathFinder.getPath().poll();
-                if (world.isTileEmpty(nextStep)) {
-                    world.move(this, nextStep);
-                }
+            Location nextStep = this.pathFinder.takeNextStep(currentLocation, world);
+            if (nextStep != null) {
+                world.move(this, nextStep);
             }
         } else {
             this.pathFinder.clearPath();
@@ -6,13 +6,13 @@ import itumulator.world.Location;
 import itumulator.world.World;
 
 import java.util.HashSet;
-import java.util.Random;
 import java.util.Set;
 
 import java.awt.Color;
 
 import simulator.objects.holes.RabbitHoleNetwork;
 import simulator.objects.plants.Grass;
+import simulator.objects.plants.VegetationField;
 import simulator.objects.NonBlockable;
 import simulator.objects.holes.RabbitHole;
 import simulator.util.Utilities;
@@ -44,14 +44,13 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
 
     // Rabbit only attempts to reproduce once per night, this keeps track of whether it has or hasn't
     private boolean hasAttemptedToReproduce;
-    private RabbitHoleNetwork assignedNetwork; // The singleton of the network
+    private RabbitHoleNetwork assignedNetwork; // The network of the world the rabbit lives in, null until it first acts
     private boolean hasCreatedHole;
     private boolean hasAttemptedToCreateHole; //boolean to make sure the rabbit don't spend all night trying to make a hole
 
 
     public Rabbit() {
         super(20, 9, Grass.class, 25); // Call the Animal superclass constructor
-        this.assignedNetwork = RabbitHoleNetwork.getInstance(); // Gets a variable that is a shortened version of RabbitHoleNetwork.getInstance(). To much to write each time
         // PathFinder expects starting location, setting to null for now
         this.hasAttemptedToReproduce = false;
         this.hasCreatedHole = false;
@@ -63,7 +62,7 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
     // Check if the rabbit has an assigned hole
     @Deprecated
     public boolean hasHole() {
-        return assignedNetwork.getEntrances() != null && assignedNetwork.getEntrances().size() > 0;
+        return assignedNetwork != null && assignedNetwork.getEntrances() != null && assignedNetwork.getEntrances().size() > 0;
     }
 
     /**
@@ -73,16 +72,24 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
      * @return Whether if rabbit is currently in hole or not
      */
     public boolean isInHole() {
-        return this.assignedNetwork.getInhabitants().contains(this);
+        return this.assignedNetwork != null && this.assignedNetwork.getInhabitants().contains(this);
     }
 
     public void assignNetwork(RabbitHoleNetwork network) {
         this.assignedNetwork = network;
     }
 
+    /**
+     * Assigns the rabbit to the network of the world if it hasn't got one yet
+     */
+    private void assignNetwork(World world) {
+        if (this.assignedNetwork == null) this.assignedNetwork = RabbitHoleNetwork.of(world);
+    }
+
 
     @Override
     public void reproduce(World world) {
+        this.assignNetwork(world);
         this.assignedNetwork.reproduceInhabitant(world);
         hasAttemptedToReproduce = true;
         //System.out.println(this + " reproduced");
@@ -117,11 +124,9 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
         //if statement to only go towards hole if it's evening time...
         // Find path to the hole and move one step towards it
 
-        if(this.pathFinder.hasPath()) {
-            Location nextStep = this.pathFinder.getPath().poll();
-            if(world.isTileEmpty(nextStep)) {
-                world.move(this, nextStep); // Move rabbit to the next step
-            }
+        Location nextStep = this.pathFinder.takeNextStep(currentLocation, world);
+        if(nextStep != null) {
+            world.move(this, nextStep); // Move rabbit to the next step
         }
     }
 
@@ -137,9 +142,9 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
         RabbitHole exitHole;
         if (holes.isEmpty()) {
             // No safe entrances, pick something and hope for the best
-            exitHole = Utilities.getRandomFromSet(this.assignedNetwork.getEntrances());
+            exitHole = Utilities.getRandomFromSet(this.assignedNetwork.getEntrances(), this.getRandom(world));
         }else {
-            exitHole = Utilities.getRandomFromSet(holes);
+            exitHole = Utilities.getRandomFromSet(holes, this.getRandom(world));
         }
         // for some reason exitHole is null therefor get the exit hole another way that use Utilities
         if (exitHole == null) {
@@ -158,14 +163,7 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
      * If it finds one, it assigns itself to the hole and goes to it
      */
     private boolean noNearbyHoles(World world) {
-        Set<Location> search = world.getSurroundingTiles(2);
-        search.add(world.getCurrentLocation());
-        for (Location location : search) {
-            if (world.containsNonBlocking(location) && world.getNonBlocking(location) instanceof RabbitHole) {
-                return false;
-            }
-        }
-        return true;
+        return world.nearestOf(RabbitHole.class, world.getCurrentLocation(), 2) == null;
     }
 
     private void nightTimeBehaviour(World world) {
@@ -196,8 +194,8 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
         } else if (this.pathFinder.hasPath()) {
             // If it has a path in the path finder, e.g.
             // path to nearest patch of grass, then follow that.
-            Location nextStep = this.pathFinder.getPath().poll();
-            if (world.isTileEmpty(nextStep)) world.move(this, nextStep);
+            Location nextStep = this.pathFinder.takeNextStep(world.getLocation(this), world);
+            if (nextStep != null) world.move(this, nextStep);
         } else {
             // Otherwise, wander randomly
             this.wander(world);
@@ -214,8 +212,7 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
         Location currentLocation = world.getLocation(this);
         if(world.containsNonBlocking(currentLocation)) return;
 
-        Random random = new Random();
-        if(random.nextInt(101) <= 85) return;
+        if(this.getRandom(world).nextInt(101) <= 85) return;
 
         this.hasCreatedHole = true;
 
@@ -225,6 +222,7 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
 
     @Override
     public void act(World world) {
+        this.assignNetwork(world);
         if (world.isNight()) {
             this.nightTimeBehaviour(world);
         } else {
@@ -249,6 +247,11 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
             //System.out.println("Energy levels end of day: " + this.getEnergy());
             this.hasAttemptedToReproduce = false;
         }
+
+        // Once it has tried to reproduce, a rabbit in a hole has nothing to do until the next day starts
+        if(world.isNight() && this.hasAttemptedToReproduce && this.isInHole() && world.contains(this)) {
+            world.sleepUntil(this, world.getNextStepAtTime(0));
+        }
     }
 
 
@@ -282,7 +285,8 @@ public class Rabbit extends Animal implements DynamicDisplayInformationProvider
             NonBlockable nonBlockable = (NonBlockable)world.getNonBlocking(currentLocation);
             if(nonBlockable instanceof Grass grass) {
                 if(this.hasEatenToday && this.getEnergy() == this.maxEnergy) return;
-                grass.consume(world);
+                if(VegetationField.isEnabled(world)) VegetationField.of(world).consume(world, currentLocation.getX(), currentLocation.getY());
+                else grass.consume(world);
                 this.hasEatenToday = true;
                 this.increaseEnergy(1);
 
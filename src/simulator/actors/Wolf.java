@@ -5,8 +5,6 @@ import itumulator.executable.DynamicDisplayInformationProvider;
 import itumulator.world.Location;
 import itumulator.world.World;
 import java.awt.Color;
-import java.util.Random;
-import java.util.Set;
 import java.util.function.Function;
 import simulator.objects.Carcass;
 import simulator.objects.holes.WolfHole;
@@ -89,20 +87,19 @@ Predator {
      * @param world reference to the world
      */
     protected void searchForWolfPack(World world) {
-        Set<Location> locations = world.getSurroundingTiles(3);
         final Location currentLocation = world.getLocation(this);
-        locations.remove(currentLocation);
 
-        final Set<Wolf> nearbyWolves = world.getAll(Wolf.class, locations);
-        for(final Wolf nearbyWolf : nearbyWolves) {
-            if(nearbyWolf.hasWolfPack()) {
+        this.neighbourCursor.reset(world, currentLocation, 3);
+        while(this.neighbourCursor.next()) {
+            if(world.getTile(this.neighbourCursor.getX(), this.neighbourCursor.getY()) instanceof Wolf nearbyWolf
+               && nearbyWolf.hasWolfPack()) {
                 this.joinWolfPack(nearbyWolf.wolfPack);
                 return;
             }
         }
 
         // If wolf hasn't found WolfPack after 2 days, then try to make one with 1/10 success rate
-        if(this.wolfPack == null && this.daysWithoutWolfPack > 2 && (new Random()).nextInt(10) == 0) {
+        if(this.wolfPack == null && this.daysWithoutWolfPack > 2 && this.getRandom(world).nextInt(10) == 0) {
             if(world.containsNonBlocking(currentLocation)) return;
 
             WolfHole wolfHole = new WolfHole();
@@ -137,14 +134,12 @@ Predator {
 
             if(!this.pathFinder.hasPath() || !(this.pathFinder.getFinalLocationInPath().equals(holeLocation))) {
                 this.pathFinder.setLocation(wolfLocation);
-                this.pathFinder.findPathToLocation(holeLocation, world);
+                this.pathFinder.requestPathToDestination(holeLocation, world);
             }
         }
 
-        if(this.pathFinder.hasPath()) {
-            final Location nextStep = this.pathFinder.getPath().poll();
-            if(world.isTileEmpty(nextStep)) world.move(this, nextStep);
-        }
+        final Location nextStep = this.pathFinder.takeNextStep(world.getLocation(this), world);
+        if(nextStep != null) world.move(this, nextStep);
 
     }
 
@@ -152,42 +147,59 @@ Predator {
      * Method used to attack an animal if it is within range(on a surrounding tile).
      *
      * @param world reference to the world
-     * @param surroundingLocations set to the surrouding tiles which are the effective range of the wolf
+     * @param currentLocation location of the wolf, the surrounding tiles are the effective range of the wolf
      * @param attackCondition lambda function that takes an object and returns a boolean determining if the wolf should attack that animal.
      */
-    protected void attackIfInRange(World world, Set<Location> surroundingLocations, Function<Object, Boolean> attackCondition ) {
-        surroundingLocations.forEach( l -> {
-            final Object obj = world.getTile(l);
+    protected void attackIfInRange(World world, Location currentLocation, Function<Object, Boolean> attackCondition ) {
+        this.neighbourCursor.reset(world, currentLocation, 1);
+        while(this.neighbourCursor.next()) {
+            final Object obj = world.getTile(this.neighbourCursor.getX(), this.neighbourCursor.getY());
             if(attackCondition.apply(obj)) {
                 // lambda function tells us this is valid Animal to typecast
                 this.attack((Animal)obj, world);
                 // Return to avoid attacking multiple animals in one tick
                 return;
             }
-        });
+        }
     }
 
     /**
      * Method used to make wolf eat a carcass than is on a surrounding tile
      *
      * @param world reference to the world
-     * @param surroundingLocations set to the surrounding tiles
+     * @param currentLocation location of the wolf, which is checked along with the surrounding tiles
      */
-    protected void eatCarcassIfInRange(World world, Set<Location> surroundingLocations) {
-        surroundingLocations.forEach( l -> {
-            if(world.containsNonBlocking(l) && world.getNonBlocking(l) instanceof Carcass carcass 
-            // This logic introduces a bug which prevents the wolf from eating on its very first day
-            // it starts off with max energy, but since hasEatenToday starts as false, it will starve itself.
-            // On a side note: Remember to run unit tests after introducing logic changes! wolfEatsCarcassTest() fails after adding this
-            /* BUG: && this.getEnergy() != this.maxEnergy */) {
-                carcass.consume(world);
-                this.ate();
-                this.increaseEnergy(30);
-                // Only eat once per time step 
-                return;
-            }
-        });
+    protected void eatCarcassIfInRange(World world, Location currentLocation) {
+        // Carcass is NonBlockable, so Wolf should also be allowed to stand on top
+        if(this.eatCarcassAt(world, currentLocation.getX(), currentLocation.getY())) return;
+
+        this.neighbourCursor.reset(world, currentLocation, 1);
+        while(this.neighbourCursor.next()) {
+            // Only eat once per time step 
+            if(this.eatCarcassAt(world, this.neighbourCursor.getX(), this.neighbourCursor.getY())) return;
+        }
+    }
 
+    /**
+     * Makes the wolf eat the carcass on the given tile, if there is one
+     *
+     * @param world reference to the world
+     * @param x coordinate of the tile
+     * @param y coordinate of the tile
+     * @return whether a carcass was eaten
+     */
+    private boolean eatCarcassAt(World world, int x, int y) {
+        if(world.containsNonBlocking(x, y) && world.getNonBlocking(x, y) instanceof Carcass carcass 
+        // This logic introduces a bug which prevents the wolf from eating on its very first day
+        // it starts off with max energy, but since hasEatenToday starts as false, it will starve itself.
+        // On a side note: Remember to run unit tests after introducing logic changes! wolfEatsCarcassTest() fails after adding this
+        /* BUG: && this.getEnergy() != this.maxEnergy */) {
+            carcass.consume(world);
+            this.ate();
+            this.increaseEnergy(30);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -207,8 +219,8 @@ Predator {
 
         // Try to generate path to Carcass, if none was found then try the same for Rabbit instead
         Runnable generatePathToFood = () -> {
-            if(!this.pathFinder.findPathToNearest(Carcass.class, world))
-            this.pathFinder.findPathToNearestBlocking(this.foodType, world);
+            if(!this.pathFinder.findPathToNearest(Carcass.class, world, this.perceptionRadius))
+            this.pathFinder.findPathToNearestBlocking(this.foodType, world, this.perceptionRadius);
         };
 
         // If hasn't eaten today and current path doesn't lead to rabbit,
@@ -229,21 +241,18 @@ Predator {
         }
 
 
-        final Set<Location> surroundingLocations = world.getSurroundingTiles(currentLocation);
         // Only eat if energy isn't max or hasn't eaten today
         if(this.getEnergy() != this.maxEnergy || !this.hasEatenToday){
             // If Rabbit in attack range, then attack it
-            this.attackIfInRange(world, surroundingLocations, 
+            this.attackIfInRange(world, currentLocation, 
                 (obj) -> {
                     return /* Attack if */ obj instanceof Rabbit;
             });
 
-            // Carcass is NonBlockable, so Wolf should also be allowed to stand on top
-            surroundingLocations.add(currentLocation);
-            this.eatCarcassIfInRange(world, surroundingLocations);
+            this.eatCarcassIfInRange(world, currentLocation);
         }else {
             // Attack any wolf that isn't in this wolf's wolfpack and wanders nearby
-            this.attackIfInRange(world, surroundingLocations, this::isEnemyWolf);
+            this.attackIfInRange(world, currentLocation, this::isEnemyWolf);
                         
         }
 
@@ -251,12 +260,15 @@ Predator {
         if(!this.pathFinder.hasPath() && this.hasWolfPack() )  {
             this.pathFinder.findPath(
             (location) -> {
-                    for(Location t : world.getSurroundingTiles(location)) {
-                        if(this.isFriendlyWolf(world.getTile(t)) && !t.equals(currentLocation) ) return true;
+                    this.neighbourCursor.reset(world, location, 1);
+                    while(this.neighbourCursor.next()) {
+                        final int x = this.neighbourCursor.getX(), y = this.neighbourCursor.getY();
+                        if(this.isFriendlyWolf(world.getTile(x, y)) 
+                           && !(x == currentLocation.getX() && y == currentLocation.getY()) ) return true;
                     }
                     return false;
 
-                }, world
+                }, world, this.perceptionRadius
             );
 
             if(this.pathFinder.getPath().size() < 2) this.pathFinder.clearPath();
@@ -265,8 +277,8 @@ Predator {
         
 
         if(this.pathFinder.hasPath()) {
-            final Location nextStep = this.pathFinder.getPath().poll();
-            if(world.isTileEmpty(nextStep)) world.move(this, nextStep);
+            final Location nextStep = this.pathFinder.takeNextStep(currentLocation, world);
+            if(nextStep != null) world.move(this, nextStep);
         }else {
             this.wander(world);
         }
@@ -4,6 +4,8 @@ import java.util.Set;
 import java.util.HashSet;
 
 import itumulator.world.World;
+import itumulator.world.WorldRandom;
+import java.util.random.RandomGenerator;
 
 import simulator.objects.holes.WolfHole;
 import simulator.util.Utilities;
@@ -19,9 +21,24 @@ public class WolfPack {
         this.assignedHole = assignedHole;
     }
 
-    public WolfPack(World world) {
+    /**
+     * Creates a wolf pack with its den on a random tile without a non-blocking object
+     *
+     * @param world - reference to the world
+     * @param random - the random numbers to draw the tile of the den from
+     */
+    public WolfPack(World world, RandomGenerator random) {
         this(new WolfHole());
-        world.setTile(Utilities.getRandomEmptyNonBlockingLocation(world, world.getSize()), this.assignedHole);
+        world.setTile(Utilities.getRandomEmptyNonBlockingLocation(random, world, world.getSize()), this.assignedHole);
+    }
+
+    /**
+     * Creates a wolf pack with its den on a random tile drawn from the randomness of the world (see {@link WorldRandom})
+     *
+     * @param world - reference to the world
+     */
+    public WolfPack(World world) {
+        this(world, WorldRandom.of(world).split());
     }
 
     public Set<Wolf> getMembers() {
@@ -11,8 +11,6 @@ import simulator.actors.Wolf;
 import simulator.util.Utilities;
 
 import java.awt.*;
-import java.util.Random;
-import java.util.Set;
 
 /**
  * A generic class for animals that are infected by Cordyceps.
@@ -54,12 +52,12 @@ public class InfectedAnimal<T extends Animal> extends Animal implements Cordycep
 
     @Override
     public void spread(World world, Class<? extends Animal> hostKind) {
-        Set<Location> neighbours = world.getSurroundingTiles(3);
-        Set<T> nearbyKind = world.getAll(t, neighbours);
-        if (nearbyKind.isEmpty()) return;
-        Random rand = new Random();
-        for (T animal : nearbyKind) {
-            if (rand.nextInt(101) > 80) {
+        this.neighbourCursor.reset(world, world.getCurrentLocation(), 3);
+        while (this.neighbourCursor.next()) {
+            Object o = world.getTile(this.neighbourCursor.getX(), this.neighbourCursor.getY());
+            if (!t.isInstance(o)) continue;
+            if (this.getRandom(world).nextInt(101) > 80) {
+                T animal = t.cast(o);
                 Location l = world.getLocation(animal);
                 InfectedAnimal<? extends Animal> newInfected = new InfectedAnimal<>(hostKind, world, animal);
                 world.setTile(l, newInfected);
@@ -90,12 +88,11 @@ public class InfectedAnimal<T extends Animal> extends Animal implements Cordycep
         if (!this.pathFinder.hasPath() || 
         !(Utilities.objectExistsOnSurroundingTiles(this.foodType, this.pathFinder.getFinalLocationInPath(), world)) ) {
             this.pathFinder.setLocation(world.getLocation(this));
-            this.pathFinder.findPathToNearestBlocking(this.foodType, world);
+            this.pathFinder.findPathToNearestBlocking(this.foodType, world, this.perceptionRadius);
         }
         if (world.isDay()){
-            Location nextStep = this.pathFinder.getPath().poll();
-            if (nextStep == null) this.wander(world);
-            if (world.isTileEmpty(nextStep)) world.move(this, nextStep);
+            Location nextStep = this.pathFinder.takeNextStep(world.getLocation(this), world);
+            if (nextStep != null) world.move(this, nextStep);
             else this.wander(world);
         }else {
             this.wander(world);
@@ -87,6 +87,8 @@ public class Carcass extends NonBlockable implements DynamicDisplayInformationPr
                 this.age(world);
             }
         }
+        // Carcasses only age at the start of a day, so there's nothing to do until then
+        if(world.contains(this)) world.sleepUntil(this, world.getNextStepAtTime(0));
     }
 
     public void infectWithFungi(World world) {
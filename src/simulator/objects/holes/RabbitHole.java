@@ -2,6 +2,7 @@ package simulator.objects.holes;
 
 
 import itumulator.world.Location;
+import itumulator.world.NeighbourCursor;
 import itumulator.world.World;
 import simulator.actors.Animal;
 import simulator.actors.Predator;
@@ -10,17 +11,38 @@ import java.util.Set;
 
 public class RabbitHole extends Hole{
     private RabbitHoleNetwork network;
+    private boolean destroyed;
+    private final NeighbourCursor neighbourCursor;
 
+    /**
+     * Creates a hole which isn't part of a network yet. It joins the network of its world once a rabbit uses it,
+     * or when added with {@link RabbitHoleNetwork#addHole(RabbitHole)}.
+     */
     public RabbitHole() {
         super();
+        this.neighbourCursor = new NeighbourCursor();
         this.inhabitants = null;
-        this.network = RabbitHoleNetwork.getInstance();
-        this.network.addHole(this);
-        //System.out.println(this + " is part of " + this.network);
+    }
+
+    /**
+     * Sets the network the hole leads to. Called by the network adding it
+     */
+    void joinNetwork(RabbitHoleNetwork network) {
+        this.network = network;
+    }
+
+    /**
+     * Provides the network the hole leads to, joining the network of the world if it hasn't got one yet
+     */
+    private RabbitHoleNetwork getNetwork(World world) {
+        if (this.network == null && !this.destroyed) {
+            RabbitHoleNetwork.of(world).addHole(this);
+        }
+        return this.network;
     }
 
     public void enterRabbit(Animal rabbit, World world) {
-        if (this.network == null) {return;}
+        if (this.getNetwork(world) == null) {return;}
         if (this.network.getInhabitants().contains(rabbit)) {return;}
 
         Location rabbitLocation = world.getLocation(rabbit);
@@ -31,24 +53,31 @@ public class RabbitHole extends Hole{
     }
 
     public void exitRabbit(Animal rabbit, World world) {
+        if (this.getNetwork(world) == null) {return;}
         Location holeLocation = this.getLocation(world);
         if (world.isTileEmpty(holeLocation)) {
             this.network.animalExits(rabbit);
             world.setTile(holeLocation, rabbit);
         } else {
-            Set<Location> tiles = world.getEmptySurroundingTiles(holeLocation);
-            if (tiles.isEmpty()) {
+            int emptyTiles = world.getEmptyNeighbourMask(holeLocation.getX(), holeLocation.getY());
+            if (emptyTiles == 0) {
                 return;
             }
+            int direction = Integer.numberOfTrailingZeros(emptyTiles);
             this.network.animalExits(rabbit);
-            world.setTile(tiles.iterator().next(), rabbit);
+            world.setTile(world.locationOf(holeLocation.getX() + World.getNeighbourDx(direction),
+                                       holeLocation.getY() + World.getNeighbourDy(direction)), rabbit);
         }
     }
 
     public boolean predatorNearby(World world){
-        Set<Location> neighbors = world.getSurroundingTiles(this.getLocation(world), 3);
-        Set<Predator> nearbyPredator = world.getAll(Predator.class, neighbors);
-        return !nearbyPredator.isEmpty();
+        this.neighbourCursor.reset(world, this.getLocation(world), 3);
+        while (this.neighbourCursor.next()) {
+            if (world.getTile(this.neighbourCursor.getX(), this.neighbourCursor.getY()) instanceof Predator) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -59,10 +88,12 @@ public class RabbitHole extends Hole{
     public void destroyHole(World world) {
         super.destroyHole(world);
         network = null;
+        destroyed = true;
     }
 
     @Override
     public Set<Animal> getInhabitants() {
+        if (network == null) return Set.of();
         return network.getInhabitants();
     }
 
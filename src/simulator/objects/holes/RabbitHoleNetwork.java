@@ -2,40 +2,56 @@ package simulator.objects.holes;
 
 import itumulator.world.Location;
 import itumulator.world.World;
+import itumulator.world.WorldRandom;
 import simulator.actors.Animal;
 import simulator.actors.Rabbit;
 
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Random;
+import java.util.LinkedHashSet;
+import java.util.SplittableRandom;
 import java.util.Set;
 
+/**
+ * The burrows of the rabbits in a world. Every entrance leads to the same network, so a rabbit may enter through one hole and
+ * exit through another. Each world has its own network, see {@link #of(World)}.
+ */
 public class RabbitHoleNetwork {
     private Set<RabbitHole> entrances;
     private Set<Animal> inhabitants;
-
-    private static RabbitHoleNetwork instance;
+    // The network's own stream of random numbers, split off from the world's when first needed
+    private SplittableRandom random;
 
     private RabbitHoleNetwork(){
-        this.entrances = new HashSet<>();
+        // Ordered, so the entrances are visited in the same order every run
+        this.entrances = new LinkedHashSet<>();
         this.inhabitants = new HashSet<>();
     }
 
-    public static synchronized RabbitHoleNetwork getInstance(){
-        if(instance == null){
-            instance = new RabbitHoleNetwork();
-        }
-        return instance;
+    /**
+     * Provides the network of a world
+     *
+     * @param world - reference to the world
+     * @return the network of the world
+     */
+    public static RabbitHoleNetwork of(World world) {
+        return world.getService(RabbitHoleNetwork.class, w -> new RabbitHoleNetwork());
     }
 
+    /**
+     * Makes a hole an entrance to this network
+     *
+     * @param hole - the hole to add
+     */
     public void addHole(RabbitHole hole) {
         this.entrances.add(hole);
+        hole.joinNetwork(this);
     }
 
     public void createHole(World world, Location location) {
         if (world.containsNonBlocking(location)) return;
         RabbitHole hole = new RabbitHole();
-        this.entrances.add(hole);
+        this.addHole(hole);
         world.setTile(location, hole);
     }
     public void destroyHole(World world, RabbitHole hole) {
@@ -44,25 +60,36 @@ public class RabbitHoleNetwork {
         hole.destroyHole(world);
     }
     public void destroyAllHoles(World world) {
-        Iterator<RabbitHole> it = this.entrances.iterator();
-        while (it.hasNext()) {
-            destroyHole(world, it.next());
+        // Copied, as destroying a hole removes it from the entrances
+        for (RabbitHole hole : new ArrayList<>(this.entrances)) {
+            destroyHole(world, hole);
         }
     }
 
+    /**
+     * Provides the locations of the entrances on the map, found through the world's index of types
+     *
+     * @param world - reference to the world
+     * @return the locations of the entrances
+     */
     public Set<Location> getHoleLocation (World world) {
         Set<Location> locations = new HashSet<>();
-        for (RabbitHole hole : this.entrances) {
-            locations.add(hole.getLocation(world));
-        }
+        world.forEachLocationOf(RabbitHole.class, location -> {
+            if (this.entrances.contains(world.getNonBlocking(location))) locations.add(location);
+        });
         return locations;
     }
 
+    /**
+     * Provides the entrance on a tile
+     *
+     * @param world - reference to the world
+     * @param location - the tile to look at
+     * @return the entrance, or null if the tile has no entrance to this network
+     */
     public RabbitHole getHoleFromLocation(World world, Location location) {
-        for (RabbitHole hole : this.entrances) {
-            if (hole.getLocation(world).equals(location)) {
-                return hole;
-            }
+        if (world.getNonBlocking(location) instanceof RabbitHole hole && this.entrances.contains(hole)) {
+            return hole;
         }
         return null;
     }
@@ -78,10 +105,10 @@ public class RabbitHoleNetwork {
     public Set<RabbitHole> getEntrances() {return this.entrances;}
 
     public void reproduceInhabitant(World world) {
-        Random rand = new Random();
+        if (this.random == null) this.random = WorldRandom.of(world).split();
         Set<Animal> offSprings = new HashSet<>();
         for (int i = 0; i < this.inhabitants.size(); i++){
-            if (this.inhabitants.size() > 1 && rand.nextInt(20) == 4 && offSprings.size() < this.inhabitants.size()/2) {
+            if (this.inhabitants.size() > 1 && this.random.nextInt(20) == 4 && offSprings.size() < this.inhabitants.size()/2) {
                 Animal offspring = new Rabbit();
                 offSprings.add(offspring);
             }
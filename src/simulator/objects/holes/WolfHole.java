@@ -1,10 +1,10 @@
 package simulator.objects.holes;
 
-import java.util.Set;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.awt.Color;
 
 import itumulator.world.World;
+import itumulator.world.WorldRandom;
 import itumulator.world.Location;
 import itumulator.executable.DisplayInformation;
 import itumulator.executable.DynamicDisplayInformationProvider;
@@ -16,12 +16,19 @@ import simulator.actors.Wolf;
 public class WolfHole extends Hole {
 
     private boolean hasAttemptedToReproduce;
+    // The hole's own stream of random numbers, split off from the world's when first needed
+    private SplittableRandom random;
 
     public WolfHole() {
         super();
         this.hasAttemptedToReproduce = false;
     }
 
+    private SplittableRandom getRandom(World world) {
+        if(this.random == null) this.random = WorldRandom.of(world).split();
+        return this.random;
+    }
+
     /**
      * Makes wolf enter hole.
      * NOTE: We have some redundancy across RabbitHole And WolfHole, let's fix that at some point.
@@ -61,11 +68,13 @@ public class WolfHole extends Hole {
             world.setCurrentLocation(holeLocation);
             super.animalRemove(wolf);
         }else { // Otherwise, attempt to exit onto surrounding tile
-            Set<Location> surroundingLocations = world.getEmptySurroundingTiles(holeLocation);
+            final int emptyNeighbours = world.getEmptyNeighbourMask(holeLocation.getX(), holeLocation.getY());
             // Hole exit is blocked
-            if(surroundingLocations.size() == 0) return;
+            if(emptyNeighbours == 0) return;
 
-            final Location exitLocation = surroundingLocations.iterator().next();
+            final int direction = Integer.numberOfTrailingZeros(emptyNeighbours);
+            final Location exitLocation = world.locationOf(holeLocation.getX() + World.getNeighbourDx(direction),
+                                                       holeLocation.getY() + World.getNeighbourDy(direction));
             world.setCurrentLocation(exitLocation);
             world.setTile(exitLocation, wolf);
             super.animalRemove(wolf);
@@ -95,7 +104,7 @@ public class WolfHole extends Hole {
     public void reproduce(World world) {
         if(this.hasAttemptedToReproduce) return;
         else if(this.getInhabitants().size() < 2) return;
-        else if( (new Random()).nextInt(10) != 0 ) return;
+        else if( this.getRandom(world).nextInt(10) != 0 ) return;
 
         Wolf newWolf = new Wolf();
         newWolf.joinWolfPack(((Wolf)this.getInhabitants().iterator().next()).getWolfPack());
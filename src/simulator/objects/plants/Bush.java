@@ -2,9 +2,12 @@ package simulator.objects.plants;
 
 import itumulator.executable.DisplayInformation;
 import itumulator.executable.DynamicDisplayInformationProvider;
+import itumulator.simulator.IntentActor;
+import itumulator.world.Location;
+import itumulator.world.MapView;
 import itumulator.world.World;
 import java.awt.*;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Bush is a plant that grows berries after time.
@@ -16,25 +19,40 @@ import java.util.Random;
  * of them to be removed, the spread chance is very low(3%).
  *
  */
-public class Bush extends Plant implements DynamicDisplayInformationProvider {
+public class Bush extends Plant implements IntentActor<Plant.Growth>, DynamicDisplayInformationProvider {
 
     public static final DisplayInformation regularBush = new DisplayInformation(Color.red, "bush");
     public static final DisplayInformation ripeBush = new DisplayInformation(Color.red, "bush-berries");
 
     public static final int bushMaxAge = 6;
+    // Chances of a bush spreading and growing, between 0-100
+    static final int SPREAD_CHANCE = 3;
+    static final int GROWTH_CHANCE = 10;
     protected int bushAge;
 
     public Bush() {
-        super(3, 10, () -> {return new Bush();});
+        super(SPREAD_CHANCE, GROWTH_CHANCE, () -> {return new Bush();});
         this.bushAge = 0;
     }
 
     @Override
     public void act(World world) {
-        Random rand = new Random();
-        
-        this.spread(world, rand);
-        this.grow(rand);
+        this.commit(this.plan(world, world.getCurrentLocation(), this.getRandom(world)), world);
+    }
+
+    /**
+     * Plans whether the bush spreads and grows this step, see act()
+     */
+    @Override
+    public Plant.Growth plan(MapView map, Location location, RandomGenerator random) {
+        return this.planGrowth(map, location, random);
+    }
+
+    @Override
+    public void commit(Plant.Growth growth, World world) {
+        // Grown by the vegetation field from now on, if it's enabled
+        if(VegetationField.isEnabled(world) && VegetationField.of(world).adopt(this)) return;
+        this.commitGrowth(growth, world);
 
         if(world.getCurrentTime() == 0)
             this.bushAge++;
@@ -1,6 +1,7 @@
 package simulator.objects.plants;
 
 import itumulator.world.Location;
+import itumulator.world.NeighbourCursor;
 import itumulator.world.World;
 import itumulator.executable.DisplayInformation;
 import itumulator.executable.DynamicDisplayInformationProvider;
@@ -8,14 +9,14 @@ import simulator.objects.Carcass;
 import simulator.objects.NonBlockable;
 
 import java.awt.*;
-import java.util.Random;
-import java.util.Set;
+import java.util.random.RandomGenerator;
 
 public class Fungi extends Plant implements DynamicDisplayInformationProvider {
 
     private final boolean isLarge;
     private int currentAge;
     private final int maxAge;
+    private final NeighbourCursor neighbourCursor;
 
     static final DisplayInformation fungiLarge = new DisplayInformation(Color.yellow, "fungi");
     static final DisplayInformation fungiSmall = new DisplayInformation(Color.yellow, "fungi-small");
@@ -26,6 +27,7 @@ public class Fungi extends Plant implements DynamicDisplayInformationProvider {
         this.currentAge = 0;
         if (isLarge) this.maxAge = 5;
         else this.maxAge = 3;  // Large fungi lasts longer than small fungi
+        this.neighbourCursor = new NeighbourCursor();
     }
 
     @Override
@@ -47,10 +49,8 @@ public class Fungi extends Plant implements DynamicDisplayInformationProvider {
         if (!world.contains(this)) {
             return; // Exit early if the Fungi is no longer in the world
         }
-        Random random = new Random();
-
         // Attempt to spread to nearby carcasses
-        boolean spreadSuccessful = this.spreadToNearbyCarcass(world, random);
+        boolean spreadSuccessful = this.spreadToNearbyCarcass(world, this.getRandom(world));
 
         // If it isnt surrounded by carcass' age fungi
         if (!CarcassNearby(world)) {
@@ -67,27 +67,28 @@ public class Fungi extends Plant implements DynamicDisplayInformationProvider {
         if (!world.contains(this)) {
             return false;
         }
-        Set<Location> nearbyLocations = world.getSurroundingTiles(world.getLocation(this), 2);
-        boolean carcassNearby = false;
-        for (Location location : nearbyLocations) {
-            if (world.containsNonBlocking(location) && world.getNonBlocking(location) instanceof Carcass) {
-                carcassNearby = true;
+        this.neighbourCursor.reset(world, world.getLocation(this), 2);
+        while (this.neighbourCursor.next()) {
+            int x = this.neighbourCursor.getX(), y = this.neighbourCursor.getY();
+            if (world.containsNonBlocking(x, y) && world.getNonBlocking(x, y) instanceof Carcass) {
+                return true;
             }
         }
-        return carcassNearby;
+        return false;
     }
 
-    private boolean spreadToNearbyCarcass(World world, Random random) {
+    private boolean spreadToNearbyCarcass(World world, RandomGenerator random) {
         if (!world.contains(this)) {
             return false;
         }
             Location currentLocation = world.getLocation(this);
-            Set<Location> nearbyLocations = world.getSurroundingTiles(currentLocation, 2); // Get tiles in a 2-tile radius
+            this.neighbourCursor.reset(world, currentLocation, 2); // Visit tiles in a 2-tile radius
             boolean spread = false;
 
-            for (Location location : nearbyLocations) {
-                if (world.containsNonBlocking(location) &&
-                        world.getNonBlocking(location) instanceof Carcass carcass &&
+            while (this.neighbourCursor.next()) {
+                int x = this.neighbourCursor.getX(), y = this.neighbourCursor.getY();
+                if (world.containsNonBlocking(x, y) &&
+                        world.getNonBlocking(x, y) instanceof Carcass carcass &&
                         !carcass.hasFungi()) {
                     if (random.nextInt(1, 101) <= this.spreadChance) {
                         carcass.infectWithFungi(world); // Infect the carcass with fungi
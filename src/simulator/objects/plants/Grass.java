@@ -2,23 +2,29 @@ package simulator.objects.plants;
 
 import itumulator.executable.DisplayInformation;
 import itumulator.executable.DynamicDisplayInformationProvider;
+import itumulator.simulator.IntentActor;
+import itumulator.world.Location;
+import itumulator.world.MapView;
 import itumulator.world.World;
 import java.awt.*;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Class to create grass. Grass can spread own its own and has different stages it goes through as it is growing.
  * Certain animals can eat grass to regain energy.
  * @author Moto
  */
-public class Grass extends Plant implements DynamicDisplayInformationProvider {
+public class Grass extends Plant implements IntentActor<Plant.Growth>, DynamicDisplayInformationProvider {
 
     static final DisplayInformation yellowGrass = new DisplayInformation(Color.yellow, "grass1");
     static final DisplayInformation greenGrass = new DisplayInformation(Color.green, "grass2");
 
+    // Chances of grass spreading and growing, between 0-100
+    static final int SPREAD_CHANCE = 10;
+    static final int GROWTH_CHANCE = 25;
+
     public Grass() {
-        // spread chance 10/100, growth chance 25/100, how to call the grass constructor
-        super(10, 25, () -> {return new Grass();} );
+        super(SPREAD_CHANCE, GROWTH_CHANCE, () -> {return new Grass();} );
     }
 
     /**
@@ -29,10 +35,22 @@ public class Grass extends Plant implements DynamicDisplayInformationProvider {
      */
     @Override
     public void act(World world) {
-        Random rand = new Random();
+        this.commit(this.plan(world, world.getCurrentLocation(), this.getRandom(world)), world);
+    }
+
+    /**
+     * Plans whether the grass spreads and grows this step, see act()
+     */
+    @Override
+    public Plant.Growth plan(MapView map, Location location, RandomGenerator random) {
+        return this.planGrowth(map, location, random);
+    }
 
-        this.spread(world, rand);
-        this.grow(rand);
+    @Override
+    public void commit(Plant.Growth growth, World world) {
+        // Grown by the vegetation field from now on, if it's enabled
+        if(VegetationField.isEnabled(world) && VegetationField.of(world).adopt(this)) return;
+        this.commitGrowth(growth, world);
     }
 
     /**
@@ -42,6 +60,10 @@ public class Grass extends Plant implements DynamicDisplayInformationProvider {
      */
     @Override
     public boolean consume(World world) {
+        if(this.field != null) {
+            Location location = world.getLocation(this);
+            return this.field.consume(world, location.getX(), location.getY());
+        }
         world.delete(this);
         return true;
     }
@@ -1,12 +1,14 @@
 package simulator.objects.plants;
 
-import java.util.Random;
-import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 import java.util.function.Supplier;
 
 import itumulator.simulator.Actor;
 import itumulator.world.World;
 import itumulator.world.Location;
+import itumulator.world.MapView;
+import itumulator.world.WorldRandom;
 
 import simulator.util.Utilities;
 import simulator.objects.NonBlockable;
@@ -36,6 +38,19 @@ public abstract class Plant extends NonBlockable implements Actor {
         }
     }
 
+    /**
+     * What a plant has planned for a step, see planGrowth()
+     */
+    public static final class Growth {
+        final int spreadTo; // tile index (y * size + x) to spread to, or -1
+        final boolean grows;
+
+        Growth(int spreadTo, boolean grows) {
+            this.spreadTo = spreadTo;
+            this.grows = grows;
+        }
+    }
+
     // Growth state
     Stage currentStage;
     // Chances of plant spreading, between 0-100
@@ -44,6 +59,10 @@ public abstract class Plant extends NonBlockable implements Actor {
     protected final int growthChance;
 
     final Supplier<? extends Plant> dynamicPlantInstanceSuplier;
+    // The plant's own stream of random numbers, split off from the world's when first needed
+    private SplittableRandom random;
+    // The VegetationField growing the plant rather than it acting on its own, or null
+    VegetationField field;
 
     public Plant(final int spreadChance, final int growthChance, final Supplier<? extends Plant> dynamicPlantInstanceSuplier) {
         this.currentStage = Stage.NOT_GROWN;
@@ -53,41 +72,54 @@ public abstract class Plant extends NonBlockable implements Actor {
     }
 
     /**
-     * Attempt to make the plant grow to its next stage.
-     * Uses the growth chance of the plant to determine if it should grow.
+     * Provides the plant's own random numbers, derived from the seed of the world (see {@link WorldRandom})
      *
-     * @param random instance of Random
+     * @param world - reference to the world
+     * @return the random numbers of the plant
      */
-    protected void grow(Random random) {
+    protected RandomGenerator getRandom(World world) {
+        if(this.random == null) this.random = WorldRandom.of(world).split();
+        return this.random;
+    }
 
-        if(random.nextInt(1, 101) <= this.growthChance) {
-            this.currentStage = this.currentStage.getNext();
+    /**
+     * Plans whether the plant spreads and grows. A ripe plant may spread to a random neighbouring tile without a non-blocking object,
+     * using the spread chance, after which the growth chance decides whether it grows to its next stage.
+     * Only reads the map, so many plants may plan at once.
+     *
+     * @param map the map to read, e.g. the world
+     * @param location location of the plant
+     * @param random the random numbers to draw from
+     * @return the plan, or null if nothing happens
+     */
+    protected Growth planGrowth(MapView map, Location location, RandomGenerator random) {
+        int spreadTo = -1;
+        if(this.currentStage == Stage.RIPE && random.nextInt(1, 101) <= this.spreadChance) {
+            final int freeNeighbours = map.getNonBlockingFreeNeighbourMask(location.getX(), location.getY());
+            final int direction = Utilities.getRandomBit(freeNeighbours, random);
+            if(direction != -1)
+                spreadTo = (location.getY() + World.getNeighbourDy(direction)) * map.getSize() + location.getX() + World.getNeighbourDx(direction);
         }
+        final boolean grows = random.nextInt(1, 101) <= this.growthChance;
+
+        if(spreadTo == -1 && !grows) return null;
+        return new Growth(spreadTo, grows);
     }
 
     /**
-     * Attempt to make plant to spread to surrounding tiles
-     * Assumes that current location is set correctly.
+     * Carries out a plan made by planGrowth(). If another plant has spread to the tile first, this one doesn't spread
      *
-     * @param random Instace of Random
+     * @param growth the plan, or null
      * @param world reference to the world
      */
-    protected void spread(World world, Random random) {
-        // If not ripe, then don't spread
-        // If spread rng fails, then also don't spread
-        if(this.currentStage != Stage.RIPE || 
-           random.nextInt(1, 101) > this.spreadChance) return;
-
-        // Assuming current location is set correctly
-        // This spread method is usually used from within the act method
-        Set<Location> neighbours = world.getSurroundingTiles();
-        neighbours.removeIf(world::containsNonBlocking);
-
-        // Returns null if set was empty
-        Location location = Utilities.getRandomFromSet(neighbours, random);
-        if(location == null) return;
-
-        world.setTile(location, this.dynamicPlantInstanceSuplier.get());
+    protected void commitGrowth(Growth growth, World world) {
+        if(growth == null) return;
+
+        if(growth.spreadTo != -1) {
+            final int x = growth.spreadTo % world.getSize(), y = growth.spreadTo / world.getSize();
+            if(!world.containsNonBlocking(x, y)) world.setTile(world.locationOf(x, y), this.dynamicPlantInstanceSuplier.get());
+        }
+        if(growth.grows) this.currentStage = this.currentStage.getNext();
     }
 
     public Stage getCurrentStage() {
@@ -96,6 +128,7 @@ public abstract class Plant extends NonBlockable implements Actor {
 
     public void setToRipe () { //For testing
         this.currentStage = Stage.RIPE;
+        if(this.field != null) this.field.ripen(this);
     }
 
     public int getSpreadChance() {
@@ -103,6 +136,10 @@ public abstract class Plant extends NonBlockable implements Actor {
     } 
 
     public boolean consume(World world) {
+        if(this.field != null) {
+            Location location = world.getLocation(this);
+            return this.field.consume(world, location.getX(), location.getY());
+        }
         if(this.currentStage != Stage.RIPE) return false;
 
         this.currentStage = Stage.SPROUTING;
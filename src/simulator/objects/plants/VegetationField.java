@@ -0,0 +1,244 @@
+package simulator.objects.plants;
+
+import itumulator.simulator.Actor;
+import itumulator.world.Location;
+import itumulator.world.World;
+import itumulator.world.WorldRandom;
+
+import simulator.util.Utilities;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Grass and bushes of a world kept as one byte per tile (kind, growth stage and age), and grown in a single pass over the map each step
+ * rather than by every plant acting on its own. Disabled by default, see {@link #enable()}.
+ *
+ * The Grass and Bush objects stay on the map, so they are drawn and found like before, but they no longer act: the field puts them to sleep
+ * and updates their stage whenever it changes. Plants placed after the field is enabled are taken over the first time they act.
+ * Eating a plant should go through {@link #consume(World, int, int)} (which Plant.consume does for plants in the field), so the field and the
+ * objects agree. Should a plant be deleted some other way, its tile is cleared the next time the field tries to change it.
+ *
+ * The field acts once per step, after the actors that were in the world when it was enabled. Each world has its own field, see {@link #of(World)}.
+ */
+public class VegetationField implements Actor {
+    private static final int NONE = 0, GRASS = 1, BUSH = 2;
+    private static final int KIND_MASK = 0b11;
+    private static final int STAGE_SHIFT = 2, STAGE_MASK = 0b111;
+    private static final int AGE_SHIFT = 5, MAX_AGE = 0b111;
+    private static final Plant.Stage[] STAGES = Plant.Stage.values();
+    private static final int NOT_GROWN = Plant.Stage.NOT_GROWN.ordinal();
+    private static final int SPROUTING = Plant.Stage.SPROUTING.ordinal();
+    private static final int RIPE = Plant.Stage.RIPE.ordinal();
+
+    private final World world;
+    private final int size;
+    private final byte[] cells; // kind | stage << STAGE_SHIFT | age << AGE_SHIFT, per tile (index y * size + x)
+    private int[] births; // tiles spread to during the current pass (tile << 2 | kind)
+    private int birthCount;
+    private SplittableRandom random;
+    private boolean enabled;
+
+    private VegetationField(World world) {
+        this.world = world;
+        this.size = world.getSize();
+        this.cells = new byte[this.size * this.size];
+        this.births = new int[64];
+    }
+
+    /**
+     * Provides the vegetation field of a world
+     *
+     * @param world - reference to the world
+     * @return the field of the world
+     */
+    public static VegetationField of(World world) {
+        return world.getService(VegetationField.class, VegetationField::new);
+    }
+
+    /**
+     * Checks whether a world has a vegetation field growing its plants, without creating the field if it has none
+     *
+     * @param world - reference to the world
+     * @return whether the field of the world is enabled
+     */
+    public static boolean isEnabled(World world) {
+        final VegetationField field = world.findService(VegetationField.class);
+        return field != null && field.enabled;
+    }
+
+    /**
+     * Takes over every Grass and Bush on the map, and starts growing them each step. Must be called on the thread simulating the world
+     */
+    public void enable() {
+        if(this.enabled) return;
+        this.enabled = true;
+        this.random = WorldRandom.of(this.world).split();
+        this.world.add(this);
+
+        for(Location location : this.world.locationsOf(Grass.class)) this.adopt((Plant)this.world.getNonBlocking(location), location);
+        for(Location location : this.world.locationsOf(Bush.class)) this.adopt((Plant)this.world.getNonBlocking(location), location);
+    }
+
+    /**
+     * Checks whether the field grows the plants of the world
+     *
+     * @return whether the field is enabled
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Takes over a plant acting on its own, if the field is enabled
+     *
+     * @param plant - the plant, which must be on the current location of the world
+     * @return whether the plant was taken over, in which case it shouldn't act
+     */
+    boolean adopt(Plant plant) {
+        if(!this.enabled) return false;
+        this.adopt(plant, this.world.getCurrentLocation());
+        return true;
+    }
+
+    /**
+     * Eats the plant on a tile: grass is deleted, while a bush loses its berries if it's ripe.
+     * Plants not in the field (e.g. while it's disabled) are eaten through Plant.consume
+     *
+     * @param world - reference to the world
+     * @param x - coordinate of the tile
+     * @param y - coordinate of the tile
+     * @return whether anything was eaten
+     */
+    public boolean consume(World world, int x, int y) {
+        final int tile = y * this.size + x;
+        final int cell = this.cells[tile] & 0xFF;
+        if(cell == NONE) {
+            return world.getNonBlocking(x, y) instanceof Plant plant && plant.field == null && plant.consume(world);
+        }
+
+        final int kind = cell & KIND_MASK;
+        final Plant plant = this.plantAt(tile, kind);
+        if(plant == null) return false;
+        if(kind == GRASS) {
+            this.cells[tile] = NONE;
+            world.delete(plant);
+            return true;
+        }
+        if(((cell >>> STAGE_SHIFT) & STAGE_MASK) != RIPE) return false;
+        this.cells[tile] = encode(kind, SPROUTING, cell >>> AGE_SHIFT);
+        plant.currentStage = STAGES[SPROUTING];
+        return true;
+    }
+
+    /**
+     * Makes the tile of a plant in the field ripe, after the plant itself was (see Plant.setToRipe)
+     *
+     * @param plant - the plant, which may have been taken off the map
+     */
+    void ripen(Plant plant) {
+        if(!this.world.contains(plant) || !this.world.isOnTile(plant)) return;
+        final Location location = this.world.getLocation(plant);
+        final int tile = location.getY() * this.size + location.getX();
+        final int cell = this.cells[tile] & 0xFF;
+        if(cell == NONE) return;
+        this.cells[tile] = encode(cell & KIND_MASK, RIPE, cell >>> AGE_SHIFT);
+    }
+
+    /**
+     * Grows every plant of the field one step, drawing the same chances as the plants would on their own
+     *
+     * @param world - reference to the world
+     */
+    @Override
+    public void act(World world) {
+        final boolean newDay = world.getCurrentTime() == 0;
+        final byte[] cells = this.cells;
+
+        for(int tile = 0; tile < cells.length; tile++) {
+            final int cell = cells[tile] & 0xFF;
+            if(cell == NONE) continue;
+            final int kind = cell & KIND_MASK;
+            final int stage = (cell >>> STAGE_SHIFT) & STAGE_MASK;
+            int age = cell >>> AGE_SHIFT;
+
+            if(stage == RIPE && this.random.nextInt(100) < (kind == GRASS ? Grass.SPREAD_CHANCE : Bush.SPREAD_CHANCE)) {
+                if(this.plantAt(tile, kind) == null) continue;
+                this.spread(tile, kind);
+            }
+
+            int next = stage;
+            if(stage >= NOT_GROWN && stage < RIPE && this.random.nextInt(100) < (kind == GRASS ? Grass.GROWTH_CHANCE : Bush.GROWTH_CHANCE)) next++;
+
+            // Bushes are deleted after a certain number of days, see Bush
+            if(kind == BUSH && newDay) {
+                age = Math.min(age + 1, MAX_AGE);
+                if(age > Bush.bushMaxAge) {
+                    final Plant bush = this.plantAt(tile, kind);
+                    if(bush != null) world.delete(bush);
+                    cells[tile] = NONE;
+                    continue;
+                }
+            }
+
+            if(next != stage) {
+                final Plant plant = this.plantAt(tile, kind);
+                if(plant == null) continue;
+                plant.currentStage = STAGES[next];
+            }
+            cells[tile] = encode(kind, next, age);
+        }
+
+        // Plants spread to this step start growing from the next
+        for(int i = 0; i < this.birthCount; i++) {
+            this.cells[this.births[i] >>> 2] = encode(this.births[i] & KIND_MASK, NOT_GROWN, 0);
+        }
+        this.birthCount = 0;
+    }
+
+    private void spread(int tile, int kind) {
+        final int x = tile % this.size, y = tile / this.size;
+        final int direction = Utilities.getRandomBit(this.world.getNonBlockingFreeNeighbourMask(x, y), this.random);
+        if(direction == -1) return;
+
+        final int nx = x + World.getNeighbourDx(direction), ny = y + World.getNeighbourDy(direction);
+        final int target = ny * this.size + nx;
+        final Plant plant = kind == GRASS ? new Grass() : new Bush();
+        this.world.setTile(this.world.locationOf(nx, ny), plant);
+        this.hold(plant);
+
+        // The tile is set once the pass is done, so the plant isn't grown in the pass it was spread in
+        this.cells[target] = NONE;
+        if(this.birthCount == this.births.length) this.births = Arrays.copyOf(this.births, this.birthCount * 2);
+        this.births[this.birthCount++] = target << 2 | kind;
+    }
+
+    private void adopt(Plant plant, Location location) {
+        final int kind = plant instanceof Grass ? GRASS : BUSH;
+        final int age = plant instanceof Bush bush ? Math.min(bush.bushAge, MAX_AGE) : 0;
+        this.cells[location.getY() * this.size + location.getX()] = encode(kind, plant.currentStage.ordinal(), age);
+        this.hold(plant);
+    }
+
+    /**
+     * Stops a plant from acting on its own
+     */
+    private void hold(Plant plant) {
+        plant.field = this;
+        this.world.sleepUntil(plant, Long.MAX_VALUE);
+    }
+
+    /**
+     * Provides the plant of a tile, clearing the tile if the plant isn't there anymore
+     */
+    private Plant plantAt(int tile, int kind) {
+        final Object object = this.world.getNonBlocking(tile % this.size, tile / this.size);
+        if(object instanceof Plant plant && plant.field == this && (kind == GRASS ? plant instanceof Grass : plant instanceof Bush)) return plant;
+        this.cells[tile] = NONE;
+        return null;
+    }
+
+    private static byte encode(int kind, int stage, int age) {
+        return (byte)(kind | stage << STAGE_SHIFT | age << AGE_SHIFT);
+    }
+}
@@ -0,0 +1,118 @@
+package simulator.util;
+
+import itumulator.world.Location;
+import itumulator.world.World;
+
+
+/**
+ * A* search between two points on the map, used for point to point paths (e.g. a wolf returning to its hole).
+ * Unlike breadth first search, it heads straight for the goal instead of flooding every direction.
+ * Moves are 8-directional and all cost one step, so the Chebyshev distance is used as the estimate of the remaining distance.
+ * Among equally short paths, those staying close to the straight line between start and goal are preferred.
+ *
+ * The bookkeeping is kept in {@link SearchBuffers}, which are reused between searches.
+ * Each world has its own instance searching the world as it is, see {@link #of(World)}.
+ */
+class AStar {
+    // Sort keys are packed into a long: estimated path length, then remaining distance, then distance from the straight line
+    private static final int LINE_BITS = 22;
+    private static final int REMAINING_BITS = 20;
+    private static final long LINE_MASK = (1L << LINE_BITS) - 1;
+    private static final long REMAINING_MASK = (1L << REMAINING_BITS) - 1;
+
+    private final World world;
+    private final Occupancy occupancy;
+    private final int size;
+
+    /**
+     * AStar constructor
+     *
+     * @param world - the world the paths are found in
+     * @param occupancy - which tiles the search may walk through
+     */
+    AStar(World world, Occupancy occupancy) {
+        this.world = world;
+        this.occupancy = occupancy;
+        this.size = world.getSize();
+    }
+
+    /**
+     * Provides the A* search of a world
+     *
+     * @param world - reference to the world
+     * @return the search of the world
+     */
+    static AStar of(World world) {
+        return world.getService(AStar.class, w -> new AStar(w, Occupancy.of(w)));
+    }
+
+    /**
+     * Finds a shortest path from start to goal, walking only through tiles without blocking objects (the goal included).
+     * If start and goal are the same, the path only holds the goal (matching {@link PathFinder#findPath}).
+     *
+     * @param start - the location to start from (usually occupied by the animal asking)
+     * @param goal - the location to reach
+     * @param path - the path the steps are added to, excluding the start. Must be bound to the world
+     * @param maxNodes - the search gives up after looking at this many tiles, see {@link SearchBuffers#cutShort}
+     * @return whether a path was found
+     */
+    boolean findPath(Location start, Location goal, Path path, int maxNodes) {
+        final SearchBuffers buffers = SearchBuffers.of(this.world);
+        buffers.nextSearch();
+        if(start.equals(goal)) {
+            path.add(goal);
+            return true;
+        }
+
+        final int goalX = goal.getX(), goalY = goal.getY();
+        if(!this.occupancy.isTileEmpty(goalX, goalY)) return false;
+
+        final int startIndex = start.getY() * this.size + start.getX();
+        final int goalIndex = goalY * this.size + goalX;
+        buffers.visit(startIndex, startIndex, 0);
+        buffers.push(startIndex, this.key(start.getX(), start.getY(), 0, start, goal));
+
+        while(!buffers.heapIsEmpty()) {
+            final int index = buffers.pop();
+            // Tiles may be in the heap more than once, outdated entries are skipped
+            if(buffers.isClosed(index)) continue;
+            if(buffers.expanded == maxNodes) {
+                buffers.cutShort = true;
+                return false;
+            }
+            buffers.expanded++;
+            buffers.close(index);
+
+            if(index == goalIndex) {
+                buffers.tracePath(startIndex, goalIndex, path);
+                return true;
+            }
+
+            final int x = index % this.size, y = index / this.size;
+            final int nextCost = buffers.cost[index] + 1;
+            final int emptyNeighbours = this.occupancy.getEmptyNeighbourMask(x, y);
+            for(int direction = 0; direction < 8; direction++) {
+                if((emptyNeighbours & (1 << direction)) == 0) continue;
+                final int nx = x + World.getNeighbourDx(direction), ny = y + World.getNeighbourDy(direction);
+                final int neighbour = ny * this.size + nx;
+                if(buffers.isVisited(neighbour) && (buffers.isClosed(neighbour) || buffers.cost[neighbour] <= nextCost)) continue;
+
+                buffers.visit(neighbour, index, nextCost);
+                buffers.push(neighbour, this.key(nx, ny, nextCost, start, goal));
+            }
+        }
+        return false;
+    }
+
+    private long key(int x, int y, int cost, Location start, Location goal) {
+        final int dx = Math.abs(goal.getX() - x), dy = Math.abs(goal.getY() - y);
+        final long remaining = Math.max(dx, dy); // Chebyshev distance, never more than the actual amount of steps left
+
+        // Cross product of (start -> goal) and (tile -> goal) measures how far the tile is from the straight line
+        final long line = Math.abs((long)(start.getX() - goal.getX()) * (y - goal.getY()) - (long)(start.getY() - goal.getY()) * (x - goal.getX()));
+
+        return ((cost + remaining) << (REMAINING_BITS + LINE_BITS))
+             | (Math.min(remaining, REMAINING_MASK) << LINE_BITS)
+             | Math.min(line, LINE_MASK);
+    }
+}
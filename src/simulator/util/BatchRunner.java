@@ -0,0 +1,184 @@
+package simulator.util;
+
+import itumulator.simulator.Simulator;
+import itumulator.world.World;
+import simulator.actors.Animal;
+import simulator.objects.plants.Plant;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs the same input file many times without a graphical interface, e.g. to study how populations turn out across many seeds.
+ * The file is read once, and every run parses it into its own headless world with its own seed, so ranges (e.g. "rabbit 2-4")
+ * and random locations differ between runs. The worlds share nothing, so they are stepped in parallel on a work-stealing pool,
+ * one world per task.
+ *
+ * The population of every species (the class of every animal and plant in the world, including animals inside holes)
+ * is counted before the first step and after every step, and averaged over the runs.
+ */
+public class BatchRunner {
+    private final String input; // contents of the input file
+    private final int parallelism;
+
+    /**
+     * The populations of a batch of runs
+     */
+    public static final class Result {
+        private final int runs;
+        private final int steps;
+        private final Map<Class<?>, double[]> populations; // mean population per step, index 0 being before the first step
+        private final long elapsed; // nanoseconds
+
+        private Result(int runs, int steps, Map<Class<?>, double[]> populations, long elapsed) {
+            this.runs = runs;
+            this.steps = steps;
+            this.populations = populations;
+            this.elapsed = elapsed;
+        }
+
+        public int getRuns() {
+            return this.runs;
+        }
+
+        public int getSteps() {
+            return this.steps;
+        }
+
+        /**
+         * Provides every species seen in any run at any step
+         *
+         * @return the classes of the species
+         */
+        public Set<Class<?>> getSpecies() {
+            return Collections.unmodifiableSet(this.populations.keySet());
+        }
+
+        /**
+         * Provides the population of a species averaged over the runs
+         *
+         * @param species - the class of the species
+         * @return the mean population before the first step (index 0) and after every step, all zero if the species was never seen
+         */
+        public double[] getMeanPopulation(Class<?> species) {
+            double[] population = this.populations.get(species);
+            if(population == null) return new double[this.steps + 1];
+            return population.clone();
+        }
+
+        /**
+         * Provides how many steps of a single world were simulated per second, counting every run
+         *
+         * @return the throughput in world-steps per second
+         */
+        public double getWorldStepsPerSecond() {
+            if(this.elapsed == 0) return 0;
+            return (double)this.runs * this.steps / (this.elapsed / 1e9);
+        }
+    }
+
+    /**
+     * BatchRunner constructor, using a thread per available processor
+     *
+     * @param filePath - Relative or full file path to input file
+     */
+    public BatchRunner(String filePath) throws FileNotFoundException {
+        this(filePath, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * BatchRunner constructor. The file is parsed once right away, so errors in it are thrown here rather than from the runs
+     *
+     * @param filePath - Relative or full file path to input file
+     * @param parallelism - the amount of worlds stepped at once
+     */
+    public BatchRunner(String filePath, int parallelism) throws FileNotFoundException {
+        if(parallelism <= 0) throw new IllegalArgumentException("Parallelism must be greater than 0");
+        File inputFile = new File(filePath);
+        if(!inputFile.isFile()) throw new IllegalArgumentException("Not a file or file not found");
+
+        try(Scanner scanner = new Scanner(inputFile)) {
+            this.input = scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+        }
+        this.parallelism = parallelism;
+        WorldLoader.parseHeadless(this.input, 0);
+    }
+
+    /**
+     * Simulates the input file a number of times
+     *
+     * @param runs - the amount of worlds to simulate
+     * @param steps - the amount of steps to simulate each world
+     * @param seed - seed of the runs. Run i is loaded with a seed derived from this and i
+     * @return the populations of the runs
+     */
+    public Result run(int runs, int steps, long seed) {
+        if(runs <= 0) throw new IllegalArgumentException("Runs must be greater than 0");
+        if(steps < 0) throw new IllegalArgumentException("Steps cannot be negative");
+
+        final ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        final List<ForkJoinTask<Map<Class<?>, int[]>>> tasks = new ArrayList<>(runs);
+        final long start = System.nanoTime();
+        final long elapsed;
+        try {
+            for(int i = 0; i < runs; i++) {
+                final long runSeed = seed + i * 0x9E3779B97F4A7C15L;
+                tasks.add(pool.submit(() -> this.simulate(runSeed, steps)));
+            }
+            for(ForkJoinTask<Map<Class<?>, int[]>> task : tasks) task.join();
+            elapsed = System.nanoTime() - start;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Sum the runs on this thread, in the order they were started
+        Map<Class<?>, double[]> populations = new HashMap<>();
+        for(ForkJoinTask<Map<Class<?>, int[]>> task : tasks) {
+            for(Map.Entry<Class<?>, int[]> entry : task.join().entrySet()) {
+                double[] sum = populations.computeIfAbsent(entry.getKey(), species -> new double[steps + 1]);
+                int[] population = entry.getValue();
+                for(int step = 0; step <= steps; step++) sum[step] += population[step];
+            }
+        }
+        for(double[] sum : populations.values()) {
+            for(int step = 0; step <= steps; step++) sum[step] /= runs;
+        }
+        return new Result(runs, steps, populations, elapsed);
+    }
+
+    /**
+     * Loads and steps a single world
+     *
+     * @return the population of every species before the first step and after every step
+     */
+    private Map<Class<?>, int[]> simulate(long seed, int steps) {
+        WorldLoader loader = WorldLoader.parseHeadless(this.input, seed);
+        Simulator simulator = loader.getProgram().getSimulator();
+        simulator.setSeed(seed);
+        World world = loader.getProgram().getWorld();
+
+        Map<Class<?>, int[]> populations = new HashMap<>();
+        this.count(world, populations, 0, steps);
+        for(int step = 1; step <= steps; step++) {
+            simulator.simulate();
+            this.count(world, populations, step, steps);
+        }
+        return populations;
+    }
+
+    private void count(World world, Map<Class<?>, int[]> populations, int step, int steps) {
+        world.forEachActor(actor -> {
+            if(!(actor instanceof Animal) && !(actor instanceof Plant)) return;
+            populations.computeIfAbsent(actor.getClass(), species -> new int[steps + 1])[step]++;
+        });
+    }
+}
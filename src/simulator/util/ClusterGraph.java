@@ -0,0 +1,369 @@
+package simulator.util;
+
+import itumulator.world.Location;
+import itumulator.world.World;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical path finding (HPA*) for large worlds. The map is split into square clusters, and every stretch of open border
+ * between two clusters gets one or two entrances. Within a cluster, the distances between its entrances are precomputed.
+ * Long paths are first searched for on this much smaller graph of entrances, and then refined into steps by searching
+ * from entrance to entrance, which only ever covers a small area (see {@link AStar}).
+ * Paths found this way are not always the shortest possible, but rarely more than a few steps longer.
+ *
+ * Clusters are kept up to date by listening for changes to blocking objects on the map (see {@link World#addBlockingListener}).
+ * A cluster which changed is only rebuilt once a search reaches it. Only entrances straight across borders are used,
+ * passing diagonally through the corner of a cluster is left to the refinement.
+ *
+ * Used by {@link PathFinder#findPathToLocation} on worlds at least as large as the threshold, see {@link #setThreshold(int)}.
+ * Each world has its own graph, see {@link #of(World)}.
+ */
+public class ClusterGraph {
+    public static final int DEFAULT_THRESHOLD = 200;
+    private static final int CLUSTER_SIZE = 16;
+    // Open stretches of border at least this long get an entrance at each end, shorter ones only one in the middle
+    private static final int SPLIT_ENTRANCE_LENGTH = 6;
+
+    private final World world;
+    private final int size;
+    private final int clustersPerSide;
+    private final boolean[] dirty;
+    private int threshold;
+
+    // Built on the first search
+    private int[][] entrances;   // tile indices of the entrances of each cluster
+    private int[][] distances;   // steps between each pair of entrances of a cluster, -1 if they aren't connected within the cluster
+    private int[] entranceSlot;  // tile index -> position in the entrances of its cluster, or -1
+
+    // Scratch memory
+    private int[] localDistances; // breadth first search within a cluster, indexed by position within the cluster
+    private int[] localQueue;
+    private int[] found;          // entrances found while building a cluster
+    private int[] goalDistances;  // steps from each entrance of the goal's cluster to the goal
+    private int[] waypoints;      // entrances along the path found, refined afterwards
+
+    private ClusterGraph(World world) {
+        this.world = world;
+        this.size = world.getSize();
+        this.clustersPerSide = (this.size + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        this.dirty = new boolean[this.clustersPerSide * this.clustersPerSide];
+        Arrays.fill(this.dirty, true);
+        this.threshold = DEFAULT_THRESHOLD;
+        world.addBlockingListener(this::tileChanged);
+    }
+
+    /**
+     * Provides the cluster graph of a world
+     *
+     * @param world - reference to the world
+     * @return the cluster graph of the world
+     */
+    public static ClusterGraph of(World world) {
+        return world.getService(ClusterGraph.class, ClusterGraph::new);
+    }
+
+    /**
+     * Sets the smallest world size for which paths to locations are found hierarchically
+     *
+     * @param threshold - the size of the world
+     * @throws IllegalArgumentException if the threshold isn't positive
+     */
+    public void setThreshold(int threshold) {
+        if(threshold <= 0) throw new IllegalArgumentException("Threshold must be positive");
+        this.threshold = threshold;
+    }
+
+    /**
+     * Provides the smallest world size for which paths to locations are found hierarchically
+     *
+     * @return the size of the world
+     */
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Checks whether the world is large enough for paths to locations to be found hierarchically
+     *
+     * @return whether the graph is used
+     */
+    public boolean isEnabled() {
+        return this.size >= this.threshold;
+    }
+
+    /**
+     * Finds a path from start to goal, walking only through tiles without blocking objects (the goal included).
+     * Paths over short distances are found directly with {@link AStar}.
+     * Afterwards {@link SearchBuffers#expanded} holds the amount of tiles and entrances searched in total.
+     *
+     * @param start - the location to start from (usually occupied by the animal asking)
+     * @param goal - the location to reach
+     * @param path - the path the steps are added to, excluding the start. Must be bound to the world
+     * @param maxNodes - the search gives up after looking at this many tiles and entrances, see {@link SearchBuffers#cutShort}
+     * @return whether a path was found
+     */
+    synchronized boolean findPath(Location start, Location goal, Path path, int maxNodes) {
+        final AStar astar = AStar.of(this.world);
+        if(Math.max(Math.abs(start.getX() - goal.getX()), Math.abs(start.getY() - goal.getY())) <= 2 * CLUSTER_SIZE)
+            return astar.findPath(start, goal, path, maxNodes);
+        if(!this.world.isTileEmpty(goal.getX(), goal.getY())) {
+            SearchBuffers.of(this.world).nextSearch();
+            return false;
+        }
+
+        final int waypointCount = this.searchEntrances(start, goal, maxNodes);
+        final SearchBuffers buffers = SearchBuffers.of(this.world);
+        if(waypointCount == -1) return false;
+
+        // Refine the path from waypoint to waypoint
+        int expanded = buffers.expanded;
+        final int end = path.size();
+        for(int i = 1; i < waypointCount; i++) {
+            final boolean refined = astar.findPath(this.locationOf(this.waypoints[i - 1]), this.locationOf(this.waypoints[i]), path,
+                                                   (maxNodes == Integer.MAX_VALUE) ? maxNodes : Math.max(maxNodes - expanded, 0));
+            expanded += buffers.expanded;
+            if(!refined) {
+                // Out of budget, or the graph was out of date after all
+                path.truncate(end);
+                buffers.expanded = expanded;
+                return false;
+            }
+        }
+        buffers.expanded = expanded;
+        return true;
+    }
+
+    /**
+     * A* search on the graph of entrances, from start to goal. The entrances along the path found, between start and goal,
+     * are stored in the waypoints.
+     *
+     * @return the amount of waypoints, or -1 if the goal can't be reached
+     */
+    private int searchEntrances(Location start, Location goal, int maxNodes) {
+        if(this.entrances == null) this.allocate();
+        final SearchBuffers buffers = SearchBuffers.of(this.world);
+        final int startTile = start.getY() * this.size + start.getX();
+        final int goalTile = goal.getY() * this.size + goal.getX();
+        final int startCluster = this.clusterOf(startTile), goalCluster = this.clusterOf(goalTile);
+        this.update(startCluster);
+        this.update(goalCluster);
+
+        // Steps from each entrance of the goal's cluster to the goal
+        final int[] goalEntrances = this.entrances[goalCluster];
+        this.searchCluster(goalCluster, goalTile);
+        for(int i = 0; i < goalEntrances.length; i++) this.goalDistances[i] = this.localDistanceOf(goalCluster, goalEntrances[i]);
+
+        buffers.nextSearch();
+        this.relax(buffers, startTile, startTile, 0, goalTile);
+        final int[] startEntrances = this.entrances[startCluster];
+        this.searchCluster(startCluster, startTile);
+        for(int entrance : startEntrances) {
+            final int distance = this.localDistanceOf(startCluster, entrance);
+            if(distance > 0) this.relax(buffers, startTile, entrance, distance, goalTile);
+        }
+
+        while(!buffers.heapIsEmpty()) {
+            final int tile = buffers.pop();
+            if(buffers.isClosed(tile)) continue;
+            if(buffers.expanded == maxNodes) {
+                buffers.cutShort = true;
+                return -1;
+            }
+            buffers.expanded++;
+            buffers.close(tile);
+
+            if(tile == goalTile) return this.traceWaypoints(buffers, startTile, goalTile);
+
+            final int cluster = this.clusterOf(tile);
+            final int slot = this.entranceSlot[tile];
+            final int cost = buffers.cost[tile];
+            // The start is only an entrance if it happens to be free
+            if(slot != -1) {
+                final int[] clusterEntrances = this.entrances[cluster];
+                final int[] clusterDistances = this.distances[cluster];
+
+                // Other entrances of the cluster
+                for(int i = 0; i < clusterEntrances.length; i++) {
+                    final int distance = clusterDistances[slot * clusterEntrances.length + i];
+                    if(distance > 0) this.relax(buffers, tile, clusterEntrances[i], cost + distance, goalTile);
+                }
+                // The goal, if it is in this cluster
+                if(cluster == goalCluster && this.goalDistances[slot] >= 0)
+                    this.relax(buffers, tile, goalTile, cost + this.goalDistances[slot], goalTile);
+            }
+
+            // Entrances straight across the border
+            final int x = tile % this.size, y = tile / this.size;
+            if(x % CLUSTER_SIZE == 0 && x > 0) this.crossBorder(buffers, tile, tile - 1, cost, goalTile);
+            if(x % CLUSTER_SIZE == CLUSTER_SIZE - 1 && x < this.size - 1) this.crossBorder(buffers, tile, tile + 1, cost, goalTile);
+            if(y % CLUSTER_SIZE == 0 && y > 0) this.crossBorder(buffers, tile, tile - this.size, cost, goalTile);
+            if(y % CLUSTER_SIZE == CLUSTER_SIZE - 1 && y < this.size - 1) this.crossBorder(buffers, tile, tile + this.size, cost, goalTile);
+        }
+        return -1;
+    }
+
+    private void crossBorder(SearchBuffers buffers, int from, int to, int cost, int goalTile) {
+        this.update(this.clusterOf(to));
+        if(this.entranceSlot[to] != -1) this.relax(buffers, from, to, cost + 1, goalTile);
+    }
+
+    private void relax(SearchBuffers buffers, int from, int to, int cost, int goalTile) {
+        if(buffers.isVisited(to) && (buffers.isClosed(to) || buffers.cost[to] <= cost)) return;
+        buffers.visit(to, from, cost);
+
+        final int remaining = Math.max(Math.abs(to % this.size - goalTile % this.size), Math.abs(to / this.size - goalTile / this.size));
+        buffers.push(to, ((long)(cost + remaining) << 32) | remaining);
+    }
+
+    private int traceWaypoints(SearchBuffers buffers, int startTile, int goalTile) {
+        int count = 1;
+        for(int tile = goalTile; tile != startTile; tile = buffers.parent[tile]) count++;
+        if(this.waypoints.length < count) this.waypoints = new int[count * 2];
+
+        int i = count;
+        for(int tile = goalTile; tile != startTile; tile = buffers.parent[tile]) this.waypoints[--i] = tile;
+        this.waypoints[0] = startTile;
+        return count;
+    }
+
+    /**
+     * Marks the clusters affected by a change to a tile: its own, and those next to it if the tile is on the border
+     */
+    private void tileChanged(int x, int y) {
+        final int cx = x / CLUSTER_SIZE, cy = y / CLUSTER_SIZE;
+        this.dirty[cy * this.clustersPerSide + cx] = true;
+        if(x % CLUSTER_SIZE == 0 && cx > 0) this.dirty[cy * this.clustersPerSide + cx - 1] = true;
+        if(x % CLUSTER_SIZE == CLUSTER_SIZE - 1 && cx < this.clustersPerSide - 1) this.dirty[cy * this.clustersPerSide + cx + 1] = true;
+        if(y % CLUSTER_SIZE == 0 && cy > 0) this.dirty[(cy - 1) * this.clustersPerSide + cx] = true;
+        if(y % CLUSTER_SIZE == CLUSTER_SIZE - 1 && cy < this.clustersPerSide - 1) this.dirty[(cy + 1) * this.clustersPerSide + cx] = true;
+    }
+
+    private void allocate() {
+        final int clusters = this.clustersPerSide * this.clustersPerSide;
+        this.entrances = new int[clusters][0];
+        this.distances = new int[clusters][0];
+        this.entranceSlot = new int[this.size * this.size];
+        Arrays.fill(this.entranceSlot, -1);
+        this.localDistances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        this.localQueue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        this.found = new int[8 * CLUSTER_SIZE];
+        this.goalDistances = new int[8 * CLUSTER_SIZE];
+        this.waypoints = new int[64];
+    }
+
+    /**
+     * Rebuilds the entrances of a cluster and the distances between them, if the cluster has changed
+     */
+    private void update(int cluster) {
+        if(!this.dirty[cluster]) return;
+        this.dirty[cluster] = false;
+
+        for(int tile : this.entrances[cluster]) this.entranceSlot[tile] = -1;
+
+        final int x0 = (cluster % this.clustersPerSide) * CLUSTER_SIZE, y0 = (cluster / this.clustersPerSide) * CLUSTER_SIZE;
+        final int x1 = Math.min(x0 + CLUSTER_SIZE, this.size) - 1, y1 = Math.min(y0 + CLUSTER_SIZE, this.size) - 1;
+        int count = 0;
+        if(x0 > 0) count = this.findEntrances(x0, y0, 0, 1, y1 - y0 + 1, -1, 0, count);
+        if(x1 < this.size - 1) count = this.findEntrances(x1, y0, 0, 1, y1 - y0 + 1, 1, 0, count);
+        if(y0 > 0) count = this.findEntrances(x0, y0, 1, 0, x1 - x0 + 1, 0, -1, count);
+        if(y1 < this.size - 1) count = this.findEntrances(x0, y1, 1, 0, x1 - x0 + 1, 0, 1, count);
+
+        final int[] clusterEntrances = Arrays.copyOf(this.found, count);
+        final int[] clusterDistances = new int[count * count];
+        for(int i = 0; i < count; i++) this.entranceSlot[clusterEntrances[i]] = i;
+        for(int i = 0; i < count; i++) {
+            this.searchCluster(cluster, clusterEntrances[i]);
+            for(int j = 0; j < count; j++) clusterDistances[i * count + j] = this.localDistanceOf(cluster, clusterEntrances[j]);
+        }
+        this.entrances[cluster] = clusterEntrances;
+        this.distances[cluster] = clusterDistances;
+    }
+
+    /**
+     * Finds the entrances along one border of a cluster: stretches where both the tile in the cluster and the one across are free
+     *
+     * @param x - coordinate of the first tile of the border, within the cluster
+     * @param y - coordinate of the first tile of the border, within the cluster
+     * @param stepX - direction along the border
+     * @param stepY - direction along the border
+     * @param length - amount of tiles along the border
+     * @param acrossX - direction across the border
+     * @param acrossY - direction across the border
+     * @param count - amount of entrances found so far
+     * @return amount of entrances found including those on this border
+     */
+    private int findEntrances(int x, int y, int stepX, int stepY, int length, int acrossX, int acrossY, int count) {
+        int runStart = -1;
+        for(int i = 0; i <= length; i++) {
+            final int tx = x + i * stepX, ty = y + i * stepY;
+            final boolean open = i < length && this.world.isTileEmpty(tx, ty) && this.world.isTileEmpty(tx + acrossX, ty + acrossY);
+            if(open && runStart == -1) runStart = i;
+            if(open || runStart == -1) continue;
+
+            // A stretch of open border ended
+            final int runEnd = i - 1;
+            if(runEnd - runStart + 1 >= SPLIT_ENTRANCE_LENGTH) {
+                count = this.addEntrance(x + runStart * stepX, y + runStart * stepY, count);
+                count = this.addEntrance(x + runEnd * stepX, y + runEnd * stepY, count);
+            } else {
+                final int middle = (runStart + runEnd) / 2;
+                count = this.addEntrance(x + middle * stepX, y + middle * stepY, count);
+            }
+            runStart = -1;
+        }
+        return count;
+    }
+
+    private int addEntrance(int x, int y, int count) {
+        final int tile = y * this.size + x;
+        // Corner tiles may be entrances on two borders
+        for(int i = 0; i < count; i++) {
+            if(this.found[i] == tile) return count;
+        }
+        this.found[count] = tile;
+        return count + 1;
+    }
+
+    /**
+     * Breadth first search from a tile, staying within its cluster. The distances can be read with {@link #localDistanceOf}
+     */
+    private void searchCluster(int cluster, int from) {
+        final int x0 = (cluster % this.clustersPerSide) * CLUSTER_SIZE, y0 = (cluster / this.clustersPerSide) * CLUSTER_SIZE;
+        final int x1 = Math.min(x0 + CLUSTER_SIZE, this.size) - 1, y1 = Math.min(y0 + CLUSTER_SIZE, this.size) - 1;
+        Arrays.fill(this.localDistances, -1);
+
+        final int fromX = from % this.size, fromY = from / this.size;
+        this.localDistances[(fromY - y0) * CLUSTER_SIZE + fromX - x0] = 0;
+        this.localQueue[0] = (fromY - y0) * CLUSTER_SIZE + fromX - x0;
+        int head = 0, tail = 1;
+        while(head < tail) {
+            final int local = this.localQueue[head++];
+            final int x = x0 + local % CLUSTER_SIZE, y = y0 + local / CLUSTER_SIZE;
+            final int next = this.localDistances[local] + 1;
+            final int emptyNeighbours = this.world.getEmptyNeighbourMask(x, y);
+            for(int direction = 0; direction < 8; direction++) {
+                if((emptyNeighbours & (1 << direction)) == 0) continue;
+                final int nx = x + World.getNeighbourDx(direction), ny = y + World.getNeighbourDy(direction);
+                if(nx < x0 || nx > x1 || ny < y0 || ny > y1) continue;
+                final int neighbour = (ny - y0) * CLUSTER_SIZE + nx - x0;
+                if(this.localDistances[neighbour] != -1) continue;
+                this.localDistances[neighbour] = next;
+                this.localQueue[tail++] = neighbour;
+            }
+        }
+    }
+
+    private int localDistanceOf(int cluster, int tile) {
+        final int x0 = (cluster % this.clustersPerSide) * CLUSTER_SIZE, y0 = (cluster / this.clustersPerSide) * CLUSTER_SIZE;
+        return this.localDistances[(tile / this.size - y0) * CLUSTER_SIZE + tile % this.size - x0];
+    }
+
+    private int clusterOf(int tile) {
+        return (tile / this.size / CLUSTER_SIZE) * this.clustersPerSide + (tile % this.size) / CLUSTER_SIZE;
+    }
+
+    private Location locationOf(int tile) {
+        return this.world.locationOf(tile % this.size, tile / this.size);
+    }
+}
@@ -0,0 +1,287 @@
+package simulator.util;
+
+import itumulator.world.Location;
+import itumulator.world.World;
+
+import java.util.Arrays;
+
+/**
+ * Distances to one destination (e.g. a wolf hole), shared by every animal heading there.
+ * The distances are found by an A* search backwards from the destination, towards the animal asking.
+ * The search is paused as soon as that animal's distance is known, and resumed (turned towards the next animal)
+ * whenever an animal asks for a tile which hasn't been reached yet. So a single animal costs as much as its own A* search, while
+ * animals following each other home (e.g. a wolf pack at dusk) mostly reuse what was already searched.
+ *
+ * The search is started over once the world has stepped, but only if blocking objects have moved since it was started
+ * (see {@link World#getBlockingVersion()}). Changes during a step are therefore first taken into account from the next step,
+ * so a path built from the field may run into animals which have moved since (see {@link PathFinder#takeNextStep}).
+ *
+ * Fields are shared through {@link DistanceFields#get(Location)}. Fields of a snapshot of the map are searched on worker threads instead
+ * (see {@link PathRequests}); those never start over, as the snapshot doesn't change.
+ */
+public class DestinationField {
+    private static final byte UNSEEN = 0, OPEN = 1, CLOSED = 2;
+    // Searches without a deadline, see buildPath(Location, Path, long)
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+    // How many tiles are searched between looking at the clock
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final World world;
+    private final Occupancy occupancy;
+    private final boolean fixed; // whether the occupancy is a snapshot, which never changes
+    private final int size;
+    private final int destination; // tile index
+    private final int[] distances; // steps to the destination, exact once the tile is closed
+    private final byte[] states;
+
+    private int[] touched;  // tiles which aren't UNSEEN, to reset them when starting over
+    private int touchedCount;
+    private int[] heapTiles;
+    private long[] heapKeys;
+    private int heapSize;
+    private int targetX, targetY; // the search heads towards the animal asking
+
+    private boolean started;
+    private long startedAtStep;
+    private long blockingVersion;
+
+    /**
+     * DestinationField constructor. The search is started once the field is used.
+     *
+     * @param world - the world the field covers
+     * @param destination - the location to find the way to
+     */
+    public DestinationField(World world, Location destination) {
+        this(world, Occupancy.of(world), false, destination);
+    }
+
+    /**
+     * Creates a field searching a snapshot of the map, which may be used from any thread
+     *
+     * @param world - the world the snapshot was taken of
+     * @param snapshot - the blocking objects to walk around
+     * @param destination - the location to find the way to
+     */
+    DestinationField(World world, OccupancySnapshot snapshot, Location destination) {
+        this(world, snapshot, true, destination);
+    }
+
+    private DestinationField(World world, Occupancy occupancy, boolean fixed, Location destination) {
+        this.world = world;
+        this.occupancy = occupancy;
+        this.fixed = fixed;
+        this.size = world.getSize();
+        this.destination = destination.getY() * this.size + destination.getX();
+        this.distances = new int[this.size * this.size];
+        this.states = new byte[this.size * this.size];
+        this.touched = new int[64];
+        this.heapTiles = new int[64];
+        this.heapKeys = new long[64];
+    }
+
+    /**
+     * Provides the amount of steps from a location to the destination, walking only through tiles without blocking objects
+     * (the destination included). The location itself may be blocked, e.g. by the animal asking.
+     *
+     * @param start - the location to start from
+     * @return amount of steps to the destination, or -1 if it can't be reached
+     */
+    public synchronized int getDistanceFrom(Location start) {
+        return this.getDistanceFrom(start, NO_DEADLINE);
+    }
+
+    private int getDistanceFrom(Location start, long deadline) {
+        final int tile = start.getY() * this.size + start.getX();
+        this.update(start);
+        if(this.states[tile] == CLOSED) return this.distances[tile];
+
+        this.retarget(start);
+        if(!this.searchUntilClosed(tile, deadline)) return -1;
+        return this.distances[tile];
+    }
+
+    /**
+     * Builds a shortest path from a location to the destination (as of when the search was started).
+     * If the location is the destination, the path only holds the location (matching {@link PathFinder#findPath}).
+     *
+     * @param start - the location to start from (usually occupied by the animal asking)
+     * @param path - the path the steps are added to, excluding the start. Must be bound to the world
+     * @return whether the destination can be reached, false as well if the way has been blocked since the search was started
+     */
+    public synchronized boolean buildPath(Location start, Path path) {
+        return this.buildPath(start, path, NO_DEADLINE);
+    }
+
+    /**
+     * Builds a shortest path like {@link #buildPath(Location, Path)}, giving up once a point in time has passed.
+     * The search is paused rather than lost, so the next animal asking carries on from there
+     *
+     * @param start - the location to start from
+     * @param path - the path the steps are added to, excluding the start. Must be bound to the world
+     * @param deadline - System.nanoTime() by which to give up, or NO_DEADLINE
+     * @return whether the destination can be reached, false as well if the search gave up
+     */
+    synchronized boolean buildPath(Location start, Path path, long deadline) {
+        int distance = this.getDistanceFrom(start, deadline);
+        if(distance == -1) return false;
+        if(distance == 0) {
+            path.add(start);
+            return true;
+        }
+
+        final int kept = path.size();
+        int x = start.getX(), y = start.getY();
+        while(distance > 0) {
+            // The tile the search reached this one from is closed and one step closer, take the first such neighbour
+            boolean found = false;
+            for(int direction = 0; direction < 8 && !found; direction++) {
+                final int nx = x + World.getNeighbourDx(direction), ny = y + World.getNeighbourDy(direction);
+                if(nx < 0 || nx >= this.size || ny < 0 || ny >= this.size) continue;
+                final int neighbour = ny * this.size + nx;
+                if(this.states[neighbour] == CLOSED && this.distances[neighbour] == distance - 1 && this.isPassable(neighbour)) {
+                    x = nx;
+                    y = ny;
+                    found = true;
+                }
+            }
+            // The search is reused within a step, so the tiles it went through may have been taken since
+            if(!found) {
+                path.truncate(kept);
+                return false;
+            }
+            path.addTile(y * this.size + x);
+            distance--;
+        }
+        return true;
+    }
+
+    /**
+     * Starts the search over if the world has stepped and blocking objects have moved since it was started
+     */
+    private void update(Location asking) {
+        if(this.started && this.fixed) return;
+        // A snapshot may be searched on another thread, where the world must not be read
+        final long step = this.fixed ? 0 : this.world.getStepCount();
+        final long blockingVersion = this.fixed ? 0 : this.world.getBlockingVersion();
+        if(this.started && (step == this.startedAtStep || blockingVersion == this.blockingVersion)) return;
+
+        for(int i = 0; i < this.touchedCount; i++) this.states[this.touched[i]] = UNSEEN;
+        this.touchedCount = 0;
+        this.heapSize = 0;
+        this.started = true;
+        this.startedAtStep = step;
+        this.blockingVersion = blockingVersion;
+        this.targetX = asking.getX();
+        this.targetY = asking.getY();
+
+        if(this.occupancy.isTileEmpty(this.destination % this.size, this.destination / this.size))
+            this.reach(this.destination, 0);
+    }
+
+    /**
+     * Points the search towards another animal, re-ordering the tiles waiting to be searched.
+     * Tiles already closed keep their distances, as the heuristic never overestimates for any animal
+     */
+    private void retarget(Location asking) {
+        if(asking.getX() == this.targetX && asking.getY() == this.targetY) return;
+        this.targetX = asking.getX();
+        this.targetY = asking.getY();
+
+        final int count = this.heapSize;
+        this.heapSize = 0;
+        for(int i = 0; i < count; i++) {
+            final int tile = this.heapTiles[i];
+            if(this.states[tile] == OPEN) this.push(tile, this.key(tile, this.distances[tile]));
+        }
+    }
+
+    /**
+     * Resumes the search until the tile given is closed, i.e. its distance is known
+     *
+     * @return false if the search ran out of tiles or passed the deadline first
+     */
+    private boolean searchUntilClosed(int goal, long deadline) {
+        int searched = 0;
+        while(this.heapSize > 0) {
+            if(deadline != NO_DEADLINE && ++searched % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline >= 0) return false;
+            final int tile = this.pop();
+            if(this.states[tile] == CLOSED) continue;
+            this.states[tile] = CLOSED;
+
+            // Blocked tiles get a distance (animals may ask from them), but nothing is reached through them
+            if(this.isPassable(tile)) {
+                final int x = tile % this.size, y = tile / this.size;
+                final int next = this.distances[tile] + 1;
+                for(int direction = 0; direction < 8; direction++) {
+                    final int nx = x + World.getNeighbourDx(direction), ny = y + World.getNeighbourDy(direction);
+                    if(nx < 0 || nx >= this.size || ny < 0 || ny >= this.size) continue;
+                    final int neighbour = ny * this.size + nx;
+                    if(this.states[neighbour] == CLOSED) continue;
+                    if(this.states[neighbour] == OPEN && this.distances[neighbour] <= next) continue;
+                    this.reach(neighbour, next);
+                }
+            }
+            if(tile == goal) return true;
+        }
+        return false;
+    }
+
+    private boolean isPassable(int tile) {
+        return tile == this.destination || this.occupancy.isTileEmpty(tile % this.size, tile / this.size);
+    }
+
+    private void reach(int tile, int distance) {
+        if(this.states[tile] == UNSEEN) {
+            if(this.touchedCount == this.touched.length) this.touched = Arrays.copyOf(this.touched, this.touchedCount * 2);
+            this.touched[this.touchedCount++] = tile;
+        }
+        this.states[tile] = OPEN;
+        this.distances[tile] = distance;
+        this.push(tile, this.key(tile, distance));
+    }
+
+    private long key(int tile, int distance) {
+        // Chebyshev distance to the animal asking, never more than the actual amount of steps
+        final int remaining = Math.max(Math.abs(tile % this.size - this.targetX), Math.abs(tile / this.size - this.targetY));
+        return ((long)(distance + remaining) << 32) | remaining;
+    }
+
+    private void push(int tile, long key) {
+        if(this.heapSize == this.heapTiles.length) {
+            this.heapTiles = Arrays.copyOf(this.heapTiles, this.heapSize * 2);
+            this.heapKeys = Arrays.copyOf(this.heapKeys, this.heapSize * 2);
+        }
+        int i = this.heapSize++;
+        while(i > 0) {
+            final int parent = (i - 1) / 2;
+            if(this.heapKeys[parent] <= key) break;
+            this.heapTiles[i] = this.heapTiles[parent];
+            this.heapKeys[i] = this.heapKeys[parent];
+            i = parent;
+        }
+        this.heapTiles[i] = tile;
+        this.heapKeys[i] = key;
+    }
+
+    private int pop() {
+        final int top = this.heapTiles[0];
+        final int lastTile = this.heapTiles[--this.heapSize];
+        final long lastKey = this.heapKeys[this.heapSize];
+
+        int i = 0;
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= this.heapSize) break;
+            if(child + 1 < this.heapSize && this.heapKeys[child + 1] < this.heapKeys[child]) child++;
+            if(this.heapKeys[child] >= lastKey) break;
+            this.heapTiles[i] = this.heapTiles[child];
+            this.heapKeys[i] = this.heapKeys[child];
+            i = child;
+        }
+        if(this.heapSize > 0) {
+            this.heapTiles[i] = lastTile;
+            this.heapKeys[i] = lastKey;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,229 @@
+package simulator.util;
+
+import itumulator.world.Location;
+import itumulator.world.World;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A distance field holds, for every tile on the map, the amount of steps to the nearest goal of some type (e.g. the nearest grass).
+ * It is computed with one breadth first search starting from all goals at once, walking only through tiles without blocking objects.
+ * Any animal can then find its way to the nearest goal by repeatedly stepping to the neighbour closest to a goal,
+ * instead of running its own search.
+ *
+ * Fields are shared through {@link DistanceFields} and are only computed when requested, at most once per step of the world.
+ * Changes during a step (goals being added or removed, blocking objects moving) are therefore first taken into account from the next step,
+ * so a path built from a field may lead to a goal which has since been taken. {@link #isGoal(int, int)} checks the current state of the world.
+ */
+public class DistanceField {
+
+    /**
+     * What counts as reaching a goal
+     */
+    public enum Goal {
+        /** Standing on the tile of an object of the type (used for non-blocking objects, e.g. grass) */
+        STANDING_ON,
+        /** Standing next to an object of the type (used for blocking objects, e.g. rabbits) */
+        ADJACENT_TO
+    }
+
+    private static final int UNREACHABLE = -1;
+
+    private final World world;
+    private final Class<?> type;
+    private final Goal goal;
+    private final int size;
+    private final int[] distances; // indexed by y * size + x
+    private final int[] queue;
+    private int tail; // end of the queue
+    private long computedAtStep = -1;
+
+    /**
+     * DistanceField constructor. The field is computed once it is used.
+     *
+     * @param world - the world the field covers
+     * @param type - the type of the goals
+     * @param goal - what counts as reaching a goal
+     */
+    public DistanceField(World world, Class<?> type, Goal goal) {
+        this.world = world;
+        this.type = type;
+        this.goal = goal;
+        this.size = world.getSize();
+        this.distances = new int[this.size * this.size];
+        this.queue = new int[this.size * this.size];
+    }
+
+    /**
+     * Provides the distance from a tile to the nearest goal, computing the field first if it is out of date.
+     *
+     * @param x - coordinate of the tile
+     * @param y - coordinate of the tile
+     * @return amount of steps to the nearest goal, or -1 if no goal can be reached from the tile (or the tile is blocked)
+     */
+    public int getDistance(int x, int y) {
+        this.update();
+        return this.distances[y * this.size + x];
+    }
+
+    /**
+     * Provides the length of the path {@link #buildPath(Location, Collection)} would build from a location.
+     * Unlike {@link #getDistance(int, int)}, this also works for the tile of the animal asking, which is blocked by the animal itself.
+     *
+     * @param start - the location to start from
+     * @return amount of steps to the nearest goal (0 if the location is a goal), or -1 if no goal can be reached
+     */
+    public int getDistanceFrom(Location start) {
+        if(this.isGoal(start.getX(), start.getY())) return 0;
+        this.update();
+
+        final int best = this.closestNeighbour(start.getX(), start.getY(), Integer.MAX_VALUE);
+        if(best == -1) return UNREACHABLE;
+        return this.distances[(start.getY() + World.getNeighbourDy(best)) * this.size + start.getX() + World.getNeighbourDx(best)] + 1;
+    }
+
+    /**
+     * Checks the current state of the world (not the field) for whether a tile is a goal.
+     * Unlike the field, this also works for the tile of the animal asking, which is blocked by the animal itself.
+     *
+     * @param x - coordinate of the tile
+     * @param y - coordinate of the tile
+     * @return whether the tile is a goal
+     */
+    public boolean isGoal(int x, int y) {
+        if(this.goal == Goal.STANDING_ON) return this.type.isInstance(this.world.getTile(x, y));
+
+        for(int direction = 0; direction < 8; direction++) {
+            final int nx = x + World.getNeighbourDx(direction);
+            final int ny = y + World.getNeighbourDy(direction);
+            if(this.inBounds(nx, ny) && this.type.isInstance(this.world.getTile(nx, ny))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds a shortest path from a location to the nearest goal (as of the start of the step) by following the field downhill.
+     * If the location itself is a goal, the path only holds the location (matching {@link PathFinder#findPath}).
+     *
+     * @param start - the location to start from (usually occupied by the animal asking)
+     * @param path - the collection the path is added to, excluding the start
+     * @return whether a goal can be reached
+     */
+    public boolean buildPath(Location start, Collection<Location> path) {
+        if(this.isGoal(start.getX(), start.getY())) {
+            path.add(start);
+            return true;
+        }
+        this.update();
+
+        // The start is usually blocked by the animal itself, so begin with the best of its empty neighbours
+        int x = start.getX(), y = start.getY();
+        int best = this.closestNeighbour(x, y, Integer.MAX_VALUE);
+        if(best == -1) return false;
+
+        while(true) {
+            x += World.getNeighbourDx(best);
+            y += World.getNeighbourDy(best);
+            path.add(this.world.locationOf(x, y));
+
+            final int distance = this.distances[y * this.size + x];
+            if(distance == 0) return true;
+            // Every tile with a distance has a neighbour one step closer, the one the search reached it from
+            best = this.closestNeighbour(x, y, distance);
+        }
+    }
+
+    /**
+     * Finds the direction of the neighbour closest to a goal, which must be closer than the limit given
+     */
+    private int closestNeighbour(int x, int y, int limit) {
+        int best = -1;
+        int bestDistance = limit;
+        for(int direction = 0; direction < 8; direction++) {
+            final int nx = x + World.getNeighbourDx(direction);
+            final int ny = y + World.getNeighbourDy(direction);
+            if(!this.inBounds(nx, ny)) continue;
+            final int distance = this.distances[ny * this.size + nx];
+            if(distance != UNREACHABLE && distance < bestDistance) {
+                best = direction;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Makes the field recompute the next time it is used, e.g. when a path built from it turns out to lead to a goal which has been taken
+     */
+    public void invalidate() {
+        this.computedAtStep = -1;
+    }
+
+    /**
+     * Recomputes the field if the world has stepped since it was computed
+     */
+    private void update() {
+        if(this.world.getStepCount() == this.computedAtStep) return;
+        this.computedAtStep = this.world.getStepCount();
+
+        Arrays.fill(this.distances, UNREACHABLE);
+        this.seedGoals();
+        this.spread();
+    }
+
+    /**
+     * Queues every goal
+     */
+    private void seedGoals() {
+        this.tail = 0;
+        this.world.forEachLocationOf(this.type, (location) -> {
+            if(this.goal == Goal.STANDING_ON) {
+                this.addGoal(location.getX(), location.getY());
+            } else {
+                for(int direction = 0; direction < 8; direction++) {
+                    this.addGoal(location.getX() + World.getNeighbourDx(direction), location.getY() + World.getNeighbourDy(direction));
+                }
+            }
+        });
+    }
+
+    /**
+     * Breadth first search from the queued goals
+     */
+    private void spread() {
+        int head = 0;
+        while(head < this.tail) {
+            final int index = this.queue[head++];
+            final int x = index % this.size, y = index / this.size;
+            final int next = this.distances[index] + 1;
+
+            final int emptyNeighbours = this.world.getEmptyNeighbourMask(x, y);
+            for(int direction = 0; direction < 8; direction++) {
+                if((emptyNeighbours & (1 << direction)) == 0) continue;
+                final int neighbour = (y + World.getNeighbourDy(direction)) * this.size + x + World.getNeighbourDx(direction);
+                if(this.distances[neighbour] != UNREACHABLE) continue;
+                this.distances[neighbour] = next;
+                this.queue[this.tail++] = neighbour;
+            }
+        }
+    }
+
+    /**
+     * Marks a tile as a goal, if it can be stood on and isn't a goal already
+     */
+    private void addGoal(int x, int y) {
+        if(!this.inBounds(x, y) || !this.world.isTileEmpty(x, y)) return;
+        // A goal counts if the object is what the tile shows, e.g. grass with nothing standing on it
+        if(this.goal == Goal.STANDING_ON && !this.type.isInstance(this.world.getTile(x, y))) return;
+
+        final int index = y * this.size + x;
+        if(this.distances[index] == 0) return;
+        this.distances[index] = 0;
+        this.queue[this.tail++] = index;
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < this.size && y >= 0 && y < this.size;
+    }
+}
@@ -0,0 +1,79 @@
+package simulator.util;
+
+import itumulator.world.Location;
+import itumulator.world.World;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the distance fields of a world, so that every animal searching for the same type of goal shares one field
+ * (e.g. all hungry rabbits follow the same grass field), and every animal heading to the same location shares one
+ * {@link DestinationField} (e.g. a wolf pack going to its hole). Each world has its own instance, see {@link #of(World)}.
+ */
+public class DistanceFields {
+    private final World world;
+    private final Map<Class<?>, DistanceField> standingOn;
+    private final Map<Class<?>, DistanceField> adjacentTo;
+    private final Map<Location, DestinationField> destinations;
+
+    // Each destination field takes five bytes per tile, so only the ones used most recently are kept
+    private static final int MAX_DESTINATIONS = 8;
+
+    private DistanceFields(World world) {
+        this.world = world;
+        this.standingOn = new HashMap<>();
+        this.adjacentTo = new HashMap<>();
+        this.destinations = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Location, DestinationField> eldest) {
+                return this.size() > MAX_DESTINATIONS;
+            }
+        };
+    }
+
+    /**
+     * Provides the distance fields of a world
+     *
+     * @param world - reference to the world
+     * @return the distance fields of the world
+     */
+    public static DistanceFields of(World world) {
+        return world.getService(DistanceFields.class, DistanceFields::new);
+    }
+
+    /**
+     * Provides the field leading to the nearest goal of a type. The field is created the first time it is requested
+     * and computed once it is used.
+     *
+     * @param type - the type of the goals
+     * @param goal - what counts as reaching a goal
+     * @return the distance field
+     */
+    public synchronized DistanceField get(Class<?> type, DistanceField.Goal goal) {
+        final Map<Class<?>, DistanceField> fields = (goal == DistanceField.Goal.STANDING_ON) ? this.standingOn : this.adjacentTo;
+        DistanceField field = fields.get(type);
+        if(field == null) {
+            field = new DistanceField(this.world, type, goal);
+            fields.put(type, field);
+        }
+        return field;
+    }
+
+    /**
+     * Provides the field leading to a location. The field is created the first time it is requested
+     * (or again if it hasn't been used for a while) and searched once it is used.
+     *
+     * @param destination - the location to find the way to
+     * @return the destination field
+     */
+    public synchronized DestinationField get(Location destination) {
+        DestinationField field = this.destinations.get(destination);
+        if(field == null) {
+            field = new DestinationField(this.world, destination);
+            this.destinations.put(destination, field);
+        }
+        return field;
+    }
+}
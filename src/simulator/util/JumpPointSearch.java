@@ -0,0 +1,212 @@
+package simulator.util;
+
+import itumulator.world.Location;
+import itumulator.world.World;
+
+/**
+ * Jump point search between two points on the map, an alternative to {@link AStar} for point to point paths.
+ * On open parts of the map, most tiles have several equally short paths through them, and A* looks at all of them.
+ * Jump point search instead scans in straight lines and only stops at tiles where an obstacle makes a detour necessary
+ * (jump points), so only those are put in the heap. Paths found are as short as those of A*, though the steps may differ.
+ *
+ * Moves are 8-directional and all cost one step, and diagonal moves may pass the corners of blocked tiles (as in {@link World#getEmptyNeighbourMask}).
+ * The bookkeeping is kept in {@link SearchBuffers}, with the parent of each jump point being the previous jump point.
+ * Each world has its own instance, see {@link #of(World)}.
+ */
+class JumpPointSearch {
+    private final World world;
+    private final int size;
+
+    // Set for the duration of a search
+    private SearchBuffers buffers;
+    private int goalX, goalY;
+    private int maxNodes;
+
+    private JumpPointSearch(World world) {
+        this.world = world;
+        this.size = world.getSize();
+    }
+
+    /**
+     * Provides the jump point search of a world
+     *
+     * @param world - reference to the world
+     * @return the search of the world
+     */
+    static JumpPointSearch of(World world) {
+        return world.getService(JumpPointSearch.class, JumpPointSearch::new);
+    }
+
+    /**
+     * Finds a shortest path from start to goal, walking only through tiles without blocking objects (the goal included).
+     * If start and goal are the same, the path only holds the goal (matching {@link PathFinder#findPath}).
+     *
+     * @param start - the location to start from (usually occupied by the animal asking)
+     * @param goal - the location to reach
+     * @param path - the path the steps are added to, excluding the start. Must be bound to the world
+     * @param maxNodes - the search gives up after looking at this many tiles (scanned or expanded), see {@link SearchBuffers#cutShort}
+     * @return whether a path was found
+     */
+    synchronized boolean findPath(Location start, Location goal, Path path, int maxNodes) {
+        this.buffers = SearchBuffers.of(this.world);
+        this.buffers.nextSearch();
+        if(start.equals(goal)) {
+            path.add(goal);
+            return true;
+        }
+        this.goalX = goal.getX();
+        this.goalY = goal.getY();
+        if(!this.world.isTileEmpty(this.goalX, this.goalY)) return false;
+        this.maxNodes = maxNodes;
+
+        final int startTile = start.getY() * this.size + start.getX();
+        final int goalTile = this.goalY * this.size + this.goalX;
+        this.buffers.visit(startTile, startTile, 0);
+        this.buffers.push(startTile, this.key(start.getX(), start.getY(), 0));
+
+        while(!this.buffers.heapIsEmpty()) {
+            final int tile = this.buffers.pop();
+            if(this.buffers.isClosed(tile)) continue;
+            this.buffers.close(tile);
+
+            if(tile == goalTile) {
+                this.tracePath(startTile, goalTile, path);
+                return true;
+            }
+            if(!this.expand(tile, tile == startTile)) return false;
+        }
+        return false;
+    }
+
+    /**
+     * Jumps in every direction worth going from a jump point, given the direction it was reached from
+     *
+     * @return false if the search ran out of nodes
+     */
+    private boolean expand(int tile, boolean isStart) {
+        final int x = tile % this.size, y = tile / this.size;
+        final int parent = this.buffers.parent[tile];
+        final int dx = isStart ? 0 : Integer.signum(x - parent % this.size);
+        final int dy = isStart ? 0 : Integer.signum(y - parent / this.size);
+
+        for(int direction = 0; direction < 8; direction++) {
+            final int ndx = World.getNeighbourDx(direction), ndy = World.getNeighbourDy(direction);
+            if(!isStart && !this.isWorthGoing(x, y, dx, dy, ndx, ndy)) continue;
+
+            final int jumpPoint = this.jump(x, y, ndx, ndy);
+            if(jumpPoint == -2) return false;
+            if(jumpPoint == -1) continue;
+
+            final int jx = jumpPoint % this.size, jy = jumpPoint / this.size;
+            final int cost = this.buffers.cost[tile] + Math.max(Math.abs(jx - x), Math.abs(jy - y));
+            if(this.buffers.isVisited(jumpPoint) && (this.buffers.isClosed(jumpPoint) || this.buffers.cost[jumpPoint] <= cost)) continue;
+            this.buffers.visit(jumpPoint, tile, cost);
+            this.buffers.push(jumpPoint, this.key(jx, jy, cost));
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a direction is a natural or forced neighbour when arriving at a tile in direction (dx, dy).
+     * Other directions can be reached at least as quickly without passing the tile
+     */
+    private boolean isWorthGoing(int x, int y, int dx, int dy, int ndx, int ndy) {
+        if(dx != 0 && dy != 0) {
+            // Natural: keep going diagonally, or either of its straight parts
+            if((ndx == dx && ndy == dy) || (ndx == dx && ndy == 0) || (ndx == 0 && ndy == dy)) return true;
+            // Forced: around a blocked tile behind us
+            if(ndx == -dx && ndy == dy) return !this.isFree(x - dx, y);
+            if(ndx == dx && ndy == -dy) return !this.isFree(x, y - dy);
+            return false;
+        }
+        if(dx != 0) {
+            if(ndx == dx && ndy == 0) return true;
+            if(ndx == dx && ndy != 0) return !this.isFree(x, y + ndy);
+            return false;
+        }
+        if(ndx == 0 && ndy == dy) return true;
+        if(ndy == dy && ndx != 0) return !this.isFree(x + ndx, y);
+        return false;
+    }
+
+    /**
+     * Scans from a tile in a direction until reaching a jump point: the goal, or a tile with a forced neighbour.
+     * Diagonal scans also stop where a straight scan from the tile finds a jump point.
+     *
+     * @return index of the jump point, -1 if there is none, or -2 if the search ran out of nodes
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        while(true) {
+            x += dx;
+            y += dy;
+            if(!this.isFree(x, y)) return -1;
+            if(this.buffers.expanded == this.maxNodes) {
+                this.buffers.cutShort = true;
+                return -2;
+            }
+            this.buffers.expanded++;
+            if(x == this.goalX && y == this.goalY) return y * this.size + x;
+
+            if(dx != 0 && dy != 0) {
+                if((!this.isFree(x - dx, y) && this.isFree(x - dx, y + dy))
+                   || (!this.isFree(x, y - dy) && this.isFree(x + dx, y - dy))) return y * this.size + x;
+
+                final int horizontal = this.jump(x, y, dx, 0);
+                if(horizontal == -2) return -2;
+                if(horizontal != -1) return y * this.size + x;
+                final int vertical = this.jump(x, y, 0, dy);
+                if(vertical == -2) return -2;
+                if(vertical != -1) return y * this.size + x;
+            } else if(dx != 0) {
+                if((!this.isFree(x, y + 1) && this.isFree(x + dx, y + 1))
+                   || (!this.isFree(x, y - 1) && this.isFree(x + dx, y - 1))) return y * this.size + x;
+            } else {
+                if((!this.isFree(x + 1, y) && this.isFree(x + 1, y + dy))
+                   || (!this.isFree(x - 1, y) && this.isFree(x - 1, y + dy))) return y * this.size + x;
+            }
+        }
+    }
+
+    /**
+     * Adds the steps between the jump points of the path found, which are in straight or diagonal lines of each other
+     */
+    private void tracePath(int startTile, int goalTile, Path path) {
+        final int jumpsStart = path.size();
+        for(int tile = goalTile; tile != startTile; tile = this.buffers.parent[tile]) path.addTile(tile);
+        // The jump points were added backwards, from the goal
+        final int jumps = path.size() - jumpsStart;
+        for(int i = 0; i < jumps / 2; i++) {
+            final int tile = path.getTile(jumpsStart + i);
+            path.setTile(jumpsStart + i, path.getTile(path.size() - 1 - i));
+            path.setTile(path.size() - 1 - i, tile);
+        }
+
+        // Fill in the steps, walking from jump point to jump point
+        final int stepsStart = path.size();
+        int x = startTile % this.size, y = startTile / this.size;
+        for(int i = 0; i < jumps; i++) {
+            final int jumpPoint = path.getTile(jumpsStart + i);
+            final int jx = jumpPoint % this.size, jy = jumpPoint / this.size;
+            final int dx = Integer.signum(jx - x), dy = Integer.signum(jy - y);
+            while(x != jx || y != jy) {
+                x += dx;
+                y += dy;
+                path.addTile(y * this.size + x);
+            }
+        }
+
+        // Move the steps in place of the jump points
+        final int steps = path.size() - stepsStart;
+        for(int i = 0; i < steps; i++) path.setTile(jumpsStart + i, path.getTile(stepsStart + i));
+        path.truncate(jumpsStart + steps);
+    }
+
+    private long key(int x, int y, int cost) {
+        final int remaining = Math.max(Math.abs(this.goalX - x), Math.abs(this.goalY - y)); // Chebyshev distance
+        return ((long)(cost + remaining) << 32) | remaining;
+    }
+
+    private boolean isFree(int x, int y) {
+        return x >= 0 && x < this.size && y >= 0 && y < this.size && this.world.isTileEmpty(x, y);
+    }
+}
@@ -0,0 +1,47 @@
+package simulator.util;
+
+import itumulator.world.World;
+
+/**
+ * Which tiles of a map hold blocking objects, as seen by a search. Searches on the simulator thread read the world itself
+ * (see {@link #of(World)}), while searches on other threads read a {@link OccupancySnapshot} which doesn't change under them.
+ */
+interface Occupancy {
+    /**
+     * Checks whether a tile is free of blocking objects
+     *
+     * @param x - x coordinate of the tile, which must be on the map
+     * @param y - y coordinate of the tile, which must be on the map
+     * @return whether the tile is empty
+     */
+    boolean isTileEmpty(int x, int y);
+
+    /**
+     * Provides the surrounding tiles which are free of blocking objects, as a bitmask (see {@link World#getEmptyNeighbourMask(int, int)})
+     *
+     * @param x - x coordinate of the center, which must be on the map
+     * @param y - y coordinate of the center, which must be on the map
+     * @return bitmask of the empty surrounding tiles
+     */
+    int getEmptyNeighbourMask(int x, int y);
+
+    /**
+     * Provides the occupancy of a world as it is right now
+     *
+     * @param world - reference to the world
+     * @return the occupancy, following the world as it changes
+     */
+    static Occupancy of(World world) {
+        return new Occupancy() {
+            @Override
+            public boolean isTileEmpty(int x, int y) {
+                return world.isTileEmpty(x, y);
+            }
+
+            @Override
+            public int getEmptyNeighbourMask(int x, int y) {
+                return world.getEmptyNeighbourMask(x, y);
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package simulator.util;
+
+import itumulator.world.World;
+
+/**
+ * A copy of which tiles of a world held blocking objects at one point in time, one bit per tile.
+ * The snapshot never changes once taken, so any number of threads may search it while the world moves on.
+ */
+final class OccupancySnapshot implements Occupancy {
+    private final int size;
+    private final long[] blocked; // bit y * size + x is set if the tile holds a blocking object
+    private final long blockingVersion;
+
+    /**
+     * Takes a snapshot of a world. Must be called on the thread simulating the world
+     *
+     * @param world - reference to the world
+     */
+    OccupancySnapshot(World world) {
+        this.size = world.getSize();
+        this.blocked = new long[(this.size * this.size + 63) / 64];
+        this.blockingVersion = world.getBlockingVersion();
+        for(int y = 0; y < this.size; y++) {
+            for(int x = 0; x < this.size; x++) {
+                if(world.isTileEmpty(x, y)) continue;
+                final int tile = y * this.size + x;
+                this.blocked[tile >>> 6] |= 1L << tile;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the world has changed since the snapshot was taken, as far as blocking objects go
+     *
+     * @param world - the world the snapshot was taken of
+     * @return whether the snapshot still matches the world
+     */
+    boolean isCurrent(World world) {
+        return world.getBlockingVersion() == this.blockingVersion;
+    }
+
+    @Override
+    public boolean isTileEmpty(int x, int y) {
+        final int tile = y * this.size + x;
+        return (this.blocked[tile >>> 6] & (1L << tile)) == 0;
+    }
+
+    @Override
+    public int getEmptyNeighbourMask(int x, int y) {
+        int mask = 0;
+        for(int direction = 0; direction < 8; direction++) {
+            final int nx = x + World.getNeighbourDx(direction), ny = y + World.getNeighbourDy(direction);
+            if(nx >= 0 && nx < this.size && ny >= 0 && ny < this.size && this.isTileEmpty(nx, ny)) mask |= 1 << direction;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,219 @@
+package simulator.util;
+
+import itumulator.world.Location;
+import itumulator.world.World;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A path of locations on the map, which is followed by taking steps from the front of the queue.
+ * The steps are stored as tile indices (y * size + x) in a ring buffer, so adding and taking steps doesn't create any objects,
+ * and the first and last step can be read at any time. Locations read from the path are the canonical instances of the world
+ * (see {@link World#locationOf(int, int)}).
+ *
+ * A path belongs to the world it was last bound to, and only holds locations on the map of that world.
+ */
+public class Path extends AbstractQueue<Location> {
+    private World world;
+    private int size; // size of the map, used to turn tile indices into coordinates
+    private int[] tiles;
+    private int head;
+    private int count;
+
+    /**
+     * Path constructor. The path is empty, and must be bound to a world before steps are added.
+     */
+    public Path() {
+        this.tiles = new int[8];
+    }
+
+    /**
+     * Binds the path to a world, clearing it if it belonged to another world
+     *
+     * @param world - reference to the world
+     */
+    void bind(World world) {
+        if(this.world == world) return;
+        this.clear();
+        this.world = world;
+        this.size = world.getSize();
+    }
+
+    /**
+     * Adds a step to the end of the path
+     *
+     * @param location - the location of the step, which must be on the map
+     * @return true
+     * @throws IllegalStateException if the path isn't bound to a world
+     * @throws IllegalArgumentException if the location isn't on the map
+     */
+    @Override
+    public boolean offer(Location location) {
+        if(this.world == null) throw new IllegalStateException("Path is not bound to a world");
+        final int x = location.getX(), y = location.getY();
+        if(x < 0 || x >= this.size || y < 0 || y >= this.size) throw new IllegalArgumentException("Location is not on the map");
+        this.addTile(y * this.size + x);
+        return true;
+    }
+
+    /**
+     * Takes the first step of the path
+     *
+     * @return the location of the step, or null if the path is empty
+     */
+    @Override
+    public Location poll() {
+        if(this.count == 0) return null;
+        final Location location = this.locationOf(this.tiles[this.head]);
+        this.head = (this.head + 1) & (this.tiles.length - 1);
+        this.count--;
+        return location;
+    }
+
+    /**
+     * Provides the first step of the path without taking it
+     *
+     * @return the location of the step, or null if the path is empty
+     */
+    @Override
+    public Location peek() {
+        if(this.count == 0) return null;
+        return this.locationOf(this.tiles[this.head]);
+    }
+
+    /**
+     * Provides the last step of the path
+     *
+     * @return the location of the step
+     * @throws NoSuchElementException if the path is empty
+     */
+    public Location getLast() {
+        if(this.count == 0) throw new NoSuchElementException("Path is empty");
+        return this.locationOf(this.getTile(this.count - 1));
+    }
+
+    /**
+     * Provides a step of the path
+     *
+     * @param index - how many steps from the front of the path
+     * @return the location of the step
+     * @throws IndexOutOfBoundsException if the path has no such step
+     */
+    public Location get(int index) {
+        if(index < 0 || index >= this.count) throw new IndexOutOfBoundsException("Path has no step " + index);
+        return this.locationOf(this.getTile(index));
+    }
+
+    @Override
+    public int size() {
+        return this.count;
+    }
+
+    @Override
+    public void clear() {
+        this.head = 0;
+        this.count = 0;
+    }
+
+    @Override
+    public Iterator<Location> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < Path.this.count;
+            }
+
+            @Override
+            public Location next() {
+                if(!this.hasNext()) throw new NoSuchElementException();
+                return Path.this.locationOf(Path.this.getTile(this.index++));
+            }
+        };
+    }
+
+    /**
+     * Adds a step to the end of the path
+     *
+     * @param tile - index of the tile
+     */
+    void addTile(int tile) {
+        this.ensureCapacity(this.count + 1);
+        this.setTile(this.count++, tile);
+    }
+
+    /**
+     * Provides the tile index of a step, without checking that the path has the step
+     */
+    int getTile(int index) {
+        return this.tiles[(this.head + index) & (this.tiles.length - 1)];
+    }
+
+    /**
+     * Replaces the tile index of a step, without checking that the path has the step
+     */
+    void setTile(int index, int tile) {
+        this.tiles[(this.head + index) & (this.tiles.length - 1)] = tile;
+    }
+
+    /**
+     * Makes the path longer, leaving the tiles of the new steps to be set with {@link #setTile(int, int)}
+     *
+     * @param steps - the amount of steps to add to the end
+     */
+    void extend(int steps) {
+        this.ensureCapacity(this.count + steps);
+        this.count += steps;
+    }
+
+    /**
+     * Shortens the path, removing steps from the end
+     *
+     * @param steps - the amount of steps to keep
+     */
+    void truncate(int steps) {
+        this.count = Math.min(this.count, steps);
+    }
+
+    /**
+     * Replaces a part of the path with the steps of another path
+     *
+     * @param from - index of the first step to replace
+     * @param to - index of the last step to replace
+     * @param replacement - the steps to put in their place
+     */
+    void replace(int from, int to, Path replacement) {
+        final int difference = replacement.count - (to - from + 1);
+        this.ensureCapacity(this.count + difference);
+
+        // Move the steps after the replaced part, starting from the end they're moving towards
+        if(difference > 0) {
+            for(int i = this.count - 1; i > to; i--) this.setTile(i + difference, this.getTile(i));
+        } else if(difference < 0) {
+            for(int i = to + 1; i < this.count; i++) this.setTile(i + difference, this.getTile(i));
+        }
+        for(int i = 0; i < replacement.count; i++) this.setTile(from + i, replacement.getTile(i));
+        this.count += difference;
+    }
+
+    /**
+     * Grows the ring buffer if it can't hold the amount of steps given. The capacity is kept a power of two
+     */
+    private void ensureCapacity(int steps) {
+        if(steps <= this.tiles.length) return;
+        int capacity = this.tiles.length;
+        while(capacity < steps) capacity *= 2;
+
+        final int[] tiles = new int[capacity];
+        for(int i = 0; i < this.count; i++) tiles[i] = this.getTile(i);
+        this.tiles = tiles;
+        this.head = 0;
+    }
+
+    private Location locationOf(int tile) {
+        return this.world.locationOf(tile % this.size, tile / this.size);
+    }
+}
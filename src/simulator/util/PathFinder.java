@@ -2,13 +2,8 @@ package simulator.util;
 
 import itumulator.world.Location;
 import itumulator.world.World;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ArrayList;
-import java.util.Queue;
 import java.util.function.*;
-import java.util.Iterator;
 
 import simulator.util.Utilities;
 
@@ -18,9 +13,32 @@ import simulator.util.Utilities;
  * to its own rabbit hole when it turns night.
  */
 public class PathFinder {
+    // Paths from distance fields leading to a taken goal are fixed by searching on our own, if the goal was this close
+    private static final int LOCAL_SEARCH_DISTANCE = 8;
+    // How many upcoming steps are checked for obstructions, further steps may well be free again by the time they are reached
+    private static final int VALIDATION_LOOKAHEAD = 3;
+    // Most tiles a detour around an obstruction may search, before the path is considered beyond repair
+    private static final int REPAIR_NODE_LIMIT = 256;
 
-    private LinkedList<Location> path;
+    // Searches with this radius cover the whole map
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * How paths to specific locations are found, see findPathToLocation()
+     */
+    public enum Strategy {
+        /** A* search, see {@link AStar} */
+        A_STAR,
+        /** Jump point search, which looks at far fewer tiles on open maps, see {@link JumpPointSearch} */
+        JUMP_POINT_SEARCH
+    }
+
+    private Path path;
+    private Path detour; // reused by fixObstructedPath
     private Location currentLocation;
+    private boolean cutShort;
+    private Strategy strategy;
+    private PathRequests.Request request; // the path being searched on another thread, see requestPathToDestination()
 
     /**
      * PathFinder constructor
@@ -28,67 +46,273 @@ public class PathFinder {
      * @param currentLocation - starting point from which path finding will be made from. May be null if location is later set with setLocation()
      */
     public PathFinder(Location currentLocation) {
-        this.path = new LinkedList<>();
+        this.path = new Path();
+        this.detour = new Path();
         this.currentLocation = currentLocation;
+        this.strategy = Strategy.A_STAR;
+    }
+
+    /**
+     * Sets how paths to specific locations are found. Large worlds use hierarchical search regardless, see {@link ClusterGraph}
+     *
+     * @param strategy - the strategy to use
+     */
+    public void setStrategy(Strategy strategy) {
+        if(strategy == null) throw new IllegalArgumentException("Strategy cannot be null");
+        this.strategy = strategy;
+    }
+
+    /**
+     * Returns how paths to specific locations are found
+     *
+     * @return the strategy used
+     */
+    public Strategy getStrategy() {
+        return this.strategy;
     }
 
 
     /** 
-     * Wrapper around findPath() method. Used to find path to specific location on map
+     * Finds path to specific location on map.
+     * Uses A* search (or jump point search, see setStrategy()), which heads towards the goal rather than searching in every direction like findPath().
+     * On large worlds, long paths are found hierarchically instead (see {@link ClusterGraph}), which may make them a few steps longer
      *
      * @param goal - The goal location that you're looking to find a route to
      * @param world - Reference to the world
      * @return whether if a path was found or not
      */
     public boolean findPathToLocation(Location goal, World world) {
-        return this.findPath
-        ( (location) -> { return location.equals(goal);}, world);
+        this.path.clear();
+        this.path.bind(world);
+        this.cutShort = false;
+        // No starting point is set
+        if(this.currentLocation == null) return false;
+        // Goal isn't on the map, so it can't be reached
+        if(goal.getX() < 0 || goal.getX() >= world.getSize() || goal.getY() < 0 || goal.getY() >= world.getSize()) return false;
+
+        final SearchBudget budget = SearchBudget.of(world);
+        final ClusterGraph clusters = ClusterGraph.of(world);
+        final boolean found;
+        if(clusters.isEnabled())
+            found = clusters.findPath(this.currentLocation, goal, this.path, budget.getRemaining());
+        else if(this.strategy == Strategy.JUMP_POINT_SEARCH)
+            found = JumpPointSearch.of(world).findPath(this.currentLocation, goal, this.path, budget.getRemaining());
+        else
+            found = AStar.of(world).findPath(this.currentLocation, goal, this.path, budget.getRemaining());
+        this.spend(budget, world);
+        return found;
     }
 
 
-    /** 
-     * Wrapper around findPath() method. Used to find path to specific instance of nonblocking
+    /**
+     * Finds path to a location many animals are heading to, such as a hole or a territory.
+     * Uses the {@link DestinationField} of the location shared by every animal in the world, so animals going the same way
+     * reuse each others search rather than each running their own like findPathToLocation().
+     * The field is searched at most once per step, so if the way it found has been blocked since, the path is found with findPathToLocation() instead
+     *
+     * @param destination - The location that you're looking to find a route to
+     * @param world - Reference to the world
+     * @return whether if a path was found or not
+     */
+    public boolean findPathToDestination(Location destination, World world) {
+        this.path.clear();
+        this.path.bind(world);
+        this.cutShort = false;
+        // No starting point is set
+        if(this.currentLocation == null) return false;
+        // Destination isn't on the map, so it can't be reached
+        if(destination.getX() < 0 || destination.getX() >= world.getSize() || destination.getY() < 0 || destination.getY() >= world.getSize()) return false;
+
+        final DestinationField field = DistanceFields.of(world).get(destination);
+        if(field.buildPath(this.currentLocation, this.path)) return true;
+        // Unreachable as of the search of the field, which is kept for the rest of the step
+        if(field.getDistanceFrom(this.currentLocation) == -1) return false;
+        return this.findPathToLocation(destination, world);
+    }
+
+
+    /**
+     * Finds path to a location many animals are heading to, like findPathToDestination().
+     * If asynchronous pathfinding is enabled (see {@link PathRequests}), the path is instead searched on another thread,
+     * and the current path is kept until the result is picked up by calling this again in a later step.
+     * If the animal has moved in the meantime, the path found is joined from where the animal is now
+     *
+     * @param destination - The location that you're looking to find a route to
+     * @param world - Reference to the world
+     * @return whether if a path was found or not (false while waiting for the result)
+     */
+    public boolean requestPathToDestination(Location destination, World world) {
+        final PathRequests requests = PathRequests.of(world);
+        if(!requests.isEnabled()) {
+            if(this.request != null) requests.cancel(this.request);
+            this.request = null;
+            return this.findPathToDestination(destination, world);
+        }
+        // No starting point is set
+        if(this.currentLocation == null) return false;
+        // Destination isn't on the map, so it can't be reached
+        if(destination.getX() < 0 || destination.getX() >= world.getSize() || destination.getY() < 0 || destination.getY() >= world.getSize()) return false;
+
+        if(this.request != null && !this.request.getGoal().equals(destination)) {
+            requests.cancel(this.request);
+            this.request = null;
+        }
+        if(this.request == null) {
+            this.request = requests.submit(this.currentLocation, destination);
+            return false;
+        }
+        if(!requests.isReady(this.request)) return false;
+
+        final PathRequests.Request result = this.request;
+        this.request = null;
+        this.path.clear();
+        this.path.bind(world);
+        this.cutShort = result.wasCutShort();
+        if(!result.isFound()) return false;
+
+        final Path found = result.getPath();
+        for(int i = 0; i < found.size(); i++) this.path.addTile(found.getTile(i));
+        if(this.catchUp(result.getStart(), world)) return true;
+        this.path.clear();
+        return false;
+    }
+
+    /**
+     * Joins a path found from where the animal was when it was requested, if the animal has moved since.
+     * Steps already passed are skipped, otherwise a short detour leads back to the start of the path
+     *
+     * @return whether the path can be followed from currentLocation
+     */
+    private boolean catchUp(Location requestedFrom, World world) {
+        if(this.currentLocation.equals(requestedFrom)) return true;
+        for(int i = 0; i < this.path.size(); i++) {
+            if(!this.path.get(i).equals(this.currentLocation)) continue;
+            for(int j = 0; j <= i; j++) this.path.poll();
+            return true;
+        }
+
+        this.detour.clear();
+        this.detour.bind(world);
+        final SearchBudget budget = SearchBudget.of(world);
+        final boolean found = AStar.of(world).findPath(this.currentLocation, this.path.peek(), this.detour,
+                                                       Math.min(REPAIR_NODE_LIMIT, budget.getRemaining()));
+        this.spend(budget, world);
+        if(!found) return false;
+
+        this.path.replace(0, 0, this.detour);
+        return true;
+    }
+
+
+    /**
+     * Finds path to nearest instance of nonblocking.
+     * Uses the distance field of the type shared by every animal in the world, rather than searching on its own
      *
      * @param type - The type of object you're looking to find the closest route to
      * @param world - Reference to the world
      * @return whether if a path was found or not
      */
     public <T> boolean findPathToNearest(Class<T> type, World world) {
-        return this.findPath
-        ( (location) -> { 
-            // isInstance is null-safe, it returns false if argument is null, which is exactly what we want
-            return type.isInstance(world.getTile(location));
-        }, world);
+        return this.findPathToNearest(type, world, UNLIMITED);
+    }
+
+    /** 
+     * Finds path to nearest instance of nonblocking, if it is at most radius steps away.
+     * Uses the distance field of the type shared by every animal in the world, rather than searching on its own
+     *
+     * @param type - The type of object you're looking to find the closest route to
+     * @param world - Reference to the world
+     * @param radius - the most steps the path may take
+     * @return whether if a path was found or not
+     */
+    public <T> boolean findPathToNearest(Class<T> type, World world, int radius) {
+        return this.followDistanceField(type, DistanceField.Goal.STANDING_ON, world, radius);
     }
 
     /**
-     * Wrapper around findPath() method. Used to find path to tile *surrounding* the blocking tile
+     * Finds path to tile *surrounding* the nearest blocking tile.
+     * Uses the distance field of the type shared by every animal in the world, rather than searching on its own
      *
      * @param type - The type of object you're looking to find the closest route to
      * @param world - Reference to the world
      * @return whether if a path was found or not
      */
     public <T> boolean findPathToNearestBlocking(Class<T> type, World world) {
-        return this.findPath
-        ( (location) -> { 
-            for(Location t : world.getSurroundingTiles(location)) {
-                if(type.isInstance(world.getTile(t))) return true;
-            }
+        return this.findPathToNearestBlocking(type, world, UNLIMITED);
+    }
+
+    /**
+     * Finds path to tile *surrounding* the nearest blocking tile, if it is at most radius steps away.
+     * Uses the distance field of the type shared by every animal in the world, rather than searching on its own
+     *
+     * @param type - The type of object you're looking to find the closest route to
+     * @param world - Reference to the world
+     * @param radius - the most steps the path may take
+     * @return whether if a path was found or not
+     */
+    public <T> boolean findPathToNearestBlocking(Class<T> type, World world, int radius) {
+        return this.followDistanceField(type, DistanceField.Goal.ADJACENT_TO, world, radius);
+    }
+
+    /**
+     * Builds the path by following the shared distance field of a type
+     *
+     * @param type - The type of object you're looking to find the closest route to
+     * @param goal - whether the path should end on or next to the object
+     * @param world - Reference to the world
+     * @param radius - the most steps the path may take
+     * @return whether if a path was found or not
+     */
+    private boolean followDistanceField(Class<?> type, DistanceField.Goal goal, World world, int radius) {
+        this.path.clear();
+        this.path.bind(world);
+        this.cutShort = false;
+        // No starting point is set
+        if(this.currentLocation == null) return false;
+        // Nothing to search for, avoid flooding the whole map
+        if(world.countOf(type) == 0) return false;
+
+        final DistanceField field = DistanceFields.of(world).get(type, goal);
+        if(!this.buildPathWithin(field, radius)) return false;
+        final Location end = this.path.getLast();
+        if(field.isGoal(end.getX(), end.getY())) return true;
+
+        // The field was computed at the start of the time step, and the goal it leads to has been taken since (e.g. eaten or stood on).
+        // If goals are close by, searching on our own is cheap. Otherwise the field is brought up to date, which is cheaper than a long search
+        if(this.path.size() <= LOCAL_SEARCH_DISTANCE)
+            return this.findPath( (location) -> field.isGoal(location.getX(), location.getY()), world, radius);
+
+        this.path.clear();
+        field.invalidate();
+        return this.buildPathWithin(field, radius);
+    }
+
+    /**
+     * Builds the path from a distance field, unless the nearest goal is more than radius steps away
+     */
+    private boolean buildPathWithin(DistanceField field, int radius) {
+        final int distance = field.getDistanceFrom(this.currentLocation);
+        if(distance == -1) return false;
+        if(distance > radius) {
+            this.cutShort = true;
             return false;
-        }, world);
+        }
+        return field.buildPath(this.currentLocation, this.path);
     }
 
     /**
-     * Valdiates that the entire route is not obstructed.
+     * Valdiates that the next few steps of the route are not obstructed.
      * Note that this can drastically change as other animals step in and out of the path.
-     * Therefore, it is not worth file re-generating a new path simply because this returns false, as
-     * the path can quickly become valid again after a single time step.
+     * Therefore, only the steps coming up soon are checked, as the rest of the path
+     * can quickly become valid again after a single time step.
      *
      * @param world - Reference to the world
-     * @return whether if the entire path is not obstructed
+     * @return whether if the next steps of the path are not obstructed
      */
     public boolean isPathStillValid(World world) {
+        int checked = 0;
         for(Location loc : this.path) {
+            if(checked++ == VALIDATION_LOOKAHEAD) break;
             if(!world.isTileEmpty(loc)) return false;
         }
 
@@ -104,45 +328,69 @@ public class PathFinder {
         return !this.path.isEmpty();
     }
 
-    // TODO not finished
+    /**
+     * Repairs the first obstruction of the path by searching for a detour around it.
+     * Only the obstructed part of the path is replaced: the detour starts at the step before the obstruction
+     * (or currentLocation) and rejoins the path at the first free step after it, so the rest of the path is kept.
+     *
+     * @param world - Reference to the world
+     * @return whether if the path is free of obstructions afterwards, up to the next one after the repaired part
+     */
     public boolean fixObstructedPath(World world) {
-
+        this.cutShort = false;
         if(this.path.isEmpty()) return false;
         else if(this.currentLocation == null) return false;
 
-        Iterator<Location> iter = this.path.iterator();
-
-        // Hack to get around Javas rule that prevents mutation of primitives in lambdas
-        // Who cares? This isn't Haskell
-        int[] indexWrapper = {0};
-
-        BiFunction<Iterator<Location>, Function<Location, Boolean>, Integer> findObstruction = (it, cond) -> {
-            Location location = this.currentLocation;
-            while(it.hasNext()) {
-                location = it.next();
-                if(cond.apply(location)) {
-                    return indexWrapper[0];
-                }
-                indexWrapper[0]++;
-            }
-            return -1;
-        };
-
-        final Location previousCurrent = this.currentLocation;
-        int start = findObstruction.apply(iter, (l) -> { return !world.isTileEmpty(l); });
-
-        this.currentLocation = this.path.get(start);
-        int end = findObstruction.apply(iter, (l) -> { return world.isTileEmpty(l); });
+        // Find the first obstructed step, and the first free step after it
+        int obstruction = -1;
+        int rejoin = 0;
+        for(Location location : this.path) {
+            final boolean empty = world.isTileEmpty(location);
+            if(obstruction == -1 && !empty) obstruction = rejoin;
+            else if(obstruction != -1 && empty) break;
+            rejoin++;
+        }
+        if(obstruction == -1) return true;
+        // The end of the path is obstructed, so there's nothing to rejoin
+        if(rejoin == this.path.size()) return false;
+
+        final Location from = (obstruction == 0) ? this.currentLocation : this.path.get(obstruction - 1);
+        this.detour.clear();
+        this.detour.bind(world);
+        final SearchBudget budget = SearchBudget.of(world);
+        final boolean found = AStar.of(world).findPath(from, this.path.get(rejoin), this.detour,
+                                                       Math.min(REPAIR_NODE_LIMIT, budget.getRemaining()));
+        this.spend(budget, world);
+        if(!found) return false;
+
+        this.path.replace(obstruction, rejoin, this.detour);
+        return true;
+    }
 
-        if(start <= 0 || end == -1 || start == end) return false;
-        start -= 1;
-        end += 1;
+    /**
+     * Takes the next step of the path, repairing the path first if any of the next few steps are obstructed.
+     * If the next step is still obstructed, the path is kept, as the step may be free by the next time step.
+     *
+     * @param from - The location the step is taken from, i.e. the current location of the animal
+     * @param world - Reference to the world
+     * @return the next step, which is free to move to, or null if there is none
+     */
+    public Location takeNextStep(Location from, World world) {
+        if(this.path.isEmpty()) return null;
+        this.currentLocation = from;
+
+        // The path of a search starting at its own goal only holds the start
+        if(this.path.peek().equals(from)) {
+            this.path.poll();
+            return null;
+        }
 
-        this.setLocation(this.path.get(start));
+        if(!this.isPathStillValid(world)) this.fixObstructedPath(world);
+        if(!world.isTileEmpty(this.path.peek())) return null;
 
-        final boolean result = this.findPathToLocation(this.path.get(end), world);
-        this.setLocation(previousCurrent);
-        return result;
+        final Location next = this.path.poll();
+        this.currentLocation = next;
+        return next;
     }
 
     /**
@@ -150,8 +398,8 @@ public class PathFinder {
      *
      * @return the current path as queue
      */
-    public Queue<Location> getPath() {
-        return (Queue<Location>)this.path;
+    public Path getPath() {
+        return this.path;
     }
 
     /**
@@ -164,71 +412,70 @@ public class PathFinder {
         this.currentLocation = location;
     }
 
-    /**
-    * After BFS, the actual path needs to be traced out
-    * This simply hops through the hashmap constructed by the BFS algorithm
-    * to re-create the shortest path
-    *
-    * @param map - The hashmap constructed by BFS(findPath method)
-    * @param end - The final Location the BFS ended on
-    */
-    private void traceRoute(HashMap<Location, Location> map, Location end) {
-        ArrayList<Location> pathBuilder = new ArrayList<>();
-        pathBuilder.add(end);
-
-        Location startLocation = this.currentLocation;
-        while( !map.get(Utilities.getLast(pathBuilder)).equals(startLocation) )  {
-            pathBuilder.add( map.get( Utilities.getLast(pathBuilder) ));
-        }
-
-        // Path generated is backwards, we need to reverse it
-        for(int i = pathBuilder.size() - 1; i >= 0; i--) {
-            this.path.add(pathBuilder.get(i));
-        }
-
+    /** 
+     * BFS implementation that finds shortest route given that currentLocation
+     * is set and a condition for the goal is given.
+     * If currentLocation fulfills the condition, the path only holds currentLocation.
+     *
+     * @param condition - checks whether a location is the goal
+     * @param world - Reference to the world
+     * @return whether if a path was found or not
+     */
+    public boolean findPath(Function<Location, Boolean> condition, World world) {
+        return this.findPath(condition, world, UNLIMITED);
     }
 
     /** 
      * BFS implementation that finds shortest route given that currentLocation
-     * is set and a goal location is given
+     * is set and a condition for the goal is given, searching at most radius steps away.
+     * If currentLocation fulfills the condition, the path only holds currentLocation.
      *
-     * @param goal - The goal location that you're looking to find a route to
+     * @param condition - checks whether a location is the goal
      * @param world - Reference to the world
+     * @param radius - the most steps the path may take
      * @return whether if a path was found or not
      */
-    public boolean findPath(Function<Location, Boolean> condition, World world) {
+    public boolean findPath(Function<Location, Boolean> condition, World world, int radius) {
         this.path.clear();
+        this.path.bind(world);
+        this.cutShort = false;
         // No starting point is set
         if(this.currentLocation == null) return false;
 
-        // Queue contains the next location to visit
-        Queue<Location> queue = new LinkedList<>();
-        // pathTracer is used for two things:
-        // 1. to keep track of how the BFS algorithm reached each location, which can then be used to re-construct the path
-        // 2. it is used as a visited set to prevent cycles
-        HashMap<Location, Location> pathTracer = new HashMap<>();
-        pathTracer.put(this.currentLocation, this.currentLocation); // Mark start location as visisted
-
-        queue.add(this.currentLocation);
-        while(!queue.isEmpty()) {
-            Location focusedLocation = queue.poll();
-
-            // condition is a lambda function that checks if the focused location is the goal
-            if(condition.apply(focusedLocation)) {
-                // Goal is found, now re-trace the path taken
-                this.traceRoute(pathTracer, focusedLocation);
-                return true;
-            }
-            for(Location neighbour : world.getEmptySurroundingTiles(focusedLocation) ) {
-                // pathTracer is both used to trace out the paths taken AND it doubles as a visited set
-                if(!pathTracer.containsKey(neighbour)) {
-                    pathTracer.put(neighbour, focusedLocation);
-                    queue.add(neighbour);
-                }
-            }
+        final int size = world.getSize();
+        final int start = this.currentLocation.getY() * size + this.currentLocation.getX();
+        final SearchBudget budget = SearchBudget.of(world);
+        final SearchBuffers buffers = SearchBuffers.of(world);
+        final int end = buffers.breadthFirst(world, start, (tile) -> condition.apply(world.locationOf(tile % size, tile / size)),
+                                             radius, budget.getRemaining());
+        this.spend(budget, world);
+        if(end == -1) return false;
+
+        if(end == start) {
+            this.path.add(this.currentLocation);
+            return true;
         }
+        buffers.tracePath(start, end, this.path);
+        return true;
+    }
 
-        return false;
+    /**
+     * Counts the tiles the last search looked at against the budget, and notes whether it gave up early
+     */
+    private void spend(SearchBudget budget, World world) {
+        final SearchBuffers buffers = SearchBuffers.of(world);
+        budget.spend(buffers.expanded);
+        this.cutShort = buffers.cutShort;
+    }
+
+    /**
+     * Whether the last search gave up before searching every reachable tile, because of its radius or because the
+     * {@link SearchBudget} of the step was spent. If so, a goal may still exist further away or be found in a later step.
+     *
+     * @return whether the last search was cut short
+     */
+    public boolean wasCutShort() {
+        return this.cutShort;
     }
 
     /**
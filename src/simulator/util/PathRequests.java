@@ -0,0 +1,253 @@
+package simulator.util;
+
+import itumulator.world.Location;
+import itumulator.world.World;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds paths between two points on worker threads, so a long search doesn't hold up the step of the world
+ * (see {@link PathFinder#requestPathToDestination}). Requests are answered from a {@link DestinationField} of a snapshot of the blocking objects
+ * of the step they were made in, shared by every request to the same destination made from that snapshot. So animals heading the same way
+ * (e.g. a wolf pack at dusk) share one search, and are given the same paths as when searching on the simulator thread.
+ * The animal keeps following its old path (or waits) until the result is picked up in a later step.
+ *
+ * Results are picked up as soon as their search is done, so the step a path is used from depends on the timing of the threads.
+ * A request which isn't done within the deadline is given up on, and reported as cut short. Its search stops at the deadline too,
+ * so it doesn't hold up a worker thread. For repeatable simulations (e.g. with a fixed seed),
+ * the service can be made deterministic instead: every result is then picked up exactly one step after the request, waiting for the search if needed.
+ *
+ * Disabled by default, in which case paths are found right away on the simulator thread. Each world has its own instance, see {@link #of(World)}.
+ */
+public class PathRequests {
+    public static final long DEFAULT_DEADLINE = 50; // milliseconds
+
+    /**
+     * A path requested from the service. The result may be read once {@link PathRequests#isReady(Request)} says so
+     */
+    static final class Request {
+        private final Location start;
+        private final Location goal;
+        private final Path path;
+        private final long step;
+        private final long deadline; // System.nanoTime() by which the search must be done
+        private ForkJoinTask<?> task;
+        private final AtomicBoolean claimed; // taken by the worker starting the search, or by cancel() if it comes first
+        private volatile boolean done; // set by the worker once path and found are written
+        private boolean found;
+        private boolean timedOut; // set by the worker if the search stopped at the deadline
+        private boolean expired;
+
+        private Request(Location start, Location goal, World world, long step, long deadline) {
+            this.start = start;
+            this.goal = goal;
+            this.path = new Path();
+            this.path.bind(world);
+            this.step = step;
+            this.deadline = deadline;
+            this.claimed = new AtomicBoolean();
+        }
+
+        Location getStart() {
+            return this.start;
+        }
+
+        Location getGoal() {
+            return this.goal;
+        }
+
+        /**
+         * Provides the path found, excluding the start
+         */
+        Path getPath() {
+            return this.path;
+        }
+
+        boolean isFound() {
+            return !this.wasCutShort() && this.found;
+        }
+
+        /**
+         * Whether the request was given up on, because it wasn't done by the deadline
+         */
+        boolean wasCutShort() {
+            return this.expired || this.timedOut;
+        }
+    }
+
+    private final World world;
+    private final AtomicInteger queueDepth;
+    private ForkJoinPool pool;
+    private boolean enabled;
+    private boolean deterministic;
+    private long deadline;
+    private OccupancySnapshot snapshot; // the latest snapshot, reused until blocking objects change
+    private Map<Location, DestinationField> fields; // fields searching the latest snapshot, by destination
+
+    private PathRequests(World world) {
+        this.world = world;
+        this.queueDepth = new AtomicInteger();
+        this.pool = ForkJoinPool.commonPool();
+        this.deadline = DEFAULT_DEADLINE;
+    }
+
+    /**
+     * Provides the path requests of a world
+     *
+     * @param world - reference to the world
+     * @return the path requests of the world
+     */
+    public static PathRequests of(World world) {
+        return world.getService(PathRequests.class, PathRequests::new);
+    }
+
+    /**
+     * Sets whether paths requested are found on worker threads
+     *
+     * @param enabled - whether to search on worker threads
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Checks whether paths requested are found on worker threads
+     *
+     * @return whether the service is used
+     */
+    public synchronized boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Sets the pool the searches run in, the common pool by default
+     *
+     * @param pool - the pool to use for requests made from now on
+     */
+    public synchronized void setPool(ForkJoinPool pool) {
+        if(pool == null) throw new IllegalArgumentException("Pool cannot be null");
+        this.pool = pool;
+    }
+
+    /**
+     * Sets whether every result is picked up exactly one step after it was requested, which makes simulations repeatable
+     *
+     * @param deterministic - whether to wait for results rather than pick them up when done
+     */
+    public synchronized void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Checks whether every result is picked up exactly one step after it was requested
+     *
+     * @return whether the service is deterministic
+     */
+    public synchronized boolean isDeterministic() {
+        return this.deterministic;
+    }
+
+    /**
+     * Sets how long a request may take before it is given up on. Not used when the service is deterministic
+     *
+     * @param deadline - the time in milliseconds
+     * @throws IllegalArgumentException if the deadline isn't positive
+     */
+    public synchronized void setDeadline(long deadline) {
+        if(deadline <= 0) throw new IllegalArgumentException("Deadline must be positive");
+        this.deadline = deadline;
+    }
+
+    /**
+     * Provides how long a request may take before it is given up on
+     *
+     * @return the time in milliseconds
+     */
+    public synchronized long getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * Provides how many requests are waiting for or running their search
+     *
+     * @return the amount of requests
+     */
+    public int getQueueDepth() {
+        return this.queueDepth.get();
+    }
+
+    /**
+     * Requests a path. Must be called on the thread simulating the world
+     *
+     * @param start - the location to start from
+     * @param goal - the location to reach, which must be on the map
+     * @return the request, to be checked with isReady() in later steps
+     */
+    synchronized Request submit(Location start, Location goal) {
+        if(this.snapshot == null || !this.snapshot.isCurrent(this.world)) {
+            this.snapshot = new OccupancySnapshot(this.world);
+            this.fields = new HashMap<>();
+        }
+        final OccupancySnapshot snapshot = this.snapshot;
+        final DestinationField field = this.fields.computeIfAbsent(goal, destination -> new DestinationField(this.world, snapshot, destination));
+        final Request request = new Request(start, goal, this.world, this.world.getStepCount(),
+                                            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.deadline));
+        // Deterministic results are waited for, however long they take
+        final long searchDeadline = this.deterministic ? DestinationField.NO_DEADLINE : request.deadline;
+
+        this.queueDepth.incrementAndGet();
+        request.task = this.pool.submit(() -> {
+            if(!request.claimed.compareAndSet(false, true)) return;
+            try {
+                request.found = field.buildPath(request.start, request.path, searchDeadline);
+                if(!request.found && searchDeadline != DestinationField.NO_DEADLINE && System.nanoTime() - searchDeadline >= 0)
+                    request.timedOut = true;
+            } finally {
+                request.done = true;
+                this.queueDepth.decrementAndGet();
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Checks whether the result of a request can be read, giving up on it if it has passed its deadline
+     *
+     * @param request - the request
+     * @return whether the result can be read
+     */
+    synchronized boolean isReady(Request request) {
+        if(request.expired) return true;
+        if(this.deterministic) {
+            if(this.world.getStepCount() <= request.step) return false;
+            if(!request.done) request.task.join();
+            return true;
+        }
+        if(request.done) return true;
+        if(System.nanoTime() - request.deadline < 0) return false;
+
+        // A search already running can't be stopped, but its result is ignored
+        this.cancel(request);
+        return true;
+    }
+
+    /**
+     * Gives up on a request, e.g. because the animal is heading elsewhere
+     *
+     * @param request - the request
+     */
+    synchronized void cancel(Request request) {
+        request.expired = true;
+        // Cancelled before it started, so it won't count itself off the queue
+        if(request.claimed.compareAndSet(false, true)) {
+            request.task.cancel(false);
+            this.queueDepth.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package simulator.util;
+
+import itumulator.world.World;
+
+/**
+ * Limits how many tiles the searches of a {@link PathFinder} may look at in total during one step of a world,
+ * which bounds how long a step can take when many animals search at once (e.g. for food that doesn't exist).
+ * Once the budget of a step is spent, searches give up until the next step (see {@link PathFinder#wasCutShort()}).
+ * Distance fields are not counted, as each of them is computed at most once per step and shared by every animal.
+ *
+ * By default the budget is unlimited. Each world has its own budget, see {@link #of(World)}.
+ */
+public class SearchBudget {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final World world;
+    private int nodesPerStep;
+    private int spent;
+    private long step;
+
+    private SearchBudget(World world) {
+        this.world = world;
+        this.nodesPerStep = UNLIMITED;
+        this.step = world.getStepCount();
+    }
+
+    /**
+     * Provides the search budget of a world
+     *
+     * @param world - reference to the world
+     * @return the search budget of the world
+     */
+    public static SearchBudget of(World world) {
+        return world.getService(SearchBudget.class, SearchBudget::new);
+    }
+
+    /**
+     * Sets how many tiles may be searched in total during each step
+     *
+     * @param nodesPerStep - the amount of tiles, or UNLIMITED
+     * @throws IllegalArgumentException if the amount isn't positive
+     */
+    public synchronized void setNodesPerStep(int nodesPerStep) {
+        if(nodesPerStep <= 0) throw new IllegalArgumentException("Nodes per step must be positive");
+        this.nodesPerStep = nodesPerStep;
+    }
+
+    /**
+     * Provides how many tiles may be searched in total during each step
+     *
+     * @return the amount of tiles, or UNLIMITED
+     */
+    public synchronized int getNodesPerStep() {
+        return this.nodesPerStep;
+    }
+
+    /**
+     * Provides how many tiles may still be searched during the current step
+     *
+     * @return the amount of tiles, or UNLIMITED
+     */
+    public synchronized int getRemaining() {
+        if(this.nodesPerStep == UNLIMITED) return UNLIMITED;
+        this.update();
+        return Math.max(this.nodesPerStep - this.spent, 0);
+    }
+
+    /**
+     * Counts tiles searched during the current step against the budget
+     *
+     * @param nodes - the amount of tiles searched
+     */
+    synchronized void spend(int nodes) {
+        this.update();
+        this.spent += nodes;
+    }
+
+    /**
+     * Starts over with the full budget if the world has stepped
+     */
+    private void update() {
+        if(this.world.getStepCount() == this.step) return;
+        this.step = this.world.getStepCount();
+        this.spent = 0;
+    }
+}
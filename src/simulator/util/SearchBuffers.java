@@ -0,0 +1,248 @@
+package simulator.util;
+
+import itumulator.world.World;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Scratch memory for searches on the map (see {@link PathFinder#findPath} and {@link AStar}), kept in arrays covering the whole map
+ * and indexed by y * size + x. The arrays are reused between searches: each search gets a new generation number, and a tile only counts
+ * as visited if it was marked in the current generation, so nothing has to be cleared in between.
+ *
+ * Each thread gets its own buffers for each world, see {@link #of(World)}.
+ */
+final class SearchBuffers {
+    final int size;
+    final int[] parent;   // tile the search reached a tile from
+    final int[] cost;     // steps from the start
+    final int[] queue;    // breadth first search queue, every tile is queued at most once
+    private final int[] visited; // generation which last visited a tile
+    private final int[] closed;  // generation which last finished a tile
+    private int generation;
+
+    int expanded;     // tiles the last search looked at, see SearchBudget
+    boolean cutShort; // whether the last search stopped at its limits before running out of tiles
+
+    // Binary heap of tiles sorted by key, used by A*. Tiles may be in the heap more than once
+    private int[] heapTiles;
+    private long[] heapKeys;
+    private int heapSize;
+
+    /**
+     * Creates the buffers of every thread for a world
+     */
+    private static final class PerThread extends ThreadLocal<SearchBuffers> {
+        private final int size;
+
+        PerThread(World world) {
+            this.size = world.getSize();
+        }
+
+        @Override
+        protected SearchBuffers initialValue() {
+            return new SearchBuffers(this.size);
+        }
+    }
+
+    private SearchBuffers(int size) {
+        this.size = size;
+        final int tiles = size * size;
+        this.parent = new int[tiles];
+        this.cost = new int[tiles];
+        this.queue = new int[tiles];
+        this.visited = new int[tiles];
+        this.closed = new int[tiles];
+        this.heapTiles = new int[64];
+        this.heapKeys = new long[64];
+    }
+
+    /**
+     * Provides the buffers of the current thread for a world
+     *
+     * @param world - reference to the world
+     * @return the buffers
+     */
+    static SearchBuffers of(World world) {
+        return world.getService(PerThread.class, PerThread::new).get();
+    }
+
+    /**
+     * Starts a new search, forgetting every tile visited before
+     */
+    void nextSearch() {
+        this.heapSize = 0;
+        this.expanded = 0;
+        this.cutShort = false;
+        this.generation++;
+        if(this.generation == Integer.MAX_VALUE) { // start over before wrapping around, so old marks can't be mistaken for the new search
+            Arrays.fill(this.visited, 0);
+            Arrays.fill(this.closed, 0);
+            this.generation = 1;
+        }
+    }
+
+    /**
+     * Checks whether a tile has been visited by the current search
+     *
+     * @param tile - index of the tile
+     * @return whether it was visited
+     */
+    boolean isVisited(int tile) {
+        return this.visited[tile] == this.generation;
+    }
+
+    /**
+     * Marks a tile as visited by the current search
+     *
+     * @param tile - index of the tile
+     * @param from - index of the tile it was reached from
+     * @param cost - steps from the start
+     */
+    void visit(int tile, int from, int cost) {
+        this.visited[tile] = this.generation;
+        this.parent[tile] = from;
+        this.cost[tile] = cost;
+    }
+
+    /**
+     * Checks whether a tile has been finished by the current search, i.e. its shortest path is known
+     *
+     * @param tile - index of the tile
+     * @return whether it was finished
+     */
+    boolean isClosed(int tile) {
+        return this.closed[tile] == this.generation;
+    }
+
+    /**
+     * Marks a tile as finished by the current search
+     *
+     * @param tile - index of the tile
+     */
+    void close(int tile) {
+        this.closed[tile] = this.generation;
+    }
+
+    /**
+     * Breadth first search from a tile, walking only through tiles without blocking objects, until a goal is found.
+     * Starts a new search, so the path to the goal can be read with {@link #tracePath(int, int, Path)} afterwards.
+     * If the search gives up because of its limits, {@link #cutShort} is set.
+     *
+     * @param world - the world to search
+     * @param start - index of the tile to start from (usually occupied by the animal searching)
+     * @param isGoal - checks whether the tile with the index given is a goal. The start is checked too
+     * @param maxDistance - tiles further away than this amount of steps are not searched
+     * @param maxNodes - the search gives up after checking this many tiles
+     * @return index of the nearest goal, or -1 if none can be found
+     */
+    int breadthFirst(World world, int start, IntPredicate isGoal, int maxDistance, int maxNodes) {
+        this.nextSearch();
+        this.visit(start, start, 0);
+        this.queue[0] = start;
+
+        int head = 0, tail = 1;
+        while(head < tail) {
+            if(this.expanded == maxNodes) {
+                this.cutShort = true;
+                return -1;
+            }
+            this.expanded++;
+            final int tile = this.queue[head++];
+            if(isGoal.test(tile)) return tile;
+
+            final int x = tile % this.size, y = tile / this.size;
+            final int nextCost = this.cost[tile] + 1;
+            final int emptyNeighbours = world.getEmptyNeighbourMask(x, y);
+            if(nextCost > maxDistance) {
+                // Only matters if there was somewhere left to go
+                if(emptyNeighbours != 0) this.cutShort = true;
+                continue;
+            }
+            for(int direction = 0; direction < 8; direction++) {
+                if((emptyNeighbours & (1 << direction)) == 0) continue;
+                final int neighbour = (y + World.getNeighbourDy(direction)) * this.size + x + World.getNeighbourDx(direction);
+                if(this.isVisited(neighbour)) continue;
+                this.visit(neighbour, tile, nextCost);
+                this.queue[tail++] = neighbour;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Follows the parents from the end back to the start, adding the steps to a path
+     *
+     * @param start - index of the tile the search started from
+     * @param end - index of the tile the search ended at
+     * @param path - the path the tiles from the one after the start up to and including the end are added to
+     */
+    void tracePath(int start, int end, Path path) {
+        int length = 0;
+        for(int tile = end; tile != start; tile = this.parent[tile]) length++;
+
+        // Traced backwards, so fill the new steps from the end
+        final int offset = path.size();
+        path.extend(length);
+        for(int tile = end; tile != start; tile = this.parent[tile]) path.setTile(offset + --length, tile);
+    }
+
+    /**
+     * Checks whether the heap is empty
+     *
+     * @return whether the heap is empty
+     */
+    boolean heapIsEmpty() {
+        return this.heapSize == 0;
+    }
+
+    /**
+     * Adds a tile to the heap
+     *
+     * @param tile - index of the tile
+     * @param key - the key the heap is sorted by (lowest first)
+     */
+    void push(int tile, long key) {
+        if(this.heapSize == this.heapTiles.length) {
+            this.heapTiles = Arrays.copyOf(this.heapTiles, this.heapSize * 2);
+            this.heapKeys = Arrays.copyOf(this.heapKeys, this.heapSize * 2);
+        }
+        int i = this.heapSize++;
+        while(i > 0) {
+            final int parent = (i - 1) / 2;
+            if(this.heapKeys[parent] <= key) break;
+            this.heapTiles[i] = this.heapTiles[parent];
+            this.heapKeys[i] = this.heapKeys[parent];
+            i = parent;
+        }
+        this.heapTiles[i] = tile;
+        this.heapKeys[i] = key;
+    }
+
+    /**
+     * Removes the tile with the lowest key from the heap
+     *
+     * @return index of the tile
+     */
+    int pop() {
+        final int top = this.heapTiles[0];
+        final int lastTile = this.heapTiles[--this.heapSize];
+        final long lastKey = this.heapKeys[this.heapSize];
+
+        int i = 0;
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= this.heapSize) break;
+            if(child + 1 < this.heapSize && this.heapKeys[child + 1] < this.heapKeys[child]) child++;
+            if(this.heapKeys[child] >= lastKey) break;
+            this.heapTiles[i] = this.heapTiles[child];
+            this.heapKeys[i] = this.heapKeys[child];
+            i = child;
+        }
+        if(this.heapSize > 0) {
+            this.heapTiles[i] = lastTile;
+            this.heapKeys[i] = lastKey;
+        }
+        return top;
+    }
+}
@@ -4,7 +4,7 @@ import itumulator.world.Location;
 import itumulator.world.World;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.random.RandomGenerator;
 
 import simulator.util.exceptions.FullWorldException;
 
@@ -16,15 +16,36 @@ import simulator.util.exceptions.FullWorldException;
 public class Utilities {
 
     public static <T> boolean objectExistsOnSurroundingTiles(Class<T> type, Location location, World world) {
-        Set<Location> tiles = world.getSurroundingTiles(location);
-        for(Location l : tiles) {
-            if(type.isInstance(world.getTile(l))) return true;
+        final int size = world.getSize();
+        for(int direction = 0; direction < 8; direction++) {
+            final int x = location.getX() + World.getNeighbourDx(direction);
+            final int y = location.getY() + World.getNeighbourDy(direction);
+            if(x < 0 || x >= size || y < 0 || y >= size) continue;
+            if(type.isInstance(world.getTile(x, y))) return true;
         }
 
         return false;
     }
 
-    public static <T> T getRandomFromSet(Set<T> set, Random random) {
+    /**
+     * Picks a random set bit from a bitmask, e.g. a random direction from World's neighbour masks.
+     *
+     * @param mask - the bitmask to pick from
+     * @param random - the random numbers to draw from
+     * @return the index of the picked bit or -1 if no bit is set
+     */
+    public static int getRandomBit(int mask, RandomGenerator random) {
+        final int bits = Integer.bitCount(mask);
+        if(bits == 0) return -1;
+
+        // Skip a random amount of set bits
+        for(int i = random.nextInt(bits); i > 0; i--)
+            mask &= mask - 1;
+
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    public static <T> T getRandomFromSet(Set<T> set, RandomGenerator random) {
         final int setSize = set.size();
         if(setSize == 0) return null;
 
@@ -45,10 +66,6 @@ public class Utilities {
         );
     }
 
-    public static <T> T getRandomFromSet(Set<T> set) {
-        return getRandomFromSet(set, new Random());
-    }
-
     public static <T> T getLast(ArrayList<T> array) {
         return array.get(array.size() - 1);
     }
@@ -65,17 +82,12 @@ public class Utilities {
     }
 
 
-    // Two versions of the same function to reduce amount of times new instances
-    // of random are created and destroyed
-    public static Location getRandomLocation(final int worldSize) {
-        Random r = new Random();
-        return getRandomLocation(r, worldSize);
-    }
-    public static Location getRandomLocation(Random r, final int worldSize) {
+    // Every random pick takes the random numbers to draw from, e.g. those of a world object (Animal.getRandom), so runs repeat for a seed
+    public static Location getRandomLocation(RandomGenerator r, final int worldSize) {
         return new Location(r.nextInt(worldSize), r.nextInt(worldSize));
     }
 
-    public static Location getRandomEmptyLocation(final Random random, final World world, final int worldSize) {
+    public static Location getRandomEmptyLocation(final RandomGenerator random, final World world, final int worldSize) {
         Location location = getRandomLocation(random, worldSize);
 
         final int maxIterations = 100;
@@ -90,11 +102,8 @@ public class Utilities {
 
         return location;
     }
-    public static Location getRandomEmptyLocation(final World world, final int worldSize) {
-        return getRandomEmptyLocation(new Random(), world, worldSize);
-    }
 
-    public static Location getRandomEmptyNonBlockingLocation(final Random random, final World world, final int worldSize) {
+    public static Location getRandomEmptyNonBlockingLocation(final RandomGenerator random, final World world, final int worldSize) {
 
         Location location = getRandomLocation(random, worldSize);
 
@@ -102,6 +111,7 @@ public class Utilities {
         int i = 0;
         while(world.containsNonBlocking(location)) {
             location = getRandomLocation(random, worldSize);
+            i++;
             if(i > maxIterations) {
                 throw new FullWorldException("Could not find nonblocking-free tile");
             }
@@ -110,10 +120,6 @@ public class Utilities {
         return location;
     }
 
-    public static Location getRandomEmptyNonBlockingLocation(final World world, final int worldSize) {
-        return getRandomEmptyNonBlockingLocation(new Random(), world, worldSize);
-    }
-
 
     public static Location getClosestLocationFromSet( Set<Location> set, Location startLocation) {
         Location closest = null;
@@ -133,15 +139,7 @@ public class Utilities {
     }
 
     public static Boolean worldContainsTypeOfEntities(World world, Class<?> type) {
-        AtomicBoolean result = new AtomicBoolean(false);
-        Map<Object, Location> entities = world.getEntities();
-        entities.forEach((key, value) -> {
-            if (key.getClass().equals(type)) {
-                if (value != null) {
-                    result.set(true);
-                }
-            }
-        });
-        return result.get();
+        // World keeps a per-type index of the map, no need to scan the entities
+        return world.countOf(type) > 0;
     }
 }
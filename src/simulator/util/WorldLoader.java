@@ -19,6 +19,7 @@ import simulator.objects.NonBlockable;
 import simulator.actors.*;
 import simulator.actors.cordyceps.*;
 import simulator.objects.holes.RabbitHole;
+import simulator.objects.holes.RabbitHoleNetwork;
 import simulator.util.exceptions.*;
 import simulator.objects.plants.Grass;
 import simulator.objects.plants.Bush;
@@ -44,28 +45,40 @@ public class WorldLoader {
      * File format specification is included in project description
      *
      * @param filePath - Relative or full file path to input file
+     * @param windowResolution - resolution of the graphical window
+     * @param delay - delay in ms between simulation steps
      */
     public WorldLoader(String filePath, final int windowResolution, final int delay) throws FileNotFoundException {
+        this(filePath, windowResolution, delay, false);
+    }
+
+    /**
+     * Parses world input file into a headless program, i.e. without any graphical interface.
+     * Used for unattended runs on machines without a display.
+     *
+     * @param filePath - Relative or full file path to input file
+     */
+    public WorldLoader(String filePath) throws FileNotFoundException {
+        this(filePath, 0, 0, true);
+    }
+
+    private WorldLoader(String filePath, final int windowResolution, final int delay, final boolean headless) throws FileNotFoundException {
+        this(openInputFile(filePath, windowResolution, delay, headless), windowResolution, delay, headless, new Random());
+    }
+
+    private WorldLoader(Scanner scanner, final int windowResolution, final int delay, final boolean headless, final Random random) {
         // Match number ranges e.g. "24-35"
         this.rangePattern = Pattern.compile("^[0-9]+-[0-9]+$", Pattern.CASE_INSENSITIVE);
         // Simply match numbers e.g. "34"
         this.numberPattern = Pattern.compile("^[0-9]+$", Pattern.CASE_INSENSITIVE);
-
-        if(windowResolution <= 0) throw new IllegalArgumentException("Resolution must be greater than 0");
         this.windowResolution  = windowResolution;
-
-        if(delay <= 0) throw new IllegalArgumentException("Delay must be greater than 0");
         this.delay = delay;
 
-        File inputFile = new File(filePath);
-        if(!inputFile.isFile()) throw new IllegalArgumentException("Not a file or file not found");
-
         this.animals = new LinkedList<>();
         this.nonblockables = new LinkedList<>();
 
         String inputLine = null;
         int lineNumber = 1;
-        Scanner scanner = new Scanner(inputFile);
 
         { // First line includes worldSize
             inputLine = scanner.nextLine().trim();
@@ -80,10 +93,10 @@ public class WorldLoader {
             this.worldSize = Integer.parseInt(inputLine);
         }
 
-        this.program = new Program(this.worldSize, this.windowResolution, this.delay);
+        if(headless) this.program = new Program(this.worldSize);
+        else this.program = new Program(this.worldSize, this.windowResolution, this.delay);
         this.world = this.program.getWorld();
 
-        final Random random = new Random();
         while(scanner.hasNextLine()) {
             inputLine = scanner.nextLine().trim();
             lineNumber++;
@@ -113,6 +126,30 @@ public class WorldLoader {
         }
     }
 
+    /**
+     * Parses the contents of an input file into a headless program. Ranges and random locations are drawn from the seed given,
+     * so parsing the same contents with the same seed places the same objects on the same tiles.
+     *
+     * @param input - the contents of an input file
+     * @param seed - seed of the random ranges and locations
+     * @return the loader holding the parsed program
+     */
+    static WorldLoader parseHeadless(String input, long seed) {
+        return new WorldLoader(new Scanner(input), 0, 0, true, new Random(seed));
+    }
+
+    /**
+     * Checks the arguments and opens the input file
+     */
+    private static Scanner openInputFile(String filePath, final int windowResolution, final int delay, final boolean headless) throws FileNotFoundException {
+        if(!headless && windowResolution <= 0) throw new IllegalArgumentException("Resolution must be greater than 0");
+        if(!headless && delay <= 0) throw new IllegalArgumentException("Delay must be greater than 0");
+
+        File inputFile = new File(filePath);
+        if(!inputFile.isFile()) throw new IllegalArgumentException("Not a file or file not found");
+        return new Scanner(inputFile);
+    }
+
     /**
      * Gets the world size parsed from the input file
      *
@@ -354,7 +391,7 @@ public class WorldLoader {
                 WolfPack wolfPack = null;
 
                 if(newAnimal instanceof Wolf && numberOfObjects > 1) {
-                    wolfPack = new WolfPack(this.world);
+                    wolfPack = new WolfPack(this.world, random);
                 }
 
                 // Already cheked that if objectLocation is not null, then we know for sure that numberOfObjects is 1
@@ -378,6 +415,8 @@ public class WorldLoader {
                 for(int i = 0; i < numberOfObjects; i++) {
                     newNonBlockable = nonBlockableConstructor.get();
                     this.nonblockables.add(newNonBlockable);
+                    // Burrows all lead to the network of the world they're in
+                    if(newNonBlockable instanceof RabbitHole rabbitHole) RabbitHoleNetwork.of(this.world).addHole(rabbitHole);
                     if(objectLocation != null) {
                         if(!this.world.containsNonBlocking(objectLocation))
                         this.world.setTile(objectLocation, newNonBlockable);
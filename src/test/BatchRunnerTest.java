@@ -0,0 +1,45 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FileNotFoundException;
+
+import simulator.actors.Rabbit;
+import simulator.objects.plants.Grass;
+import simulator.util.BatchRunner;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void populationCurvesTest() throws FileNotFoundException {
+        // 10x10 world with grass 3-10 and rabbit 2-4
+        BatchRunner runner = new BatchRunner("resources/inputs/week-1/t1-2cde.txt", 2);
+        BatchRunner.Result result = runner.run(4, 5, 1);
+
+        assertEquals(4, result.getRuns());
+        assertTrue(result.getSpecies().contains(Rabbit.class));
+        double[] rabbits = result.getMeanPopulation(Rabbit.class);
+        double[] grass = result.getMeanPopulation(Grass.class);
+        assertEquals(6, rabbits.length);
+        assertTrue(rabbits[0] >= 2 && rabbits[0] <= 4);
+        assertTrue(grass[0] >= 3 && grass[0] <= 10);
+        assertTrue(result.getWorldStepsPerSecond() > 0);
+
+        // The worlds are loaded from the seed, so the same seed starts out the same
+        BatchRunner.Result again = runner.run(4, 0, 1);
+        assertEquals(rabbits[0], again.getMeanPopulation(Rabbit.class)[0]);
+        assertEquals(grass[0], again.getMeanPopulation(Grass.class)[0]);
+    }
+
+    @Test
+    public void seededRunsRepeatTest() throws FileNotFoundException {
+        // 10x10 world with 20-30 grass and a rabbit
+        BatchRunner runner = new BatchRunner("resources/inputs/week-1/t1-1c.txt", 2);
+        BatchRunner.Result first = runner.run(3, 60, 42);
+        BatchRunner.Result second = runner.run(3, 60, 42);
+
+        assertArrayEquals(first.getMeanPopulation(Grass.class), second.getMeanPopulation(Grass.class));
+        assertArrayEquals(first.getMeanPopulation(Rabbit.class), second.getMeanPopulation(Rabbit.class));
+    }
+}
@@ -1,12 +1,14 @@
 
 package test;
 
+import itumulator.simulator.Simulator;
 import itumulator.world.Location;
 import itumulator.world.World;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import simulator.objects.plants.Bush;
 import simulator.objects.plants.Plant;
+import simulator.objects.plants.VegetationField;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -86,4 +88,39 @@ class BushTest {
 
     }
 
+
+    @Test
+    void vegetationFieldBerriesTest() {
+        Bush bush = new Bush();
+        this.w.setTile(new Location(2, 2), bush);
+        VegetationField field = VegetationField.of(this.w);
+        field.enable();
+
+        // Not ripe yet, so there's nothing to eat
+        assertFalse(field.consume(this.w, 2, 2));
+
+        // Grown by the field, with the stage of the bush kept up to date for display
+        Simulator simulator = new Simulator(this.w, 0);
+        while(bush.getCurrentStage() != Plant.Stage.RIPE && this.w.contains(bush)) simulator.simulate();
+        assertTrue(this.w.contains(bush));
+        assertSame(Bush.ripeBush, bush.getInformation());
+
+        assertTrue(field.consume(this.w, 2, 2));
+        assertEquals(Plant.Stage.SPROUTING, bush.getCurrentStage());
+        assertTrue(this.w.contains(bush));
+    }
+
+    @Test
+    void vegetationFieldRipenTest() {
+        // Ripening a bush the field has taken over ripens it in the field too, so its berries can be eaten
+        Bush bush = new Bush();
+        this.w.setTile(new Location(2, 2), bush);
+        VegetationField field = VegetationField.of(this.w);
+        field.enable();
+        assertFalse(field.consume(this.w, 2, 2));
+
+        bush.setToRipe();
+        assertTrue(field.consume(this.w, 2, 2));
+        assertEquals(Plant.Stage.SPROUTING, bush.getCurrentStage());
+    }
 }
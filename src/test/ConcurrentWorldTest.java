@@ -0,0 +1,197 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import itumulator.world.ConcurrentWorld;
+import itumulator.world.Location;
+import itumulator.world.NonBlocking;
+
+public class ConcurrentWorldTest {
+
+    @Test
+    public void concurrentMovesTest() throws InterruptedException {
+        ConcurrentWorld world = new ConcurrentWorld(40);
+        List<Object> rocks = new ArrayList<>();
+        for(int i = 0; i < 400; i++) {
+            Object rock = new Object();
+            world.setTile(new Location(i % 40, i / 40 * 4), rock);
+            rocks.add(rock);
+        }
+
+        // Every thread moves its own rocks around at random, often trying tiles taken by others
+        AtomicInteger failures = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < 4; t++) {
+            final int first = t * 100;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(first);
+                for(int i = 0; i < 20_000; i++) {
+                    Object rock = rocks.get(first + random.nextInt(100));
+                    Location from = world.getLocation(rock);
+                    int x = Math.max(0, Math.min(39, from.getX() + random.nextInt(3) - 1));
+                    int y = Math.max(0, Math.min(39, from.getY() + random.nextInt(3) - 1));
+                    try {
+                        world.move(rock, new Location(x, y));
+                    } catch(IllegalArgumentException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        // Meanwhile a reader copies the entities, as a renderer would
+        for(int i = 0; i < 200; i++) {
+            Map<Object, Location> entities = world.getEntities();
+            assertEquals(400, entities.size());
+        }
+        for(Thread thread : threads) thread.join();
+
+        // No rock was lost or doubled, and each is where the map says
+        assertTrue(failures.get() > 0);
+        int placed = 0;
+        for(int y = 0; y < 40; y++) {
+            for(int x = 0; x < 40; x++) {
+                Object o = world.getTile(x, y);
+                if(o == null) continue;
+                assertEquals(new Location(x, y), world.getLocation(o));
+                placed++;
+            }
+        }
+        assertEquals(400, placed);
+    }
+
+    @Test
+    public void readWhileReplacingTest() throws InterruptedException {
+        // Objects remember the tile they were put on. Deleting one frees its handle for the next one added elsewhere,
+        // and a reader must never see an object on a tile it wasn't put on
+        ConcurrentWorld world = new ConcurrentWorld(20);
+        Random random = new Random(5);
+        Marker[] blocking = new Marker[100], nonBlocking = new Marker[100];
+        for(int i = 0; i < 100; i++) {
+            blocking[i] = place(world, new Marker(), random);
+            nonBlocking[i] = place(world, new NonBlockingMarker(), random);
+        }
+
+        List<Thread> writers = new ArrayList<>();
+        for(Marker[] markers : new Marker[][] { blocking, nonBlocking }) {
+            Thread writer = new Thread(() -> {
+                Random r = new Random(markers == blocking ? 1 : 2);
+                for(int i = 0; i < 50_000; i++) {
+                    int m = r.nextInt(markers.length);
+                    world.delete(markers[m]);
+                    markers[m] = place(world, markers == blocking ? new Marker() : new NonBlockingMarker(), r);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+
+        int seen = 0;
+        while(writers.stream().anyMatch(Thread::isAlive)) {
+            for(int y = 0; y < 20; y++) {
+                for(int x = 0; x < 20; x++) {
+                    for(Object o : new Object[] { world.getTile(x, y), world.getNonBlocking(x, y) }) {
+                        if(o == null) continue;
+                        assertEquals(new Location(x, y), ((Marker) o).home);
+                        seen++;
+                    }
+                }
+            }
+        }
+        for(Thread writer : writers) writer.join();
+        assertTrue(seen > 0);
+        assertEquals(200, world.getEntities().size());
+    }
+
+    @Test
+    public void concurrentQueriesTest() throws Exception {
+        // Several threads looking up types at once fill the type index's caches together, starting afresh in every round
+        // enough types that the caches grow while they are filled
+        Class<?>[] types = { Object.class, Marker.class, NonBlockingMarker.class, NonBlocking.class, Runnable.class, String.class, Integer.class,
+            Number.class, Long.class, Double.class, Float.class, Short.class, Byte.class, Character.class, Boolean.class, CharSequence.class,
+            Comparable.class, Iterable.class, java.util.Collection.class, List.class, ArrayList.class, Map.class, Random.class, Thread.class,
+            Exception.class, RuntimeException.class, Error.class, StringBuilder.class, Appendable.class, AutoCloseable.class, Cloneable.class,
+            java.io.Serializable.class, Enum.class, Record.class, Class.class, Math.class, System.class, Location.class, ConcurrentWorld.class };
+        int[] counts = new int[types.length];
+        counts[0] = 200;
+        counts[1] = 200;
+        counts[2] = 100;
+        counts[3] = 100;
+        AtomicReference<ConcurrentWorld> round = new AtomicReference<>();
+        CyclicBarrier barrier = new CyclicBarrier(5);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < 4; t++) {
+            final int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    for(int r = 0; r < 200; r++) {
+                        barrier.await();
+                        ConcurrentWorld world = round.get();
+                        for(int i = 0; i < types.length; i++) {
+                            int q = (i + offset) % types.length;
+                            assertEquals(counts[q], world.countOf(types[q]));
+                            assertEquals(counts[q], world.locationsOf(types[q]).size());
+                            assertEquals(counts[q] > 0, world.nearestOf(types[q], new Location(10, 10), 20) != null);
+                        }
+                        barrier.await();
+                    }
+                } catch(Throwable e) {
+                    failure.compareAndSet(null, e);
+                    barrier.reset();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Random random = new Random(7);
+        try {
+            for(int r = 0; r < 200; r++) {
+                // every marker on a tile of its own, so there are as many locations as markers
+                ConcurrentWorld world = new ConcurrentWorld(20);
+                List<Integer> tiles = new ArrayList<>();
+                for(int i = 0; i < 400; i++) tiles.add(i);
+                Collections.shuffle(tiles, random);
+                for(int i = 0; i < 200; i++) {
+                    int tile = tiles.get(i);
+                    world.setTile(new Location(tile % 20, tile / 20), i % 2 == 0 ? new Marker() : new NonBlockingMarker());
+                }
+                round.set(world);
+                barrier.await();
+                barrier.await();
+            }
+        } catch(BrokenBarrierException e) {
+            // a query thread failed, reported below
+        }
+        for(Thread thread : threads) thread.join();
+        assertNull(failure.get());
+    }
+
+    private static Marker place(ConcurrentWorld world, Marker marker, Random random) {
+        Location l = new Location(random.nextInt(20), random.nextInt(20));
+        while(marker instanceof NonBlocking ? world.containsNonBlocking(l) : !world.isTileEmpty(l))
+            l = new Location(random.nextInt(20), random.nextInt(20));
+        marker.home = l;
+        world.setTile(l, marker);
+        return marker;
+    }
+
+    private static class Marker {
+        Location home;
+    }
+
+    private static class NonBlockingMarker extends Marker implements NonBlocking {
+    }
+}
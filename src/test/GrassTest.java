@@ -1,12 +1,15 @@
 package test;
 
 import itumulator.executable.DisplayInformation;
+import itumulator.simulator.Simulator;
 import itumulator.world.Location;
 import itumulator.world.World;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import simulator.actors.Rabbit;
 import simulator.objects.plants.Grass;
 import simulator.objects.plants.Plant;
+import simulator.objects.plants.VegetationField;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -104,4 +107,50 @@ class GrassTest {
             }
         }
     }
+
+    @Test
+    void vegetationFieldTest() {
+        World world = new World(20);
+        Grass grass = new Grass();
+        grass.setToRipe();
+        world.setTile(new Location(10, 10), grass);
+        VegetationField field = VegetationField.of(world);
+        field.enable();
+        Simulator simulator = new Simulator(world, 0);
+
+        // The grass no longer acts, but the field spreads it all the same
+        assertFalse(world.isAwake(grass));
+        for(int i = 0; i < 60; i++) simulator.simulate();
+        assertTrue(world.countOf(Grass.class) > 1);
+        for(Location l : world.locationsOf(Grass.class)) assertFalse(world.isAwake((Grass)world.getNonBlocking(l)));
+
+        // Eating goes through the field, which then forgets the grass
+        assertTrue(field.consume(world, 10, 10));
+        assertFalse(world.contains(grass));
+        assertFalse(field.consume(world, 10, 10));
+
+        // Grass placed later is taken over once it acts
+        Location empty = world.locationOf(0, 0);
+        if(world.containsNonBlocking(empty)) world.delete(world.getNonBlocking(empty));
+        Grass late = new Grass();
+        world.setTile(empty, late);
+        simulator.simulate();
+        assertFalse(world.isAwake(late));
+        assertTrue(late.consume(world));
+        assertFalse(world.contains(late));
+    }
+
+    @Test
+    void vegetationFieldDisabledTest() {
+        // Grass acting and being eaten in a world which never enabled the field doesn't create one
+        World world = new World(5);
+        Grass grass = new Grass();
+        world.setTile(new Location(2, 2), grass);
+        Rabbit rabbit = new Rabbit();
+        world.setTile(new Location(2, 2), rabbit);
+        Simulator simulator = new Simulator(world, 0);
+        for(int i = 0; i < 5; i++) simulator.simulate();
+        assertFalse(VegetationField.isEnabled(world));
+        assertNull(world.findService(VegetationField.class));
+    }
 }
@@ -7,11 +7,15 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.List;
 import java.util.Queue;
 import java.util.ArrayList;
+import java.util.Random;
 
 import itumulator.world.World;
 import itumulator.world.Location;
 
+import simulator.util.ClusterGraph;
 import simulator.util.PathFinder;
+import simulator.util.PathRequests;
+import simulator.util.SearchBudget;
 import simulator.actors.Rabbit;
 import simulator.objects.plants.Grass;
 
@@ -67,6 +71,21 @@ public class PathFinderTest {
         }
     }
 
+    @Test
+    public void straightPathTest() {
+        this.world = new World(5);
+
+        // With nothing in the way, the path to a location on the same row should stay on that row
+        this.pf.setLocation(new Location(0,2));
+        assertTrue(this.pf.findPathToLocation(new Location(4,2), this.world));
+
+        Queue<Location> foundPath = this.pf.getPath();
+        assertEquals(4, foundPath.size());
+        for(int x = 1; x <= 4; x++) {
+            assertEquals(new Location(x,2), foundPath.poll());
+        }
+    }
+
     @Test
     public void trappedTest() {
         this.world = new World(3);
@@ -100,7 +119,308 @@ public class PathFinderTest {
 
     }
 
+    @Test
+    public void findNearestGrassAfterGrassChangesTest() {
+        this.world = new World(5);
+
+        world.setTile(new Location(0,0), new Grass());
 
-}
+        this.pf.setLocation(new Location(4,4));
+        assertTrue(this.pf.findPathToNearest(Grass.class, this.world));
+        assertEquals(4, this.pf.getPath().size());
+
+        // Grass placed since must be found once time has passed
+        world.setTile(new Location(3,3), new Grass());
+        world.step();
+        assertTrue(this.pf.findPathToNearest(Grass.class, this.world));
+        assertTrue(this.pf.isFinalLocationInPath(new Location(3,3)));
+        assertEquals(1, this.pf.getPath().size());
+    }
+
+    @Test
+    public void findNearestBlockingTest() {
+        this.world = new World(5);
+
+        world.setTile(new Location(0,4), new Rabbit());
+        world.setTile(new Location(4,1), new Rabbit());
+
+        this.pf.setLocation(new Location(4,4));
+        assertTrue(this.pf.findPathToNearestBlocking(Rabbit.class, this.world));
+
+        // Path must end next to a rabbit, and the nearest tile next to a rabbit is 2 steps away
+        Location end = this.pf.getFinalLocationInPath();
+        assertEquals(2, this.pf.getPath().size());
+        assertTrue(this.world.getSurroundingTiles(end).stream().anyMatch(l -> this.world.getTile(l) instanceof Rabbit));
+    }
+
+    @Test
+    public void findNearestWithinRadiusTest() {
+        this.world = new World(5);
+
+        world.setTile(new Location(0,0), new Grass());
+
+        // Grass is 4 steps away
+        this.pf.setLocation(new Location(4,4));
+        assertFalse(this.pf.findPathToNearest(Grass.class, this.world, 3));
+        assertTrue(this.pf.wasCutShort());
+        assertTrue(this.pf.findPathToNearest(Grass.class, this.world, 4));
+        assertFalse(this.pf.wasCutShort());
+
+        assertFalse(this.pf.findPath(l -> l.getX() == 0 && l.getY() == 0, this.world, 3));
+        assertTrue(this.pf.wasCutShort());
+        assertTrue(this.pf.findPath(l -> l.getX() == 0 && l.getY() == 0, this.world, 4));
+    }
+
+    @Test
+    public void searchBudgetTest() {
+        this.world = new World(5);
+        SearchBudget.of(this.world).setNodesPerStep(10);
+
+        // Searching the whole map spends the budget of the step
+        this.pf.setLocation(new Location(4,4));
+        assertFalse(this.pf.findPath(l -> false, this.world));
+        assertTrue(this.pf.wasCutShort());
+        assertEquals(0, SearchBudget.of(this.world).getRemaining());
+        assertFalse(this.pf.findPathToLocation(new Location(3,3), this.world));
+
+        // The budget is renewed each step
+        world.step();
+        assertTrue(this.pf.findPathToLocation(new Location(3,3), this.world));
+        assertFalse(this.pf.wasCutShort());
+    }
+
+    @Test
+    public void fixObstructedPathTest() {
+        this.world = new World(7);
+
+        this.pf.setLocation(new Location(0,3));
+        assertTrue(this.pf.findPathToLocation(new Location(6,3), this.world));
+        assertEquals(6, this.pf.getPath().size());
+
+        // Only the next few steps are checked
+        world.setTile(new Location(5,3), new Rabbit());
+        assertTrue(this.pf.isPathStillValid(this.world));
+        world.setTile(new Location(2,3), new Rabbit());
+        assertFalse(this.pf.isPathStillValid(this.world));
+
+        // The detour goes around the first obstruction and rejoins the path right after it
+        assertTrue(this.pf.fixObstructedPath(this.world));
+        List<Location> repaired = new ArrayList<>(this.pf.getPath());
+        assertEquals(new Location(1,3), repaired.get(0));
+        assertEquals(new Location(3,3), repaired.get(2));
+        assertFalse(repaired.contains(new Location(2,3)));
+        assertTrue(this.pf.isFinalLocationInPath(new Location(6,3)));
+        assertTrue(this.pf.isPathStillValid(this.world));
+    }
+
+    @Test
+    public void takeNextStepTest() {
+        this.world = new World(5);
+
+        Location start = new Location(0,2);
+        world.setTile(start, new Rabbit());
+        this.pf.setLocation(start);
+        assertTrue(this.pf.findPathToLocation(new Location(4,2), this.world));
+
+        // The next step is blocked, so the path is repaired rather than dropped
+        world.setTile(new Location(1,2), new Rabbit());
+        Location next = this.pf.takeNextStep(start, this.world);
+        assertNotNull(next);
+        assertTrue(this.world.isTileEmpty(next));
+        assertTrue(this.pf.isFinalLocationInPath(new Location(4,2)));
 
+        // The goal itself is blocked, the path is kept for later
+        world.setTile(new Location(4,2), new Rabbit());
+        assertFalse(this.pf.fixObstructedPath(this.world));
+        assertTrue(this.pf.hasPath());
+    }
+
+    @Test
+    public void pathQueueTest() {
+        this.world = new World(20);
+
+        this.pf.setLocation(new Location(0,0));
+        assertTrue(this.pf.findPathToLocation(new Location(19,0), this.world));
+        Queue<Location> path = this.pf.getPath();
+        assertEquals(19, path.size());
+
+        // Taking steps and adding new ones wraps around the storage of the path, which must keep the order
+        for(int x = 1; x <= 10; x++) assertEquals(new Location(x,0), path.poll());
+        for(int y = 1; y <= 10; y++) path.add(new Location(19,y));
+
+        assertEquals(19, path.size());
+        assertEquals(new Location(11,0), path.peek());
+        assertTrue(this.pf.isFinalLocationInPath(new Location(19,10)));
+        List<Location> steps = new ArrayList<>(path);
+        assertEquals(new Location(19,0), steps.get(8));
+        assertEquals(new Location(19,1), steps.get(9));
+        assertThrows(IllegalArgumentException.class, () -> path.add(new Location(20,0)));
+    }
+
+    @Test
+    public void hierarchicalPathTest() {
+        this.world = new World(64);
+        ClusterGraph.of(this.world).setThreshold(64);
+
+        // Wall across the map, with a single gap far from the straight line
+        for(int y = 0; y < 64; y++) {
+            if(y != 60) world.setTile(new Location(32,y), new Rabbit());
+        }
+
+        this.pf.setLocation(new Location(2,2));
+        assertTrue(this.pf.findPathToLocation(new Location(60,2), this.world));
+        assertTrue(this.pf.isFinalLocationInPath(new Location(60,2)));
+        assertTrue(this.pf.getPath().contains(new Location(32,60)));
+
+        // Closing the gap must be noticed
+        Rabbit gap = new Rabbit();
+        world.setTile(new Location(32,60), gap);
+        assertFalse(this.pf.findPathToLocation(new Location(60,2), this.world));
+
+        world.delete(gap);
+        assertTrue(this.pf.findPathToLocation(new Location(60,2), this.world));
+    }
+
+    @Test
+    public void jumpPointSearchMatchesBfsTest() {
+        Random random = new Random(42);
+        for(int map = 0; map < 20; map++) {
+            this.world = new World(20);
+            for(int i = 0; i < 100; i++) {
+                Location l = new Location(random.nextInt(20), random.nextInt(20));
+                if(world.isTileEmpty(l)) world.setTile(l, new Rabbit());
+            }
+
+            for(int query = 0; query < 20; query++) {
+                Location start = new Location(random.nextInt(20), random.nextInt(20));
+                Location goal = new Location(random.nextInt(20), random.nextInt(20));
+                if(!world.isTileEmpty(goal) || start.equals(goal)) continue;
+
+                PathFinder jps = new PathFinder(start);
+                jps.setStrategy(PathFinder.Strategy.JUMP_POINT_SEARCH);
+                this.pf.setLocation(start);
+
+                boolean found = this.pf.findPath(l -> l.equals(goal), this.world);
+                assertEquals(found, jps.findPathToLocation(goal, this.world));
+                if(!found) continue;
+
+                // Equally short, though the steps may differ
+                assertEquals(this.pf.getPath().size(), jps.getPath().size());
+                assertTrue(jps.isFinalLocationInPath(goal));
+                Location previous = start;
+                for(Location step : jps.getPath()) {
+                    assertTrue(world.isTileEmpty(step));
+                    assertEquals(1, Math.max(Math.abs(step.getX() - previous.getX()), Math.abs(step.getY() - previous.getY())));
+                    previous = step;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void destinationFieldTest() {
+        this.world = new World(20);
+        Random random = new Random(7);
+        for(int i = 0; i < 100; i++) {
+            Location l = new Location(random.nextInt(20), random.nextInt(20));
+            if(world.isTileEmpty(l)) world.setTile(l, new Rabbit());
+        }
+        Location hole = new Location(10,10);
+        if(!world.isTileEmpty(hole)) world.delete(world.getTile(hole));
 
+        // Animals heading to the same place share one field, and find paths as short as searching on their own
+        for(int query = 0; query < 30; query++) {
+            Location start = new Location(random.nextInt(20), random.nextInt(20));
+            if(start.equals(hole)) continue;
+            PathFinder shared = new PathFinder(start);
+            this.pf.setLocation(start);
+
+            boolean found = this.pf.findPath(l -> l.equals(hole), this.world);
+            assertEquals(found, shared.findPathToDestination(hole, this.world));
+            if(!found) continue;
+            assertEquals(this.pf.getPath().size(), shared.getPath().size());
+            assertTrue(shared.isFinalLocationInPath(hole));
+            Location previous = start;
+            for(Location step : shared.getPath()) {
+                assertTrue(world.isTileEmpty(step));
+                assertEquals(1, Math.max(Math.abs(step.getX() - previous.getX()), Math.abs(step.getY() - previous.getY())));
+                previous = step;
+            }
+        }
+
+        // Walls around the hole are noticed from the next step
+        for(int direction = 0; direction < 8; direction++) {
+            Location l = new Location(10 + World.getNeighbourDx(direction), 10 + World.getNeighbourDy(direction));
+            if(world.isTileEmpty(l)) world.setTile(l, new Rabbit());
+        }
+        world.step();
+        this.pf.setLocation(new Location(0,0));
+        assertFalse(this.pf.findPathToDestination(hole, this.world));
+    }
+
+    @Test
+    public void destinationFieldBlockedTest() {
+        this.world = new World(5);
+        Location hole = new Location(4,2);
+        this.pf.setLocation(new Location(0,2));
+        assertTrue(this.pf.findPathToDestination(hole, this.world));
+        assertEquals(4, this.pf.getPath().size());
+
+        // Within the same step the search is reused, so a wall put up meanwhile leaves no path rather than one with repeated steps
+        for(int y = 0; y < 5; y++) world.setTile(new Location(3,y), new Rabbit());
+        assertFalse(this.pf.findPathToDestination(hole, this.world));
+        assertEquals(0, this.pf.getPath().size());
+    }
+
+    @Test
+    public void destinationFieldDetourTest() {
+        this.world = new World(7);
+        Location hole = new Location(6,3);
+        this.pf.setLocation(new Location(0,3));
+        assertTrue(this.pf.findPathToDestination(hole, this.world));
+
+        // A wall put up within the same step blocks the way the field found, so the path goes around it by searching the map as it is
+        for(int y = 1; y < 7; y++) world.setTile(new Location(3,y), new Rabbit());
+        assertTrue(this.pf.findPathToDestination(hole, this.world));
+        assertTrue(this.pf.getPath().contains(new Location(3,0)));
+        assertTrue(this.pf.isFinalLocationInPath(hole));
+    }
+
+    @Test
+    public void asynchronousPathTest() {
+        this.world = new World(30);
+        for(int y = 0; y < 25; y++) world.setTile(new Location(15,y), new Rabbit());
+        PathRequests requests = PathRequests.of(this.world);
+        requests.setEnabled(true);
+        requests.setDeterministic(true);
+
+        // The result is picked up in the step after the request
+        this.pf.setLocation(new Location(2,2));
+        assertFalse(this.pf.requestPathToDestination(new Location(28,2), this.world));
+        assertFalse(this.pf.requestPathToDestination(new Location(28,2), this.world));
+        world.step();
+        assertTrue(this.pf.requestPathToDestination(new Location(28,2), this.world));
+        assertEquals(0, requests.getQueueDepth());
+        assertTrue(this.pf.isFinalLocationInPath(new Location(28,2)));
+        assertTrue(this.pf.getPath().contains(new Location(15,25)) || this.pf.getPath().contains(new Location(15,26)));
+
+        PathFinder sync = new PathFinder(new Location(2,2));
+        assertTrue(sync.findPathToLocation(new Location(28,2), this.world));
+        assertEquals(sync.getPath().size(), this.pf.getPath().size());
+
+        // Searched the same way as on the simulator thread, so the path is the same one
+        PathFinder field = new PathFinder(new Location(2,2));
+        assertTrue(field.findPathToDestination(new Location(28,2), this.world));
+        for(int i = 0; i < field.getPath().size(); i++) assertEquals(field.getPath().get(i), this.pf.getPath().get(i));
+
+        // Having moved along the path while waiting, the steps behind are skipped
+        Location moved = this.pf.getPath().get(2);
+        PathFinder waiting = new PathFinder(new Location(2,2));
+        assertFalse(waiting.requestPathToDestination(new Location(28,2), this.world));
+        world.step();
+        waiting.setLocation(moved);
+        assertTrue(waiting.requestPathToDestination(new Location(28,2), this.world));
+        assertEquals(this.pf.getPath().size() - 3, waiting.getPath().size());
+        assertTrue(waiting.isFinalLocationInPath(new Location(28,2)));
+    }
+}
@@ -12,6 +12,7 @@ import simulator.objects.holes.RabbitHole;
 import simulator.objects.holes.RabbitHoleNetwork;
 
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,8 +24,9 @@ class RabbitHoleAndNetworkTest {
     @BeforeEach
     void setUp() {
         this.world = new World(5);
-        this.network = RabbitHoleNetwork.getInstance();
+        this.network = RabbitHoleNetwork.of(this.world);
         this.hole = new RabbitHole();
+        this.network.addHole(this.hole);
     }
 
     @Test
@@ -81,6 +83,35 @@ class RabbitHoleAndNetworkTest {
         assertEquals(nl, entities.get(rabbit));
     }
 
+    @Test
+    void networkPerWorldTest() {
+        World other = new World(5);
+        Rabbit rabbit = new Rabbit();
+        RabbitHole otherHole = new RabbitHole();
+        Location l = new Location(0, 0);
+        other.setTile(l, otherHole);
+        other.setTile(l, rabbit);
+        otherHole.enterRabbit(rabbit, other);
+
+        assertNotSame(this.network, RabbitHoleNetwork.of(other));
+        assertTrue(RabbitHoleNetwork.of(other).getInhabitants().contains(rabbit));
+        assertFalse(this.network.getInhabitants().contains(rabbit));
+        assertFalse(this.network.getEntrances().contains(otherHole));
+    }
+
+    @Test
+    void holeLocationTest() {
+        Location l = new Location(2, 3);
+        this.world.setTile(l, this.hole);
+        RabbitHole outside = new RabbitHole();
+        this.world.setTile(new Location(4, 4), outside);
+
+        assertSame(this.hole, this.network.getHoleFromLocation(this.world, l));
+        assertNull(this.network.getHoleFromLocation(this.world, new Location(0, 0)));
+        assertNull(this.network.getHoleFromLocation(this.world, new Location(4, 4)));
+        assertEquals(Set.of(l), this.network.getHoleLocation(this.world));
+    }
+
     @AfterEach
     void tearDown() {
         if (this.world.contains(hole)) {
@@ -101,7 +101,7 @@ public class RabbitTest {
 
         Location startingLocation = new Location(0,0);
         Location rabbitHoleLocation = new Location(1,2);
-        RabbitHoleNetwork.getInstance().addHole(rh);
+        RabbitHoleNetwork.of(this.w).addHole(rh);
 
 
         this.w.setNight();
@@ -115,7 +115,7 @@ public class RabbitTest {
         r.act(this.w);
         r.act(this.w);
 
-        assertTrue(RabbitHoleNetwork.getInstance().getInhabitants().contains(r));
+        assertTrue(RabbitHoleNetwork.of(this.w).getInhabitants().contains(r));
 
     }
 
@@ -156,12 +156,13 @@ public class RabbitTest {
 
 
         this.w.setTile(location, rh);
+        RabbitHoleNetwork.of(this.w).addHole(rh);
 
         this.w.add(r1);
         this.w.add(r2);
 
-        RabbitHoleNetwork.getInstance().animalEnters(r1);
-        RabbitHoleNetwork.getInstance().animalEnters(r2);
+        RabbitHoleNetwork.of(this.w).animalEnters(r1);
+        RabbitHoleNetwork.of(this.w).animalEnters(r2);
 
         for(int i = 0; i < 100; i++) {
             r1.reproduce(w);
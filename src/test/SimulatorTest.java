@@ -0,0 +1,207 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import itumulator.simulator.Simulator;
+import itumulator.world.Location;
+import itumulator.world.World;
+import itumulator.world.WorldFrame;
+import simulator.actors.Rabbit;
+import simulator.objects.plants.Grass;
+
+public class SimulatorTest {
+
+    @Test
+    public void parallelAnimalsTest() {
+        // Animals planned in parallel end up in the same places for a seed, regardless of the amount of threads
+        int[] threads = { 1, 4 };
+        Rabbit[][] rabbits = new Rabbit[threads.length][];
+        World[] worlds = new World[threads.length];
+        Location[] starts = new Location[60];
+        for(int i = 0; i < threads.length; i++) {
+            worlds[i] = new World(30);
+            rabbits[i] = new Rabbit[60];
+            Random random = new Random(3);
+            for(int r = 0; r < rabbits[i].length; r++) {
+                Location l = new Location(random.nextInt(30), random.nextInt(30));
+                while(!worlds[i].isTileEmpty(l)) l = new Location(random.nextInt(30), random.nextInt(30));
+                starts[r] = l;
+                rabbits[i][r] = new Rabbit();
+                worlds[i].setTile(l, rabbits[i][r]);
+            }
+            Simulator simulator = new Simulator(worlds[i], 0);
+            simulator.setParallelism(threads[i]);
+            simulator.setSeed(42);
+            for(int step = 0; step < 15; step++) simulator.simulate();
+        }
+
+        int moved = 0;
+        for(int r = 0; r < rabbits[0].length; r++) {
+            assertEquals(worlds[0].contains(rabbits[0][r]), worlds[1].contains(rabbits[1][r]));
+            if(!worlds[0].contains(rabbits[0][r])) continue;
+            assertEquals(worlds[0].isOnTile(rabbits[0][r]), worlds[1].isOnTile(rabbits[1][r]));
+            if(!worlds[0].isOnTile(rabbits[0][r])) continue;
+            assertEquals(worlds[0].getLocation(rabbits[0][r]), worlds[1].getLocation(rabbits[1][r]));
+            if(!starts[r].equals(worlds[0].getLocation(rabbits[0][r]))) moved++;
+        }
+        assertTrue(moved > 0);
+    }
+
+    @Test
+    public void parallelMoveConflictTest() {
+        // Both rabbits can only step to the tile between them, which goes to the one added first
+        World world = new World(3);
+        for(int x = 0; x < 3; x++) {
+            world.setTile(new Location(x, 1), new Object());
+            world.setTile(new Location(x, 2), new Object());
+        }
+        Rabbit first = new Rabbit(), second = new Rabbit();
+        world.setTile(new Location(0, 0), first);
+        world.setTile(new Location(2, 0), second);
+
+        Simulator simulator = new Simulator(world, 0);
+        simulator.setParallelism(2);
+        simulator.setSeed(1);
+        simulator.simulate();
+        assertEquals(new Location(1, 0), world.getLocation(first));
+        assertEquals(new Location(2, 0), world.getLocation(second));
+    }
+
+    @Test
+    public void planSkippedOnPathTest() {
+        // An animal following a path doesn't wander, so it isn't planned
+        World world = new World(5);
+        Rabbit rabbit = new Rabbit();
+        Location start = new Location(0, 0);
+        world.setTile(start, rabbit);
+        assertNotNull(rabbit.plan(world, start, new SplittableRandom(1)));
+
+        rabbit.getPathFinder().setLocation(start);
+        assertTrue(rabbit.getPathFinder().findPathToLocation(new Location(4, 4), world));
+        assertNull(rabbit.plan(world, start, new SplittableRandom(1)));
+    }
+
+    @Test
+    public void parallelStepTest() {
+        // Stepping in parallel gives the same world for a seed, regardless of the amount of threads
+        World[] worlds = { new World(40), new World(40) };
+        int[] threads = { 1, 4 };
+        for(int i = 0; i < worlds.length; i++) {
+            for(int x = 0; x < 40; x += 3) {
+                Grass grass = new Grass();
+                grass.setToRipe();
+                worlds[i].setTile(new Location(x, x), grass);
+            }
+            Simulator simulator = new Simulator(worlds[i], 0);
+            simulator.setParallelism(threads[i]);
+            simulator.setSeed(42);
+            for(int step = 0; step < 30; step++) simulator.simulate();
+        }
+
+        int grassCount = 0;
+        for(int y = 0; y < 40; y++) {
+            for(int x = 0; x < 40; x++) {
+                Object a = worlds[0].containsNonBlocking(x, y) ? worlds[0].getNonBlocking(new Location(x, y)) : null;
+                Object b = worlds[1].containsNonBlocking(x, y) ? worlds[1].getNonBlocking(new Location(x, y)) : null;
+                assertEquals(a == null, b == null);
+                if(a == null) continue;
+                assertEquals(((Grass) a).getCurrentStage(), ((Grass) b).getCurrentStage());
+                grassCount++;
+            }
+        }
+        // The grass has spread
+        assertTrue(grassCount > 14);
+    }
+
+    @Test
+    public void doubleBufferedTest() {
+        World world = new World(10);
+        Grass grass = new Grass();
+        world.setTile(new Location(0, 0), grass);
+        world.setDoubleBuffered(true);
+        Simulator simulator = new Simulator(world, 0);
+
+        WorldFrame frame = world.getFrame();
+        assertSame(grass, frame.getTile(0, 0));
+
+        // Changes are published when swapping, while the previous frame stays as it was
+        world.delete(grass);
+        Grass moved = new Grass();
+        world.setTile(new Location(5, 5), moved);
+        assertSame(grass, world.getFrame().getTile(0, 0));
+        assertTrue(world.hasUnpublishedChanges());
+        world.swapBuffers();
+        assertFalse(world.hasUnpublishedChanges());
+        assertNull(world.getFrame().getTile(0, 0));
+        assertSame(moved, world.getFrame().getNonBlocking(5, 5));
+        assertFalse(world.getFrame().containsNonBlocking(0, 0));
+        assertSame(grass, frame.getTile(0, 0));
+
+        // Each step is published at its end
+        simulator.simulate();
+        assertEquals(world.getStepCount(), world.getFrame().getStepCount());
+        assertFalse(world.hasUnpublishedChanges());
+
+        // Changes made between steps are published before the step, and frames must catch up on every step they missed
+        Object rock = new Object();
+        world.setTile(new Location(1, 1), rock);
+        simulator.simulate();
+        assertNull(world.getFrame().getTile(0, 0));
+        assertSame(rock, world.getFrame().getTile(1, 1));
+        assertFalse(world.getFrame().isTileEmpty(1, 1));
+        assertEquals(world.getEmptyNeighbourMask(0, 0), world.getFrame().getEmptyNeighbourMask(0, 0));
+    }
+
+    @Test
+    public void acquiredFrameTest() {
+        // An acquired frame is kept as it is however many swaps later, while the world keeps publishing frames
+        World world = new World(10);
+        Object rock = new Object();
+        world.setTile(new Location(0, 0), rock);
+        world.setDoubleBuffered(true);
+
+        WorldFrame held = world.acquireFrame();
+        for(int x = 1; x < 5; x++) {
+            world.move(rock, new Location(x, 0));
+            world.swapBuffers();
+            assertSame(rock, world.getFrame().getTile(x, 0));
+            assertSame(rock, held.getTile(0, 0));
+            assertTrue(held.isTileEmpty(x, 0));
+        }
+        world.releaseFrame(held);
+
+        world.move(rock, new Location(5, 0));
+        world.swapBuffers();
+        world.swapBuffers();
+        assertSame(rock, world.getFrame().getTile(5, 0));
+        assertTrue(world.getFrame().isTileEmpty(4, 0));
+        assertSame(world.getFrame(), world.acquireFrame());
+    }
+
+    @Test
+    public void doubleBufferedPlanTest() {
+        // The rabbit in front steps ahead first. Planning against the map being changed, the one behind would follow into the tile it left,
+        // but planning against the frame it still sees that tile taken
+        for(boolean doubleBuffered : new boolean[] { false, true }) {
+            World world = new World(3);
+            for(int x = 0; x < 3; x++) {
+                world.setTile(new Location(x, 1), new Object());
+                world.setTile(new Location(x, 2), new Object());
+            }
+            Rabbit front = new Rabbit(), behind = new Rabbit();
+            world.setTile(new Location(1, 0), front);
+            world.setTile(new Location(0, 0), behind);
+            world.setDoubleBuffered(doubleBuffered);
+
+            Simulator simulator = new Simulator(world, 0);
+            simulator.setSeed(1);
+            simulator.simulate();
+            assertEquals(new Location(2, 0), world.getLocation(front));
+            assertEquals(doubleBuffered ? new Location(0, 0) : new Location(1, 0), world.getLocation(behind));
+        }
+    }
+}
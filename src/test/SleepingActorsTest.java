@@ -0,0 +1,108 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import itumulator.simulator.Actor;
+import itumulator.simulator.Simulator;
+import itumulator.world.Location;
+import itumulator.world.World;
+import simulator.objects.Carcass;
+
+public class SleepingActorsTest {
+
+    /**
+     * Acts in the steps it was told to, and records the steps it actually acted in
+     */
+    private static class Sleeper implements Actor {
+        final List<Long> acted = new ArrayList<>();
+        final long[] wakeUps;
+        int next;
+
+        Sleeper(long... wakeUps) {
+            this.wakeUps = wakeUps;
+        }
+
+        @Override
+        public void act(World world) {
+            acted.add(world.getStepCount());
+            // Sleeps for good after the last wake up
+            world.sleepUntil(this, next < wakeUps.length ? wakeUps[next++] : Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void wakesInStepTest() {
+        World world = new World(5);
+        Simulator simulator = new Simulator(world, 0);
+        Random random = new Random(7);
+
+        // Sleep lengths across every level of the wheel, including a wake up at the very step a level turns over
+        List<Sleeper> sleepers = new ArrayList<>();
+        for(int i = 0; i < 200; i++) {
+            long step = 1;
+            long[] wakeUps = new long[3];
+            for(int j = 0; j < wakeUps.length; j++) {
+                step += 1 + random.nextInt(i % 2 == 0 ? 100 : 9000);
+                wakeUps[j] = step;
+            }
+            Sleeper sleeper = new Sleeper(wakeUps);
+            sleepers.add(sleeper);
+            world.add(sleeper);
+        }
+        Sleeper turnover = new Sleeper(64 * 64, 64 * 64 * 2 + 1);
+        world.add(turnover);
+
+        for(int i = 0; i < 30000; i++) simulator.simulate();
+
+        for(Sleeper sleeper : sleepers) {
+            assertEquals(4, sleeper.acted.size());
+            assertEquals(1L, (long) sleeper.acted.get(0));
+            for(int j = 0; j < sleeper.wakeUps.length; j++)
+                assertEquals(sleeper.wakeUps[j], (long) sleeper.acted.get(j + 1));
+        }
+        assertEquals(List.of(1L, 64L * 64, 64L * 64 * 2 + 1), turnover.acted);
+    }
+
+    @Test
+    public void wakeAndDeleteTest() {
+        World world = new World(5);
+        Simulator simulator = new Simulator(world, 0);
+        Sleeper woken = new Sleeper(1000, 1001);
+        Sleeper deleted = new Sleeper(3);
+        world.add(woken);
+        world.add(deleted);
+
+        simulator.simulate();
+        assertFalse(world.isAwake(woken));
+        world.wake(woken);
+        assertTrue(world.isAwake(woken));
+        world.delete(deleted);
+        simulator.simulate();
+        simulator.simulate();
+        simulator.simulate();
+
+        assertEquals(List.of(1L, 2L), woken.acted);
+        assertEquals(List.of(1L), deleted.acted);
+    }
+
+    @Test
+    public void carcassSleepsUntilDayTest() {
+        World world = new World(5);
+        Simulator simulator = new Simulator(world, 0);
+        Carcass carcass = new Carcass(Carcass.smallCarcass, false);
+        world.setTile(new Location(0, 0), carcass);
+
+        simulator.simulate();
+        assertFalse(world.isAwake(carcass));
+        assertEquals(World.getTotalDayDuration(), world.getNextStepAtTime(0));
+
+        // It rots away after 20 days all the same
+        for(int i = 1; i < 20 * World.getTotalDayDuration(); i++) simulator.simulate();
+        assertFalse(world.contains(carcass));
+    }
+}
@@ -2,6 +2,7 @@ package test;
 
 import itumulator.world.Location;
 import itumulator.world.World;
+import itumulator.world.WorldRandom;
 import simulator.actors.Animal;
 import simulator.actors.Wolf;
 import simulator.actors.WolfPack;
@@ -277,4 +278,15 @@ public class WolfTest {
 
     }
 
+    @Test
+    public void wolfPackDenSeededTest() {
+        // The den is placed from the randomness of the world, so the same seed places it on the same tile
+        Location[] dens = new Location[2];
+        for(int i = 0; i < dens.length; i++) {
+            World world = new World(30);
+            WorldRandom.of(world).setSeed(11);
+            dens[i] = world.getLocation(new WolfPack(world).getHole());
+        }
+        assertEquals(dens[0], dens[1]);
+    }
 }